@@ -1,7 +1,10 @@
 package com.rpc.netty.rapid.client;
 
 import com.rpc.netty.rapid.client.proxy.RpcAsyncProxy;
+import com.rpc.netty.rapid.client.proxy.RpcAsyncStubImpl;
 import com.rpc.netty.rapid.client.proxy.RpcProxyImpl;
+import com.rpc.netty.rapid.client.proxy.RpcStubFactory;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
 
 import java.lang.reflect.Proxy;
 import java.util.Map;
@@ -16,10 +19,15 @@ import java.util.concurrent.ConcurrentHashMap;
 public class RpcClient {
 
     private String serverAddress;
+    /**
+     * 调用超时时间(毫秒)
+     */
     private long timeout;
 
     private RpcConnetManager connetManager;
 
+    private RpcClientConfig clientConfig;
+
     /* 异步调用的代理类缓存 */
     private final Map<Class<?>, Object> syncProxyInstanceMap =
             new ConcurrentHashMap<>();
@@ -27,10 +35,20 @@ public class RpcClient {
     private final Map<Class<?>, Object> asyncProxyIntanceMap =
             new ConcurrentHashMap<>();
 
+    /* 接口类型的异步调用代理缓存，key是异步孪生接口 */
+    private final Map<Class<?>, Object> asyncStubInstanceMap =
+            new ConcurrentHashMap<>();
+
     public void initClient(String serverAddress, long timeout) {
+        initClient(serverAddress, timeout, new RpcClientConfig());
+    }
+
+    public void initClient(String serverAddress, long timeout,
+                           RpcClientConfig clientConfig) {
         this.serverAddress = serverAddress;
         this.timeout = timeout;
-        this.connetManager = new RpcConnetManager();
+        this.clientConfig = clientConfig;
+        this.connetManager = new RpcConnetManager(clientConfig);
         connect();
     }
 
@@ -38,12 +56,16 @@ public class RpcClient {
         this.connetManager.connect(serverAddress);
     }
 
+    public RpcConnetManager getConnetManager() {
+        return connetManager;
+    }
+
     public void stop() {
         this.connetManager.stop();
     }
 
     /**
-     * 同步调用方法，走的是JDK的代理
+     * 同步调用方法，默认使用cglib生成的桩代码，也可以配置成JDK的代理
      *
      * @param interfaceClass 要调用的方法
      * @return T
@@ -56,14 +78,38 @@ public class RpcClient {
         if (syncProxyInstanceMap.containsKey(interfaceClass)) {
             return ((T) syncProxyInstanceMap.get(interfaceClass));
         } else {
-            Object proxy = Proxy.newProxyInstance(interfaceClass.getClassLoader(),
-                    new Class<?>[]{interfaceClass},
-                    new RpcProxyImpl<>(connetManager, interfaceClass, timeout));
+            RpcProxyImpl<T> invoker = new RpcProxyImpl<>(connetManager,
+                    interfaceClass, timeout,
+                    clientConfig.getLoadBalancer(interfaceClass));
+            Object proxy = clientConfig.isBytecodeStubs()
+                    ? RpcStubFactory.createSyncStub(interfaceClass, invoker)
+                    : Proxy.newProxyInstance(interfaceClass.getClassLoader(),
+                    new Class<?>[]{interfaceClass}, invoker);
             syncProxyInstanceMap.put(interfaceClass, proxy);
             return ((T) proxy);
         }
     }
 
+    /**
+     * 接口类型的异步调用，asyncInterface是服务接口的异步孪生接口，
+     * 方法名和参数与服务接口一致，返回值是CompletableFuture
+     *
+     * @param interfaceClass 服务接口
+     * @param asyncInterface 异步孪生接口
+     * @return A
+     * @author debao.yang
+     * @since 2026/10/18 18:35
+     */
+    @SuppressWarnings("unchecked")
+    public <A> A invokeAsync(Class<?> interfaceClass, Class<A> asyncInterface) {
+        return (A) asyncStubInstanceMap.computeIfAbsent(asyncInterface, key ->
+                Proxy.newProxyInstance(asyncInterface.getClassLoader(),
+                        new Class<?>[]{asyncInterface},
+                        new RpcAsyncStubImpl(connetManager, interfaceClass,
+                                asyncInterface, timeout,
+                                clientConfig.getLoadBalancer(interfaceClass))));
+    }
+
     /**
      * 异步调用方式的方法
      *
@@ -75,7 +121,7 @@ public class RpcClient {
         } else {
             RpcProxyImpl<T> asyncProxyInstance =
                     new RpcProxyImpl<>(connetManager, interfaceClass,
-                            timeout);
+                            timeout, clientConfig.getLoadBalancer(interfaceClass));
             asyncProxyIntanceMap.put(interfaceClass, asyncProxyInstance);
             return asyncProxyInstance;
         }
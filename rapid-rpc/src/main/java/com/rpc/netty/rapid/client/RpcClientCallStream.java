@@ -0,0 +1,206 @@
+package com.rpc.netty.rapid.client;
+
+import com.rpc.netty.rapid.codec.RpcResponse;
+import com.rpc.netty.rapid.stream.RpcSerialExecutor;
+import com.rpc.netty.rapid.stream.RpcStreamCredits;
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 客户端的双向流式调用，调用方拿到的请求观察者就是它本身
+ * 1、onNext发出一个元素，消耗一个服务端给的信用，信用用完时阻塞调用线程，最多等待调用的超时时间
+ * 2、服务端发来的元素在流自己的串行执行器中按顺序交给响应观察者，每处理完半个窗口归还一次信用
+ * 3、onCompleted结束请求方向，onError取消整个调用；服务端结束响应方向时整个调用结束
+ * 同一个连接上的多个流各自有独立的信用窗口和串行执行器，一个流的消费慢不会阻塞其他流
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:00
+ */
+@Slf4j
+public class RpcClientCallStream<Req, Resp> implements RpcStreamObserver<Req> {
+
+    private final RpcClientHandler handler;
+
+    private final long requestId;
+
+    private final long timeoutMillis;
+
+    private final RpcStreamObserver<Resp> responseObserver;
+
+    private final RpcSerialExecutor executor;
+
+    /**
+     * 请求方向的信用(服务端给的)
+     */
+    private final RpcStreamCredits sendCredits;
+
+    /**
+     * 每处理这么多个元素归还一次信用
+     */
+    private final int creditBatch;
+
+    /**
+     * 已经处理还没有归还信用的元素个数，只在串行执行器中访问
+     */
+    private int received;
+
+    /**
+     * 响应方向已经结束，只在串行执行器中访问
+     */
+    private boolean inboundDone;
+
+    /**
+     * 请求方向已经结束(调用方结束、取消，或者整个调用已经结束)
+     */
+    private volatile boolean outboundDone;
+
+    RpcClientCallStream(RpcClientHandler handler, long requestId, int window,
+                        long timeoutMillis, RpcStreamObserver<Resp> responseObserver,
+                        RpcSerialExecutor executor) {
+        this.handler = handler;
+        this.requestId = requestId;
+        this.timeoutMillis = timeoutMillis;
+        this.responseObserver = responseObserver;
+        this.executor = executor;
+        this.sendCredits = new RpcStreamCredits(window);
+        this.creditBatch = Math.max(1, window / 2);
+    }
+
+    /**
+     * 发出一个元素，信用用完时等待服务端归还，超过调用的超时时间时取消并抛出RpcTimeoutException
+     * 在EventLoop线程(比如没有配置回调线程池时的响应回调)中信用用完时直接抛出异常，不能在这里等待
+     */
+    @Override
+    public void onNext(Req value) {
+        if (outboundDone) {
+            throw new IllegalStateException("rpc stream already completed, request id: "
+                    + requestId);
+        }
+        boolean acquired;
+        try {
+            acquired = handler.getChannel().eventLoop().inEventLoop()
+                    ? sendCredits.tryAcquire() : sendCredits.acquire(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onError(e);
+            throw new RpcTimeoutException("interrupted while waiting for stream credits, "
+                    + "request id: " + requestId);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("rpc stream already completed, request id: "
+                    + requestId, e);
+        }
+        if (!acquired) {
+            onError(null);
+            throw new RpcTimeoutException("timeout waiting for stream credits, "
+                    + "request id: " + requestId + ", timeout: " + timeoutMillis + "ms");
+        }
+        handler.sendStreamElement(requestId, value, false);
+    }
+
+    /**
+     * 取消整个调用，服务端的请求观察者收到CancellationException，之后不会再收到服务端的元素
+     */
+    @Override
+    public void onError(Throwable cause) {
+        if (outboundDone) {
+            return;
+        }
+        outboundDone = true;
+        sendCredits.close();
+        handler.cancelCallStream(requestId);
+        runSerial(() -> {
+            if (!inboundDone) {
+                inboundDone = true;
+                responseObserver.onError(new CancellationException(
+                        "rpc stream cancelled, request id: " + requestId));
+            }
+        });
+    }
+
+    /**
+     * 结束请求方向，服务端的请求观察者收到onCompleted，之后仍然可以收到服务端的元素
+     */
+    @Override
+    public void onCompleted() {
+        if (outboundDone) {
+            return;
+        }
+        outboundDone = true;
+        sendCredits.close();
+        handler.sendStreamElement(requestId, null, true);
+    }
+
+    /**
+     * 在EventLoop线程中收到一帧(元素、结束，或者不是流式的响应比如过载、打开失败)
+     */
+    void onFrame(RpcResponse frame) {
+        boolean end = !frame.isStream() || frame.isEndOfStream();
+        if (end) {
+            // 服务端已经结束整个调用，调用方之后的发送直接失败
+            outboundDone = true;
+            sendCredits.close();
+        }
+        try {
+            executor.execute(() -> deliver(frame));
+        } catch (RejectedExecutionException e) {
+            frame.releasePayload();
+            log.warn("rpc stream executor rejected, cancel stream, request id: {}",
+                    requestId);
+            onError(null);
+        }
+    }
+
+    /**
+     * 服务端归还请求方向的信用，在EventLoop线程中调用
+     */
+    void addCredits(int count) {
+        sendCredits.add(count);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(RpcResponse frame) {
+        if (inboundDone) {
+            frame.releasePayload();
+            return;
+        }
+        try {
+            frame.deserializePayload();
+            if (frame.isStream() && !frame.isEndOfStream()) {
+                responseObserver.onNext((Resp) frame.getResult());
+                if (++received >= creditBatch) {
+                    handler.sendStreamCredits(requestId, received);
+                    received = 0;
+                }
+                return;
+            }
+            inboundDone = true;
+            if (frame.getStatus() == RpcResponse.STATUS_OVERLOADED) {
+                responseObserver.onError(new RpcOverloadedException(
+                        "server overloaded, request id: " + requestId
+                                + ", reason: " + frame.getResult()));
+            } else if (frame.getThrowable() != null) {
+                responseObserver.onError(frame.getThrowable());
+            } else {
+                responseObserver.onCompleted();
+            }
+        } catch (Throwable t) {
+            // 调用方处理元素失败，取消整个调用
+            log.error("rpc stream observer failed, request id: " + requestId, t);
+            if (!inboundDone) {
+                inboundDone = true;
+                onError(t);
+            }
+        }
+    }
+
+    private void runSerial(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("rpc stream executor rejected, request id: {}", requestId);
+        }
+    }
+}
@@ -1,18 +1,41 @@
 package com.rpc.netty.rapid.client;
 
+import com.rpc.netty.rapid.client.loadbalance.RpcEndpoint;
+import com.rpc.netty.rapid.codec.RpcMessageTooLargeException;
 import com.rpc.netty.rapid.codec.RpcRequest;
 import com.rpc.netty.rapid.codec.RpcResponse;
+import com.rpc.netty.rapid.codec.RpcStreamControl;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.stream.RpcSerialExecutor;
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
 import lombok.Getter;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.net.SocketAddress;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 实际的业务处理器
@@ -20,14 +43,146 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author debao.yang
  * @since 2024/7/2 06:03
  */
-public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
+@Slf4j
+public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse>
+        implements RpcEndpoint {
+
+    /**
+     * 所有连接共享的时间轮，负责请求的超时
+     */
+    private static final HashedWheelTimer TIMEOUT_TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("rapid-rpc-timeout", true),
+            10, TimeUnit.MILLISECONDS);
+
+    private static final int STREAM_THREADS = Math.max(16,
+            Runtime.getRuntime().availableProcessors() * 4);
+
+    private static final int STREAM_QUEUE_CAPACITY = 65536;
+
+    /**
+     * 没有配置回调线程池时执行双向流式调用回调的线程池，所有连接共享
+     * 每个慢的流最多占用一个线程，线程个数和排队的任务个数都有上限，
+     * 排队已满时对应的流以异常结束；同时进行的慢流很多时应该配置回调线程池
+     */
+    private static final ThreadPoolExecutor STREAM_EXECUTOR = newStreamExecutor();
+
+    private static ThreadPoolExecutor newStreamExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(STREAM_THREADS,
+                STREAM_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY),
+                new DefaultThreadFactory("rapid-rpc-stream", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
     @Getter
     private Channel channel;
     @Getter
     private SocketAddress remotePeer;
-    private final Map<String/* requestId */, RpcFuture> pendingRpcTable =
-            new ConcurrentHashMap<>();
+
+    /**
+     * 只在当前连接的EventLoop线程中访问，所以不需要并发容器，key是long不需要装箱
+     */
+    private final LongObjectHashMap<RpcFuture> pendingRpcTable =
+            new LongObjectHashMap<>();
+
+    /**
+     * 正在进行的流式调用，和pendingRpcTable一样只在EventLoop线程中访问
+     */
+    private final LongObjectHashMap<RpcClientStream<?>> streamTable =
+            new LongObjectHashMap<>();
+
+    /**
+     * 正在进行的双向流式调用，key是请求id(即流id)，只在EventLoop线程中访问
+     */
+    private final LongObjectHashMap<RpcClientCallStream<?, ?>> callTable =
+            new LongObjectHashMap<>();
+
+    /**
+     * 每个连接独立的请求id生成器
+     */
+    private final AtomicLong requestIdGenerator = new AtomicLong(0);
+
+    /**
+     * 超时之后才返回的响应个数，直接丢弃
+     */
+    private final AtomicLong lateResponseCount = new AtomicLong(0);
+
+    /**
+     * 超时的请求个数
+     */
+    private final AtomicLong timeoutCount = new AtomicLong(0);
+
+    /**
+     * 已发出还没有结束的请求个数，负载均衡使用，任意线程可读
+     */
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    /**
+     * 响应耗时的指数加权移动平均(纳秒)，只在EventLoop线程中更新
+     */
+    private volatile double latencyEwma = 0;
+
+    /**
+     * latencyEwma最后一次更新的时间(纳秒)
+     */
+    private volatile long latencyStampNanos = System.nanoTime();
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * 耗时平均值随时间衰减的时间常数(纳秒)，和Finagle的peak EWMA一样取10秒
+     * 一段时间没有响应的节点代价逐渐降到0，慢过一次的节点之后还能重新得到流量
+     */
+    private static final double EWMA_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 回调执行器，为null时在EventLoop线程中直接执行回调
+     */
+    private final Executor callbackExecutor;
+
+    /**
+     * 合并写的配置，见RpcClientConfig
+     */
+    private final boolean writeBatching;
+    private final int flushMaxMessages;
+    private final int flushMaxBytes;
+    private final long flushDelayMicros;
+
+    /**
+     * 调用线程写入、EventLoop线程读取的待发送请求队列
+     */
+    private final Queue<RpcFuture> writeQueue = PlatformDependent.newMpscQueue();
+
+    /**
+     * 是否已经提交了写队列的排空任务，保证同一时间只有一个排空任务
+     */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final Runnable drainTask = this::drainWriteQueue;
+
+    /**
+     * flush的次数和flush携带的请求总数，两者相除就是每次flush平均携带的请求个数
+     */
+    private final AtomicLong flushCount = new AtomicLong(0);
+    private final AtomicLong flushedMessageCount = new AtomicLong(0);
+
+    /**
+     * 单次flush携带的最多请求个数
+     */
+    private volatile int maxMessagesPerFlush = 0;
+
+    public RpcClientHandler(Executor callbackExecutor) {
+        this(new RpcClientConfig(), callbackExecutor);
+    }
+
+    public RpcClientHandler(RpcClientConfig clientConfig, Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.writeBatching = clientConfig.isWriteBatching();
+        this.flushMaxMessages = Math.max(1, clientConfig.getFlushMaxMessages());
+        this.flushMaxBytes = clientConfig.getFlushMaxBytes();
+        this.flushDelayMicros = clientConfig.getFlushDelayMicros();
+    }
 
     /**
      * 通道注册的时候触发此方法
@@ -54,16 +209,129 @@ public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
         this.remotePeer = this.channel.remoteAddress();
     }
 
+    /**
+     * 连接断开的时候，所有还在等待的请求直接失败，不用再等到超时
+     *
+     * @param ctx ctx
+     * @author debao.yang
+     * @since 2026/10/18 14:05
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        super.channelInactive(ctx);
+        List<RpcFuture> futures = new ArrayList<>(pendingRpcTable.values());
+        pendingRpcTable.clear();
+        inFlight.addAndGet(-futures.size());
+        for (RpcFuture future : futures) {
+            future.fail(new IOException("connection closed, remote peer: "
+                    + remotePeer));
+        }
+        List<RpcClientStream<?>> streams = new ArrayList<>(streamTable.values());
+        streamTable.clear();
+        inFlight.addAndGet(-streams.size());
+        for (RpcClientStream<?> stream : streams) {
+            RpcResponse end = new RpcResponse();
+            end.setStream(true);
+            end.setEndOfStream(true);
+            end.setThrowable(new IOException("connection closed, remote peer: "
+                    + remotePeer));
+            stream.onFrame(end);
+        }
+        List<RpcClientCallStream<?, ?>> calls = new ArrayList<>(callTable.values());
+        callTable.clear();
+        inFlight.addAndGet(-calls.size());
+        for (RpcClientCallStream<?, ?> call : calls) {
+            RpcResponse end = new RpcResponse();
+            end.setStream(true);
+            end.setEndOfStream(true);
+            end.setThrowable(new IOException("connection closed, remote peer: "
+                    + remotePeer));
+            call.onFrame(end);
+        }
+        // 还在写队列中没有写出的请求
+        drainWriteQueue();
+    }
+
+    /**
+     * 双向流式调用中服务端归还请求方向信用的控制消息不经过channelRead0
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof RpcStreamControl) {
+            RpcStreamControl control = (RpcStreamControl) msg;
+            RpcClientCallStream<?, ?> call = callTable.get(control.getRequestId());
+            if (call != null) {
+                call.addCredits(control.getCredits());
+            }
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx,
                                 RpcResponse rpcResponse) throws Exception {
-        String requestId = rpcResponse.getRequestId();
-        RpcFuture future = pendingRpcTable.get(requestId);
+        if (!callTable.isEmpty()) {
+            RpcClientCallStream<?, ?> call = callTable.get(rpcResponse.getRequestId());
+            if (call != null) {
+                if (!rpcResponse.isStream() || rpcResponse.isEndOfStream()) {
+                    callTable.remove(rpcResponse.getRequestId());
+                    inFlight.decrementAndGet();
+                }
+                call.onFrame(rpcResponse);
+                return;
+            }
+        }
+        if (!streamTable.isEmpty()) {
+            RpcClientStream<?> stream = streamTable.get(rpcResponse.getRequestId());
+            if (stream != null) {
+                // 结束帧或者不是流式的响应(过载、异常)都表示这个流式调用结束了
+                if (!rpcResponse.isStream() || rpcResponse.isEndOfStream()) {
+                    streamTable.remove(rpcResponse.getRequestId());
+                    inFlight.decrementAndGet();
+                }
+                stream.onFrame(rpcResponse);
+                return;
+            }
+        }
+        RpcFuture future = pendingRpcTable.remove(rpcResponse.getRequestId());
         if (future != null) {
-            pendingRpcTable.remove(requestId);
+            inFlight.decrementAndGet();
+            recordLatency(future.getElapsedNanos());
             future.done(rpcResponse);
+        } else {
+            // 已经超时被移除的请求，计数后丢弃
+            lateResponseCount.incrementAndGet();
+            rpcResponse.releasePayload();
         }
+    }
 
+    /**
+     * 编码时请求超过了最大消息长度，对应的请求直接失败，连接仍然可用
+     * (响应超过最大长度时解码器输出带有失败原因的响应，在channelRead0中处理)
+     *
+     * @param ctx   ctx
+     * @param cause 异常
+     * @author debao.yang
+     * @since 2026/10/18 20:50
+     */
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
+            throws Exception {
+        RpcMessageTooLargeException tooLarge = RpcMessageTooLargeException.find(cause);
+        if (tooLarge != null) {
+            failRequest(tooLarge.getRequestId(), tooLarge);
+            return;
+        }
+        super.exceptionCaught(ctx, cause);
+    }
+
+    private void failRequest(long requestId, Throwable cause) {
+        RpcFuture future = pendingRpcTable.remove(requestId);
+        if (future != null) {
+            inFlight.decrementAndGet();
+            future.fail(cause);
+        }
     }
 
     /**
@@ -81,16 +349,367 @@ public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
 
     /**
      * 异步发送请求方法
+     * 请求登记到pendingRpcTable和时间轮都在EventLoop线程中完成
+     * 开启合并写时请求先放入写队列，由EventLoop批量写出，一次flush携带多个请求
      *
-     * @param rpcRequest 请求的参数
+     * @param rpcRequest    请求的参数
+     * @param timeoutMillis 超时时间(毫秒)，超时后从pendingRpcTable中移除并以失败结束
      * @return com.rpc.netty.rapid.client.RpcFuture
      * @author debao.yang
      * @since 2024/7/2 12:18
      */
-    public RpcFuture sendRequest(RpcRequest rpcRequest) {
-        RpcFuture future = new RpcFuture(rpcRequest);
-        pendingRpcTable.put(rpcRequest.getRequestId(), future);
-        channel.writeAndFlush(rpcRequest);
+    public RpcFuture sendRequest(RpcRequest rpcRequest, long timeoutMillis) {
+        rpcRequest.setRequestId(requestIdGenerator.incrementAndGet());
+        // 把超时时间作为剩余的时间预算告诉服务端
+        rpcRequest.setTimeoutMillis(timeoutMillis);
+        RpcFuture future = new RpcFuture(rpcRequest, callbackExecutor,
+                timeoutMillis);
+        future.setHandler(this);
+        inFlight.incrementAndGet();
+        if (writeBatching) {
+            writeQueue.offer(future);
+            scheduleDrain();
+            return future;
+        }
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            doSendRequest(future);
+        } else {
+            eventLoop.execute(() -> doSendRequest(future));
+        }
         return future;
     }
+
+    /**
+     * 发起流式调用，返回值按照信用窗口逐个接收
+     *
+     * @param rpcRequest    请求的参数
+     * @param timeoutMillis 等待每一个元素的超时时间(毫秒)，同时作为服务端建立流式调用的时间预算
+     * @param window        信用窗口，服务端最多先发出这么多个还没有被消费的元素
+     * @return com.rpc.netty.rapid.client.RpcClientStream
+     * @author debao.yang
+     * @since 2026/10/18 21:50
+     */
+    public <T> RpcClientStream<T> openStream(RpcRequest rpcRequest, long timeoutMillis,
+                                             int window) {
+        long requestId = requestIdGenerator.incrementAndGet();
+        rpcRequest.setRequestId(requestId);
+        rpcRequest.setTimeoutMillis(timeoutMillis);
+        rpcRequest.setStreamWindow(window);
+        RpcClientStream<T> stream = new RpcClientStream<>(this, requestId, window,
+                timeoutMillis);
+        inFlight.incrementAndGet();
+        channel.eventLoop().execute(() -> {
+            streamTable.put(requestId, stream);
+            channel.writeAndFlush(rpcRequest).addListener(future -> {
+                // 请求没有写出(编码失败、太大、连接断开)，调用方不用等到超时
+                if (!future.isSuccess() && streamTable.remove(requestId) != null) {
+                    inFlight.decrementAndGet();
+                    RpcResponse end = new RpcResponse();
+                    end.setStream(true);
+                    end.setEndOfStream(true);
+                    end.setThrowable(future.cause());
+                    stream.onFrame(end);
+                }
+            });
+        });
+        return stream;
+    }
+
+    void sendStreamCredits(long requestId, int credits) {
+        channel.writeAndFlush(new RpcStreamControl(requestId, credits, false),
+                channel.voidPromise());
+    }
+
+    void cancelStream(long requestId) {
+        EventLoop eventLoop = channel.eventLoop();
+        eventLoop.execute(() -> {
+            if (streamTable.remove(requestId) != null) {
+                inFlight.decrementAndGet();
+                channel.writeAndFlush(new RpcStreamControl(requestId, 0, true),
+                        channel.voidPromise());
+            }
+        });
+    }
+
+    /**
+     * 发起双向流式调用(客户端流式调用是服务端只返回一个元素的双向流式调用)
+     * 和同一个连接上的其他请求、流复用连接，按照请求id区分
+     *
+     * @param rpcRequest       打开流的请求，参数是调用方的响应观察者(不会被发送)
+     * @param timeoutMillis    等待信用的超时时间(毫秒)，同时作为服务端等待信用的时间
+     * @param window           两个方向的信用窗口，对端最多先发出这么多个还没有被处理的元素
+     * @param responseObserver 接收服务端元素的观察者，在回调线程池(没有配置时是共享的流线程池)中按顺序执行
+     * @return 发送请求元素的观察者
+     * @author debao.yang
+     * @since 2026/10/18 23:10
+     */
+    public <Req, Resp> RpcClientCallStream<Req, Resp> openCallStream(
+            RpcRequest rpcRequest, long timeoutMillis, int window,
+            RpcStreamObserver<Resp> responseObserver) {
+        long requestId = requestIdGenerator.incrementAndGet();
+        rpcRequest.setRequestId(requestId);
+        rpcRequest.setTimeoutMillis(timeoutMillis);
+        rpcRequest.setStreamWindow(window);
+        // 响应观察者可能很慢，不能在EventLoop中执行，否则会阻塞同一个连接上的其他流
+        Executor executor = callbackExecutor != null ? callbackExecutor
+                : STREAM_EXECUTOR;
+        RpcClientCallStream<Req, Resp> call = new RpcClientCallStream<>(this,
+                requestId, window, timeoutMillis, responseObserver,
+                new RpcSerialExecutor(executor));
+        inFlight.incrementAndGet();
+        // 打开流的请求必须在调用方发出的第一个元素之前写出
+        EventLoop eventLoop = channel.eventLoop();
+        Runnable open = () -> {
+            callTable.put(requestId, call);
+            channel.writeAndFlush(rpcRequest).addListener(future -> {
+                // 打开流的请求没有写出(编码失败、连接断开)，调用方不用等到超时
+                if (!future.isSuccess() && callTable.remove(requestId) != null) {
+                    inFlight.decrementAndGet();
+                    RpcResponse end = new RpcResponse();
+                    end.setStream(true);
+                    end.setEndOfStream(true);
+                    end.setThrowable(future.cause());
+                    call.onFrame(end);
+                }
+            });
+        };
+        if (eventLoop.inEventLoop()) {
+            open.run();
+        } else {
+            eventLoop.execute(open);
+        }
+        return call;
+    }
+
+    /**
+     * 发出双向流式调用中请求方向的一个元素或者结束帧
+     */
+    void sendStreamElement(long requestId, Object element, boolean end) {
+        RpcRequest frame = new RpcRequest();
+        frame.setRequestId(requestId);
+        frame.setParameters(end ? null : new Object[]{element});
+        frame.setStream(true);
+        frame.setEndOfStream(end);
+        channel.writeAndFlush(frame, channel.voidPromise());
+    }
+
+    void cancelCallStream(long requestId) {
+        EventLoop eventLoop = channel.eventLoop();
+        eventLoop.execute(() -> {
+            if (callTable.remove(requestId) != null) {
+                inFlight.decrementAndGet();
+                channel.writeAndFlush(new RpcStreamControl(requestId, 0, true),
+                        channel.voidPromise());
+            }
+        });
+    }
+
+    /**
+     * 调用方取消了请求，从pendingRpcTable中移除
+     * 还没有登记的请求在写出之前会被跳过，这里找不到也不用处理
+     */
+    void cancelRequest(long requestId) {
+        EventLoop eventLoop = channel.eventLoop();
+        Runnable cancel = () -> {
+            if (pendingRpcTable.remove(requestId) != null) {
+                inFlight.decrementAndGet();
+            }
+        };
+        if (eventLoop.inEventLoop()) {
+            cancel.run();
+        } else {
+            eventLoop.execute(cancel);
+        }
+    }
+
+    private void doSendRequest(RpcFuture future) {
+        if (future.isCancelled()) {
+            inFlight.decrementAndGet();
+            return;
+        }
+        registerRequest(future);
+        channel.writeAndFlush(future.getRequest())
+                .addListener(failOnWriteError(future.getRequest().getRequestId()));
+        recordFlush(1);
+    }
+
+    /**
+     * 请求没有写出(编码失败、太大、连接断开)时从pendingRpcTable中移除并立即失败，不用等到超时
+     * 监听器在EventLoop线程中执行
+     */
+    private ChannelFutureListener failOnWriteError(long requestId) {
+        return writeFuture -> {
+            if (writeFuture.isSuccess()) {
+                return;
+            }
+            RpcFuture future = pendingRpcTable.remove(requestId);
+            if (future != null) {
+                inFlight.decrementAndGet();
+                future.fail(writeFuture.cause());
+            }
+        };
+    }
+
+    /**
+     * 登记到pendingRpcTable并在时间轮上设置超时，只在EventLoop线程中调用
+     */
+    private void registerRequest(RpcFuture future) {
+        long requestId = future.getRequest().getRequestId();
+        long timeoutMillis = future.getTimeoutMillis();
+        pendingRpcTable.put(requestId, future);
+        EventLoop eventLoop = channel.eventLoop();
+        Timeout timeout = TIMEOUT_TIMER.newTimeout(
+                t -> eventLoop.execute(() -> expire(requestId, timeoutMillis)),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        future.setTimeout(timeout);
+    }
+
+    /**
+     * 写队列从空变成非空的时候提交一个排空任务，之后到达的请求搭这个任务的便车
+     */
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            EventLoop eventLoop = channel.eventLoop();
+            if (flushDelayMicros > 0) {
+                eventLoop.schedule(drainTask, flushDelayMicros, TimeUnit.MICROSECONDS);
+            } else {
+                eventLoop.execute(drainTask);
+            }
+        }
+    }
+
+    /**
+     * 在EventLoop线程中排空写队列，每flushMaxMessages个请求或者flushMaxBytes字节flush一次
+     *
+     * @author debao.yang
+     * @since 2026/10/18 16:40
+     */
+    private void drainWriteQueue() {
+        // 先清除标记再排空，排空过程中新到达的请求会提交新的任务，不会被遗漏
+        drainScheduled.set(false);
+        RpcFuture future;
+        if (!channel.isActive()) {
+            while ((future = writeQueue.poll()) != null) {
+                inFlight.decrementAndGet();
+                future.fail(new IOException("connection closed, remote peer: "
+                        + remotePeer));
+            }
+            return;
+        }
+        int batch = 0;
+        while ((future = writeQueue.poll()) != null) {
+            if (future.isCancelled()) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            registerRequest(future);
+            channel.write(future.getRequest())
+                    .addListener(failOnWriteError(future.getRequest().getRequestId()));
+            batch++;
+            if (batch >= flushMaxMessages || pendingWriteBytes() >= flushMaxBytes) {
+                channel.flush();
+                recordFlush(batch);
+                batch = 0;
+            }
+        }
+        if (batch > 0) {
+            channel.flush();
+            recordFlush(batch);
+        }
+    }
+
+    private long pendingWriteBytes() {
+        ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+        return outboundBuffer == null ? 0 : outboundBuffer.totalPendingWriteBytes();
+    }
+
+    private void recordFlush(int messages) {
+        flushCount.incrementAndGet();
+        flushedMessageCount.addAndGet(messages);
+        if (messages > maxMessagesPerFlush) {
+            maxMessagesPerFlush = messages;
+        }
+    }
+
+    private void expire(long requestId, long timeoutMillis) {
+        RpcFuture future = pendingRpcTable.remove(requestId);
+        if (future != null) {
+            inFlight.decrementAndGet();
+            timeoutCount.incrementAndGet();
+            // 超时按一次耗时样本计入，只接收请求不返回响应的节点耗时会升高，不会因为没有样本被当成最快的节点
+            recordLatency(future.getElapsedNanos());
+            RpcRequest request = future.getRequest();
+            future.fail(new RpcTimeoutException("timeout exception requestid: "
+                    + requestId + ", className: " + request.getClassName()
+                    + ", methodName: " + request.getMethodName()
+                    + ", timeout: " + timeoutMillis + "ms"));
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        long now = System.nanoTime();
+        double ewma = decayedLatency(now);
+        this.latencyEwma = ewma == 0 ? latencyNanos
+                : ewma + EWMA_ALPHA * (latencyNanos - ewma);
+        this.latencyStampNanos = now;
+    }
+
+    /**
+     * 按照距离上一次更新经过的时间衰减之后的耗时平均值
+     */
+    private double decayedLatency(long now) {
+        double ewma = this.latencyEwma;
+        long idleNanos = now - latencyStampNanos;
+        return idleNanos <= 0 ? ewma : ewma * Math.exp(-idleNanos / EWMA_DECAY_NANOS);
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 响应耗时的加权平均值(纳秒)，超时的请求按经过的时间计入，还没有任何样本时为0
+     * 长时间没有响应时按时间衰减，见EWMA_DECAY_NANOS
+     */
+    @Override
+    public double getLatencyEwma() {
+        return decayedLatency(System.nanoTime());
+    }
+
+    /**
+     * 还在等待响应的请求个数(在EventLoop之外读取时是近似值)
+     */
+    public int getPendingCount() {
+        return pendingRpcTable.size();
+    }
+
+    public long getLateResponseCount() {
+        return lateResponseCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedMessageCount() {
+        return flushedMessageCount.get();
+    }
+
+    /**
+     * 每次flush平均携带的请求个数
+     */
+    public double getMessagesPerFlush() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : (double) flushedMessageCount.get() / flushes;
+    }
+
+    public int getMaxMessagesPerFlush() {
+        return maxMessagesPerFlush;
+    }
 }
@@ -2,28 +2,52 @@ package com.rpc.netty.rapid.client;
 
 import com.rpc.netty.rapid.codec.RpcDecoder;
 import com.rpc.netty.rapid.codec.RpcEncoder;
+import com.rpc.netty.rapid.codec.RpcHandshakeHandler;
+import com.rpc.netty.rapid.codec.RpcMethodDictionaryHandler;
 import com.rpc.netty.rapid.codec.RpcRequest;
 import com.rpc.netty.rapid.codec.RpcResponse;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+import java.util.concurrent.Executor;
 
 /**
+ * TCP和unix domain socket的连接使用同样的编解码pipeline
+ *
  * @author debao.yang
  * @since 2024/7/2 06:14
  */
-public class RpcClientInitializer extends ChannelInitializer<SocketChannel> {
+public class RpcClientInitializer extends ChannelInitializer<Channel> {
+
+    private final RpcClientConfig clientConfig;
+
+    private final Executor callbackExecutor;
+
+    public RpcClientInitializer(RpcClientConfig clientConfig,
+                                Executor callbackExecutor) {
+        this.clientConfig = clientConfig;
+        this.callbackExecutor = callbackExecutor;
+    }
 
     @Override
-    protected void initChannel(SocketChannel ch) throws Exception {
+    protected void initChannel(Channel ch) throws Exception {
         ChannelPipeline cp = ch.pipeline();
         // 编解码的handler
-        cp.addLast(new RpcEncoder(RpcRequest.class));
-        cp.addLast(new LengthFieldBasedFrameDecoder(65536, 0, 4, 0, 0));
-        cp.addLast(new RpcDecoder(RpcResponse.class));
+        cp.addLast(new RpcEncoder(RpcRequest.class, true,
+                clientConfig.getMaxMessageLength()));
+        cp.addLast(new RpcDecoder(RpcResponse.class,
+                clientConfig.isLazyDeserialization() && callbackExecutor != null,
+                clientConfig.getMaxMessageLength()));
+        // 连接建立时协商序列化方式和方法字典
+        cp.addLast(new RpcHandshakeHandler(clientConfig.getSerializerIds(),
+                clientConfig.isMethodDictionary()));
+        if (clientConfig.isMethodDictionary()) {
+            cp.addLast(new RpcMethodDictionaryHandler());
+        }
         // 实际的业务处理器 RpcClientHandler
-        cp.addLast(new RpcClientHandler());
+        cp.addLast(new RpcClientHandler(clientConfig, callbackExecutor));
 
 
     }
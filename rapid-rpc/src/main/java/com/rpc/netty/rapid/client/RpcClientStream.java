@@ -0,0 +1,153 @@
+package com.rpc.netty.rapid.client;
+
+import com.rpc.netty.rapid.codec.RpcResponse;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 客户端流式调用的接收方，以阻塞迭代器的方式逐个消费服务端发送的元素
+ * 1、EventLoop线程把收到的帧放入队列，队列中的元素个数不会超过信用窗口
+ * 2、消费线程每消费半个窗口的元素就向服务端归还信用
+ * 3、等待一个元素的时间超过调用的超时时间时取消并抛出RpcTimeoutException
+ * 没有消费完就不再需要时应该调用close，通知服务端停止发送并关闭数据源
+ *
+ * @author debao.yang
+ * @since 2026/10/18 21:40
+ */
+public class RpcClientStream<T> implements Iterator<T>, AutoCloseable {
+
+    private final RpcClientHandler handler;
+
+    private final long requestId;
+
+    private final long timeoutMillis;
+
+    /**
+     * 累计消费到这么多个元素时归还一次信用
+     */
+    private final int creditBatch;
+
+    private final BlockingQueue<RpcResponse> frames = new LinkedBlockingQueue<>();
+
+    /**
+     * 以下字段只在消费线程中访问
+     */
+    private RpcResponse next;
+
+    private int consumed;
+
+    private volatile boolean finished;
+
+    RpcClientStream(RpcClientHandler handler, long requestId, int window,
+                    long timeoutMillis) {
+        this.handler = handler;
+        this.requestId = requestId;
+        this.timeoutMillis = timeoutMillis;
+        this.creditBatch = Math.max(1, window / 2);
+    }
+
+    /**
+     * 在EventLoop线程中收到一帧(元素、结束，或者不是流式的响应比如过载、异常)
+     */
+    void onFrame(RpcResponse frame) {
+        if (finished) {
+            frame.releasePayload();
+            return;
+        }
+        frames.offer(frame);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        RpcResponse frame;
+        try {
+            frame = frames.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RpcTimeoutException("interrupted while waiting for stream, "
+                    + "request id: " + requestId);
+        }
+        if (frame == null) {
+            close();
+            throw new RpcTimeoutException("timeout waiting for stream element, "
+                    + "request id: " + requestId + ", timeout: " + timeoutMillis + "ms");
+        }
+        frame.deserializePayload();
+        if (frame.isStream() && !frame.isEndOfStream()) {
+            next = frame;
+            return true;
+        }
+        // 结束帧，或者不是流式的响应(过载、方法抛出异常)
+        finished = true;
+        if (frame.getStatus() == RpcResponse.STATUS_OVERLOADED) {
+            throw new RpcOverloadedException("server overloaded, request id: "
+                    + requestId + ", reason: " + frame.getResult());
+        }
+        Throwable cause = frame.getThrowable();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else if (cause != null) {
+            throw new IllegalStateException("rpc stream failed, request id: "
+                    + requestId, cause);
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        RpcResponse frame = next;
+        next = null;
+        if (++consumed >= creditBatch) {
+            handler.sendStreamCredits(requestId, consumed);
+            consumed = 0;
+        }
+        return (T) frame.getResult();
+    }
+
+    /**
+     * 转换成java.util.stream.Stream，Stream关闭时取消流式调用
+     */
+    public Stream<T> toStream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * 提前结束：通知服务端取消，丢弃已经收到还没有消费的元素
+     */
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        next = null;
+        handler.cancelStream(requestId);
+        RpcResponse frame;
+        while ((frame = frames.poll()) != null) {
+            frame.releasePayload();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.rpc.netty.rapid.client;
+
+import com.rpc.netty.rapid.client.loadbalance.LeastInFlightLoadBalancer;
+import com.rpc.netty.rapid.client.loadbalance.LoadBalancer;
+import com.rpc.netty.rapid.client.loadbalance.RpcEndpoint;
+import com.rpc.netty.rapid.codec.RpcRequest;
+import io.netty.channel.Channel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 一个服务节点上的连接池
+ * 节点之间的负载均衡选出连接池，连接池内部再选择在途请求最少的连接
+ * 所有连接都比较忙的时候自动扩容，直到maxConnections
+ *
+ * @author debao.yang
+ * @since 2026/10/18 16:05
+ */
+@Slf4j
+public class RpcConnectionPool implements RpcEndpoint {
+
+    @Getter
+    private final SocketAddress remotePeer;
+
+    /**
+     * 常驻的连接个数，断开之后会重连补齐
+     */
+    private final int coreConnections;
+
+    /**
+     * 扩容之后的最大连接个数，扩容出来的连接断开之后不再重连
+     */
+    private final int maxConnections;
+
+    /**
+     * 单个连接上在途请求的上限，所有连接都达到上限时这个节点不再接收请求
+     * 这是一个软上限：选择时只读取在途请求数，并不预占，并发选择同一个连接的请求可能略微超过上限，
+     * 超出的个数不超过同时选择的线程数
+     */
+    @Getter
+    private final int maxInFlightPerConnection;
+
+    /**
+     * 最空闲的连接的在途请求也达到这个值时扩容一个连接
+     */
+    private final int growThreshold;
+
+    /**
+     * 发起一个新连接，连接完成(成功或失败)之后需要调用connectFinished
+     */
+    private final Consumer<RpcConnectionPool> connector;
+
+    private final LoadBalancer connectionBalancer = new LeastInFlightLoadBalancer();
+
+    /**
+     * 当前可用连接的不可变快照，选择连接时直接读取
+     */
+    private volatile RpcClientHandler[] connections = new RpcClientHandler[0];
+
+    /**
+     * 正在建立中的连接个数
+     */
+    private final AtomicInteger connecting = new AtomicInteger(0);
+
+    public RpcConnectionPool(SocketAddress remotePeer, int coreConnections,
+                             int maxConnections, int maxInFlightPerConnection,
+                             int growThreshold,
+                             Consumer<RpcConnectionPool> connector) {
+        this.remotePeer = remotePeer;
+        this.coreConnections = Math.max(1, coreConnections);
+        this.maxConnections = Math.max(this.coreConnections, maxConnections);
+        this.maxInFlightPerConnection = maxInFlightPerConnection;
+        this.growThreshold = growThreshold;
+        this.connector = connector;
+    }
+
+    /**
+     * 选择在途请求最少的连接
+     * 没有可用连接和所有连接都已经饱和都返回null，调用方通过isAvailable区分
+     *
+     * @param request 本次请求
+     * @return 连接池当前没有可用连接或者所有连接的在途请求都达到上限时返回null
+     * @author debao.yang
+     * @since 2026/10/18 16:10
+     */
+    public RpcClientHandler select(RpcRequest request) {
+        RpcClientHandler[] handlers = this.connections;
+        if (handlers.length == 0) {
+            return null;
+        }
+        RpcClientHandler handler = connectionBalancer.select(handlers, request);
+        int inFlight = handler.getInFlight();
+        if (inFlight >= growThreshold) {
+            tryGrow(handlers.length);
+        }
+        return inFlight >= maxInFlightPerConnection ? null : handler;
+    }
+
+    /**
+     * 扩容一个连接，同一时间只允许一个扩容中的连接
+     */
+    private void tryGrow(int size) {
+        if (size + connecting.get() < maxConnections
+                && connecting.compareAndSet(0, 1)) {
+            log.info("grow connection pool, remote peer: {}, connections: {}",
+                    remotePeer, size + 1);
+            connector.accept(this);
+        }
+    }
+
+    /**
+     * 连接数不足coreConnections时占用一个连接名额，返回true表示调用方需要发起连接
+     *
+     * @return boolean
+     * @author debao.yang
+     * @since 2026/10/18 16:12
+     */
+    public boolean reserveCoreConnection() {
+        for (; ; ) {
+            int pending = connecting.get();
+            if (connections.length + pending >= coreConnections) {
+                return false;
+            }
+            if (connecting.compareAndSet(pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 发起的连接已经完成(成功或者失败)
+     */
+    public void connectFinished() {
+        connecting.decrementAndGet();
+    }
+
+    public synchronized void addConnection(RpcClientHandler handler) {
+        RpcClientHandler[] handlers = Arrays.copyOf(connections,
+                connections.length + 1);
+        handlers[handlers.length - 1] = handler;
+        this.connections = handlers;
+    }
+
+    /**
+     * 连接断开的时候从池中移除
+     *
+     * @param channel 断开的连接
+     * @return 连接在池中并且已经移除时返回true
+     * @author debao.yang
+     * @since 2026/10/18 16:15
+     */
+    public synchronized boolean removeConnection(Channel channel) {
+        RpcClientHandler[] handlers = this.connections;
+        for (int i = 0; i < handlers.length; i++) {
+            if (handlers[i].getChannel() == channel) {
+                RpcClientHandler[] remain = new RpcClientHandler[handlers.length - 1];
+                System.arraycopy(handlers, 0, remain, 0, i);
+                System.arraycopy(handlers, i + 1, remain, i, remain.length - i);
+                this.connections = remain;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isAvailable() {
+        return connections.length > 0;
+    }
+
+    public RpcClientHandler[] getConnections() {
+        return connections;
+    }
+
+    /**
+     * 所有连接的在途请求之和，节点之间的负载均衡使用
+     */
+    @Override
+    public int getInFlight() {
+        int inFlight = 0;
+        for (RpcClientHandler handler : connections) {
+            inFlight += handler.getInFlight();
+        }
+        return inFlight;
+    }
+
+    /**
+     * 已经有数据的连接的响应耗时平均值
+     */
+    @Override
+    public double getLatencyEwma() {
+        double total = 0;
+        int count = 0;
+        for (RpcClientHandler handler : connections) {
+            double ewma = handler.getLatencyEwma();
+            if (ewma > 0) {
+                total += ewma;
+                count++;
+            }
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    public void close() {
+        for (RpcClientHandler handler : connections) {
+            handler.close();
+        }
+    }
+}
@@ -1,20 +1,26 @@
 package com.rpc.netty.rapid.client;
 
+import com.rpc.netty.rapid.client.loadbalance.LoadBalancer;
+import com.rpc.netty.rapid.client.loadbalance.RoundRobinLoadBalancer;
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.local.RpcLocalRegistry;
+import com.rpc.netty.rapid.transport.RpcAddress;
+import com.rpc.netty.rapid.transport.RpcTransport;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 
-import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -31,20 +37,46 @@ public class RpcConnetManager {
     // private static volatile RpcConnetManager RPC_CONNET_MANAGER =
     //         new RpcConnetManager();
 
-    public RpcConnetManager() {
-    }
+    @Getter
+    private final RpcClientConfig clientConfig;
 
     /**
-     * 一个连接的地址对应一个实际的业务处理器(client)
+     * 所有RpcFuture共享的回调执行器，为null时回调在EventLoop线程中直接执行
      */
-    private final Map<InetSocketAddress, RpcClientHandler> connectedHandlerMap =
-            new ConcurrentHashMap<>();
+    private final Executor callbackExecutor;
 
     /**
-     * 所有连接成功的任务执行器列表
+     * 由当前管理器创建的回调线程池，关闭的时候需要一起关闭
      */
-    private final CopyOnWriteArrayList<RpcClientHandler> connectedHandlerList =
-            new CopyOnWriteArrayList<>();
+    private final ExecutorService ownedCallbackPool;
+
+    public RpcConnetManager(RpcClientConfig clientConfig) {
+        this.clientConfig = clientConfig;
+        this.transport = RpcTransport.resolve(clientConfig.getTransport());
+        this.eventLoopGroup = transport.newEventLoopGroup(clientConfig.getIoThreads(),
+                "rapid-rpc-client-io");
+        if (clientConfig.getCallbackExecutor() != null) {
+            this.ownedCallbackPool = null;
+            this.callbackExecutor = clientConfig.getCallbackExecutor();
+        } else if (clientConfig.getCallbackThreads() > 0) {
+            this.ownedCallbackPool = new ThreadPoolExecutor(
+                    clientConfig.getCallbackThreads(),
+                    clientConfig.getCallbackThreads(), 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(clientConfig.getCallbackQueueCapacity()),
+                    new DefaultThreadFactory("rapid-rpc-callback", true),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            this.callbackExecutor = ownedCallbackPool;
+        } else {
+            this.ownedCallbackPool = null;
+            this.callbackExecutor = null;
+        }
+    }
+
+    /**
+     * 一个服务地址对应一个连接池，连接池中有一个或多个实际的业务处理器(client)
+     */
+    private final Map<SocketAddress, RpcConnectionPool> connectionPoolMap =
+            new ConcurrentHashMap<>();
 
     /**
      * 用于异步提交链接请求的线程池
@@ -52,7 +84,9 @@ public class RpcConnetManager {
     private final ThreadPoolExecutor executor = new ThreadPoolExecutor(16, 16, 1,
             TimeUnit.MINUTES, new ArrayBlockingQueue<>(65536));
 
-    private final EventLoopGroup eventLoopGroup = new NioEventLoopGroup(4);
+    private final RpcTransport transport;
+
+    private final EventLoopGroup eventLoopGroup;
 
     private final Lock connectedLock = new ReentrantLock();
 
@@ -61,7 +95,18 @@ public class RpcConnetManager {
     private final long connectTimeoutMills = 6000;
     private volatile boolean isRunning = true;
 
-    private volatile AtomicInteger handlerIdx = new AtomicInteger(0);
+    /**
+     * 至少有一个可用连接的连接池快照，负载均衡直接读取这个数组
+     */
+    private volatile RpcConnectionPool[] poolSnapshot = new RpcConnectionPool[0];
+
+    private final LoadBalancer defaultLoadBalancer = new RoundRobinLoadBalancer();
+
+    /**
+     * 配置的服务地址在RpcLocalRegistry中对应的key，只有这些地址上的进程内服务端才能短路调用
+     */
+    @Getter
+    private volatile String[] localAddressKeys = new String[0];
 
 
     // 1、异步链接 线程池 真正的发起链接，连接失败监听，链接成功监听
@@ -90,42 +135,48 @@ public class RpcConnetManager {
         if (CollectionUtils.isNotEmpty(allServerAdress)) {
 
             // 1、解析allServerAddress地址，并且临时存储到我们的newAllServerNodeSet中
-            Set<InetSocketAddress> newAllServerNodeSet = new HashSet<>();
+            // host:port是TCP地址，unix:///path是unix domain socket地址
+            Set<SocketAddress> newAllServerNodeSet = new HashSet<>();
             for (int i = 0; i < allServerAdress.size(); i++) {
-                String[] array = allServerAdress.get(i).split(":");
-                if (array.length == 2) {
-                    String host = array[0];
-                    int port = Integer.parseInt(array[1]);
-                    InetSocketAddress remotePeer = new InetSocketAddress(host, port);
+                SocketAddress remotePeer = RpcAddress.parse(allServerAdress.get(i));
+                if (remotePeer != null) {
                     newAllServerNodeSet.add(remotePeer);
                 }
             }
 
-            // 2、建立连接方法，发起远程连接操作
-            for (InetSocketAddress socketAddress : newAllServerNodeSet) {
-                if (!connectedHandlerMap.containsKey(socketAddress)) {
-                    connectAsync(socketAddress);
+            this.localAddressKeys = RpcLocalRegistry.keys(newAllServerNodeSet);
+
+            // 2、建立连接方法，为新地址创建连接池并发起远程连接操作
+            for (SocketAddress socketAddress : newAllServerNodeSet) {
+                if (!connectionPoolMap.containsKey(socketAddress)) {
+                    RpcConnectionPool pool = new RpcConnectionPool(socketAddress,
+                            clientConfig.getConnectionsPerEndpoint(),
+                            clientConfig.getMaxConnectionsPerEndpoint(),
+                            clientConfig.getMaxInFlightPerConnection(),
+                            clientConfig.getConnectionGrowThreshold(),
+                            this::connectAsync);
+                    connectionPoolMap.put(socketAddress, pool);
+                    while (pool.reserveCoreConnection()) {
+                        connectAsync(pool);
+                    }
                 }
             }
 
             // 3、如果newAllServerNodeSet列表里不存在的地址，那么我需要从缓存中进行移除
-            for (int i = 0; i < connectedHandlerList.size(); i++) {
-                RpcClientHandler rpcClientHandler = connectedHandlerList.get(i);
-                SocketAddress remotePeer = rpcClientHandler.getRemotePeer();
-                if (newAllServerNodeSet.contains(remotePeer)) {
+            for (RpcConnectionPool pool : connectionPoolMap.values()) {
+                SocketAddress remotePeer = pool.getRemotePeer();
+                if (!newAllServerNodeSet.contains(remotePeer)) {
                     log.info("remove invalid server node: {}", remotePeer);
-                    RpcClientHandler handler = connectedHandlerMap.get(remotePeer);
-                    if (Objects.nonNull(handler)) {
-                        handler.close();
-                        connectedHandlerMap.remove(remotePeer);
-                    }
-                    connectedHandlerList.remove(rpcClientHandler);
+                    connectionPoolMap.remove(remotePeer);
+                    pool.close();
                 }
             }
+            refreshSnapshot();
         } else {
             // 添加告警
             log.error("no available server address!!");
             // 清除所有的缓存信息
+            this.localAddressKeys = new String[0];
             clearConnected();
         }
     }
@@ -133,86 +184,95 @@ public class RpcConnetManager {
     /**
      * 异步发起连接的方法
      *
-     * @param remotePeer 要发起链接的地址和端口
+     * @param pool 要发起链接的连接池，调用方已经占用了一个连接名额
      * @author debao.yang
      * @since 2024/7/2 06:01
      */
-    private void connectAsync(InetSocketAddress remotePeer) {
+    private void connectAsync(RpcConnectionPool pool) {
         executor.submit(() -> {
+            SocketAddress remotePeer = pool.getRemotePeer();
             Bootstrap bootstrap = new Bootstrap();
             bootstrap.group(eventLoopGroup)
-                    .channel(NioSocketChannel.class)
-                    .option(ChannelOption.TCP_NODELAY, true)
-                    .handler(new RpcClientInitializer());
-            connect(bootstrap, remotePeer);
+                    .channel(transport.channelClass(remotePeer))
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .handler(new RpcClientInitializer(clientConfig, callbackExecutor));
+            transport.applyClientOptions(bootstrap, clientConfig.getSocketOptions(),
+                    remotePeer);
+            connect(bootstrap, pool);
         });
     }
 
-    private void connect(Bootstrap b, InetSocketAddress remotePeer) {
+    private void connect(Bootstrap b, RpcConnectionPool pool) {
+        SocketAddress remotePeer = pool.getRemotePeer();
         // 1、真正的建立连接
         ChannelFuture channelFuture = b.connect(remotePeer);
 
-        // 2、连接失败的时候添加监听，清除资源后进行发起重连操作
+        // 2、连接关闭(包括连接失败)的时候从连接池中移除，连接数不足时延迟补齐
         channelFuture.channel()
                 .closeFuture()
                 .addListener((ChannelFutureListener) future -> {
                     log.info("channelFuture.channel close operationComplete, remote " +
                             "peer = {}", remotePeer);
+                    if (pool.removeConnection(future.channel())) {
+                        refreshSnapshot();
+                    }
                     future.channel().eventLoop().schedule(() -> {
-                                log.warn("connect fail ,to connect!");
-                                clearConnected();
-                                connect(b, remotePeer);
+                                if (isRunning
+                                        && connectionPoolMap.get(remotePeer) == pool
+                                        && pool.reserveCoreConnection()) {
+                                    log.warn("connect fail ,to connect!");
+                                    connect(b, pool);
+                                }
                             }, 3,
                             TimeUnit.SECONDS);
                 });
 
-        // 3、连接成功的时候添加监听，把新链接放入缓存中
+        // 3、连接完成的时候添加监听，把新链接放入连接池中
+        //    连接期间管理器已经停止或者地址已经下线(连接池被移除)，新连接直接关闭，不再放入旧的连接池
         channelFuture.addListener((ChannelFutureListener) future -> {
             if (future.isSuccess()) {
-                log.info("Successfully connet to remote server, remote peer =" +
-                        " {}", remotePeer);
-                RpcClientHandler handler = future.channel()
-                        .pipeline()
-                        .get(RpcClientHandler.class);
-                addHandler(handler);
+                if (!isRunning || connectionPoolMap.get(remotePeer) != pool) {
+                    log.info("connection pool already removed, close new connection, " +
+                            "remote peer = {}", remotePeer);
+                    future.channel().close();
+                } else {
+                    log.info("Successfully connet to remote server, remote peer =" +
+                            " {}, transport: {}", remotePeer, transport.getName());
+                    RpcClientHandler handler = future.channel()
+                            .pipeline()
+                            .get(RpcClientHandler.class);
+                    addHandler(pool, handler);
+                }
             }
+            pool.connectFinished();
         });
     }
 
     /**
      * 连接失败时，即使的释放资源，清空缓存
-     * 先删除connectedHandlerMap中的数据
-     * 然后再清空connectedHandlerList的数据
      *
      * @author debao.yang
      * @since 2024/7/2 06:25
      */
     private void clearConnected() {
-        for (RpcClientHandler rpcClientHandler : connectedHandlerList) {
-            // 通过RpcClientHandler 找到具体的 remotePeer，从connectedHandlerMap进行移除指定的RpcClientHandler
-            SocketAddress remotePeer = rpcClientHandler.getRemotePeer();
-            RpcClientHandler handler = connectedHandlerMap.get(remotePeer);
-            if (Objects.nonNull(handler)) {
-                handler.close();
-                connectedHandlerMap.remove(remotePeer);
-            }
+        for (RpcConnectionPool pool : connectionPoolMap.values()) {
+            connectionPoolMap.remove(pool.getRemotePeer());
+            pool.close();
         }
-        connectedHandlerList.clear();
+        refreshSnapshot();
     }
 
     /**
-     * 添加RpcClientHandler到指定的缓存中
-     * 要添加的缓存有：connectedHandlerMap & connectedHandlerList
+     * 把新连接的RpcClientHandler添加到所属的连接池中
      *
+     * @param pool    连接所属的连接池
      * @param handler 实际的业务处理器
      * @author debao.yang
      * @since 2024/7/2 06:52
      */
-    private void addHandler(RpcClientHandler handler) {
-        connectedHandlerList.add(handler);
-        SocketAddress address = // handler.getRemotePeer();
-                handler.getChannel().remoteAddress();
-                connectedHandlerMap.put(((InetSocketAddress) address), handler);
+    private void addHandler(RpcConnectionPool pool, RpcClientHandler handler) {
+        pool.addConnection(handler);
+        refreshSnapshot();
 
         // signalAvailableHandler 唤醒可用的业务执行器
         signalAvailableHandler();
@@ -252,38 +312,103 @@ public class RpcConnetManager {
     }
 
     /**
-     * 选择一个实际的业务处理器
+     * 选择一个实际的业务处理器(轮询)
      *
      * @return com.rpc.netty.rapid.client.RpcClientHandler
      * @author debao.yang
      * @since 2024/7/2 07:14
      */
-    @SuppressWarnings("unchecked")
     public RpcClientHandler chooseHandler() {
-        // 复制出来，保证线程安全问题
-        CopyOnWriteArrayList<RpcClientHandler> handlers = (CopyOnWriteArrayList<RpcClientHandler>) this.connectedHandlerList.clone();
+        return chooseHandler(defaultLoadBalancer, null);
+    }
 
-        int size = handlers.size();
-        while (isRunning && size <= 0) {
-            try {
-                boolean available = waitingForAvailableHandler();
-                if (available) {
-                    handlers =
-                            ((CopyOnWriteArrayList<RpcClientHandler>) this.connectedHandlerList.clone());
-                    size = handlers.size();
+    /**
+     * 按照指定的负载均衡策略选择一个节点，再从节点的连接池中选择在途请求最少的连接
+     * 直接读取不可变的快照数组，选择过程中不做任何复制
+     * 选中的节点所有连接都已经饱和时依次尝试其他节点，所有节点都饱和才拒绝请求
+     *
+     * @param loadBalancer 负载均衡策略
+     * @param request      本次请求
+     * @return com.rpc.netty.rapid.client.RpcClientHandler
+     * @author debao.yang
+     * @since 2026/10/18 15:25
+     */
+    public RpcClientHandler chooseHandler(LoadBalancer loadBalancer,
+                                          RpcRequest request) {
+        while (isRunning) {
+            RpcConnectionPool[] pools = this.poolSnapshot;
+            if (pools.length > 0) {
+                RpcConnectionPool selected = loadBalancer.select(pools, request);
+                RpcClientHandler handler = selected.select(request);
+                if (handler != null) {
+                    return handler;
                 }
+                if (selected.isAvailable()) {
+                    handler = selectUnsaturated(pools, selected, request);
+                    if (handler != null) {
+                        return handler;
+                    }
+                    if (selected.isAvailable()) {
+                        throw new RpcOverloadedException("all connections are overloaded, "
+                                + "nodes: " + pools.length
+                                + ", max in flight per connection: "
+                                + selected.getMaxInFlightPerConnection());
+                    }
+                }
+                // 快照生成之后连接已经断开，等待快照刷新
+                refreshSnapshot();
+                continue;
+            }
+            try {
+                waitingForAvailableHandler();
             } catch (InterruptedException e) {
                 log.error(" waiting for available node is interrupted!");
                 throw new RuntimeException("no connect any server! ", e);
             }
         }
+        return null;
+    }
+
+    /**
+     * 负载均衡选中的节点已经饱和时，从随机位置开始找一个还能接收请求的节点
+     *
+     * @return 其他节点也都饱和(或者已经断开)时返回null
+     */
+    private RpcClientHandler selectUnsaturated(RpcConnectionPool[] pools,
+                                               RpcConnectionPool saturated,
+                                               RpcRequest request) {
+        int size = pools.length;
+        int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            RpcConnectionPool pool = pools[(start + i) % size];
+            if (pool != saturated) {
+                RpcClientHandler handler = pool.select(request);
+                if (handler != null) {
+                    return handler;
+                }
+            }
+        }
+        return null;
+    }
 
-        if (!isRunning) {
-            return null;
+    /**
+     * 连接池中的连接变化之后重新生成快照
+     */
+    private void refreshSnapshot() {
+        List<RpcConnectionPool> available = new ArrayList<>();
+        for (RpcConnectionPool pool : connectionPoolMap.values()) {
+            if (pool.isAvailable()) {
+                available.add(pool);
+            }
         }
-        // 最终使用取模方式取得其中一个业务处理器进行实际的业务处理
-        int index = (handlerIdx.getAndAdd(1) + size) % size;
-        return handlers.get(index);
+        this.poolSnapshot = available.toArray(new RpcConnectionPool[0]);
+    }
+
+    /**
+     * 所有节点的连接池，用于观察每个连接的负载
+     */
+    public Collection<RpcConnectionPool> getConnectionPools() {
+        return connectionPoolMap.values();
     }
 
     /**
@@ -294,12 +419,15 @@ public class RpcConnetManager {
      */
     public void stop() {
         isRunning = false;
-        for (RpcClientHandler handler : connectedHandlerList) {
-            handler.close();
+        for (RpcConnectionPool pool : connectionPoolMap.values()) {
+            pool.close();
         }
         // 在这里要调用一下唤醒操作
         signalAvailableHandler();
         executor.shutdown();
+        if (ownedCallbackPool != null) {
+            ownedCallbackPool.shutdown();
+        }
         eventLoopGroup.shutdownGracefully();
     }
 
@@ -312,12 +440,15 @@ public class RpcConnetManager {
      * @since 2024/7/2 07:45
      */
     public void reconnect(RpcClientHandler handler, SocketAddress remotePeer) {
+        // 关闭连接之后由closeFuture的监听从连接池中移除，并在连接数不足时补齐
         if (handler != null) {
             handler.close();
-            connectedHandlerList.remove(handler);
-            connectedHandlerMap.remove(remotePeer);
+            return;
+        }
+        RpcConnectionPool pool = connectionPoolMap.get(remotePeer);
+        if (pool != null && pool.reserveCoreConnection()) {
+            connectAsync(pool);
         }
-        connectAsync((InetSocketAddress) remotePeer);
     }
 
 }
@@ -2,42 +2,64 @@ package com.rpc.netty.rapid.client;
 
 import com.rpc.netty.rapid.codec.RpcRequest;
 import com.rpc.netty.rapid.codec.RpcResponse;
+import io.netty.util.Timeout;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.AbstractQueuedSynchronizer;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
+ * 基于CompletableFuture的rpc调用结果
+ * 回调默认在Netty的EventLoop线程中直接执行，配置了回调线程池时在线程池中执行
+ *
  * @author debao.yang
  * @since 2024/7/2 12:11
  */
 @Slf4j
 public class RpcFuture implements Future<Object> {
 
-    private RpcRequest request;
-    private RpcResponse rpcResponse;
+    private final RpcRequest request;
 
-    private long startTime;
+    private final long startNanos;
 
     private final long TIME_THRESHOLD = 5000;
 
-    private final List<RpcCallBack> pendingCallbacks = new ArrayList<>();
+    private final CompletableFuture<Object> completion = new CompletableFuture<>();
 
-    private Sync sync;
+    /**
+     * 回调执行器，为null时在完成的线程(EventLoop)中直接执行
+     */
+    private final Executor callbackExecutor;
 
-    private final Lock lock = new ReentrantLock();
+    /**
+     * 时间轮上的超时任务，正常返回的时候取消
+     */
+    private volatile Timeout timeout;
 
-    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(16, 16,
-            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(65536));
+    /**
+     * 本次调用的超时时间(毫秒)，请求真正写出的时候登记到时间轮
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 发出这个请求的连接处理器，取消的时候从它的pendingRpcTable中移除
+     */
+    private volatile RpcClientHandler handler;
 
     public RpcFuture(RpcRequest request) {
+        this(request, null);
+    }
+
+    public RpcFuture(RpcRequest request, Executor callbackExecutor) {
+        this(request, callbackExecutor, 0);
+    }
+
+    public RpcFuture(RpcRequest request, Executor callbackExecutor,
+                     long timeoutMillis) {
         this.request = request;
-        this.startTime = System.currentTimeMillis();
-        this.sync = new Sync();
+        this.callbackExecutor = callbackExecutor;
+        this.timeoutMillis = timeoutMillis;
+        this.startNanos = System.nanoTime();
     }
 
     /**
@@ -48,13 +70,39 @@ public class RpcFuture implements Future<Object> {
      * @since 2024/7/2 12:28
      */
     public void done(RpcResponse rpcResponse) {
-        this.rpcResponse = rpcResponse;
-        boolean success = sync.release(1);
-        if (success) {
-            invokeCallbacks();
+        cancelTimeout();
+        // 延迟解码的响应在回调执行器中反序列化，不占用EventLoop
+        if (rpcResponse.getPayload() != null && callbackExecutor != null) {
+            try {
+                callbackExecutor.execute(() -> complete(rpcResponse));
+                return;
+            } catch (RejectedExecutionException e) {
+                // 回调执行器已满，在当前线程中反序列化
+            }
+        }
+        complete(rpcResponse);
+    }
+
+    private void complete(RpcResponse rpcResponse) {
+        try {
+            rpcResponse.deserializePayload();
+        } catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+            return;
+        }
+        if (rpcResponse.getStatus() == RpcResponse.STATUS_OVERLOADED) {
+            completion.completeExceptionally(new RpcOverloadedException(
+                    "server overloaded, request id: " + request.getRequestId()
+                            + ", className: " + request.getClassName()
+                            + ", methodName: " + request.getMethodName()
+                            + ", reason: " + rpcResponse.getResult()));
+        } else if (rpcResponse.getThrowable() == null) {
+            completion.complete(rpcResponse.getResult());
+        } else {
+            completion.completeExceptionally(rpcResponse.getThrowable());
         }
         // 整体rpc调用的耗时时间
-        long costTime = System.currentTimeMillis() - startTime;
+        long costTime = TimeUnit.NANOSECONDS.toMillis(getElapsedNanos());
         if (TIME_THRESHOLD < costTime) {
             log.warn("the rpc response time is too slow!! request id = {}, " +
                             "cost time = {}",
@@ -63,94 +111,114 @@ public class RpcFuture implements Future<Object> {
     }
 
     /**
-     * 依次执行回调函数处理
+     * 以失败结束这次调用(超时、连接断开)
      *
+     * @param cause 失败的原因
      * @author debao.yang
-     * @since 2024/7/2 13:36
+     * @since 2026/10/18 13:55
      */
-    private void invokeCallbacks() {
-        lock.lock();
-        try {
-            for (RpcCallBack callBack : pendingCallbacks) {
-                runCallback(callBack);
-            }
-        } finally {
-            lock.unlock();
+    public void fail(Throwable cause) {
+        cancelTimeout();
+        completion.completeExceptionally(cause);
+    }
+
+    void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    void setHandler(RpcClientHandler handler) {
+        this.handler = handler;
+    }
+
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    private void cancelTimeout() {
+        Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
         }
     }
 
-    private void runCallback(RpcCallBack callBack) {
-        final RpcResponse response = this.rpcResponse;
-        executor.submit(() -> {
-            if (response.getThrowable() == null) {
-                callBack.success(response.getResult());
-            } else {
-                callBack.failure(response.getThrowable());
+    public RpcRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * 从发起调用到现在经过的时间(纳秒)
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 转换成CompletableFuture，方便和其他异步代码组合
+     * 后续的阶段和回调一样，在回调执行器(或者EventLoop)中执行
+     * 返回的future被取消时同时取消这次调用(见cancel)
+     *
+     * @return java.util.concurrent.CompletableFuture
+     * @author debao.yang
+     * @since 2026/10/18 14:40
+     */
+    public CompletableFuture<Object> toCompletableFuture() {
+        CompletableFuture<Object> future = callbackExecutor == null
+                ? completion.thenApply(Function.identity())
+                : completion.thenApplyAsync(Function.identity(), callbackExecutor);
+        future.whenComplete((result, cause) -> {
+            if (future.isCancelled()) {
+                cancel(false);
             }
         });
+        return future;
     }
 
+    /**
+     * 取消这次调用，不再等待响应
+     * 同时取消时间轮上的超时任务并从连接的pendingRpcTable中移除，之后到达的响应按迟到的响应丢弃
+     * 已经发给服务端的请求不会被撤回
+     *
+     * @param mayInterruptIfRunning 没有作用，调用不在本地线程中执行
+     * @return 这次调用是否由本次取消结束
+     * @author debao.yang
+     * @since 2026/10/19 16:10
+     */
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        throw new UnsupportedOperationException();
+        // 和CompletableFuture.cancel等价，但只有真正由本次调用结束时才返回true
+        if (!completion.completeExceptionally(new CancellationException())) {
+            return false;
+        }
+        cancelTimeout();
+        RpcClientHandler handler = this.handler;
+        if (handler != null) {
+            handler.cancelRequest(request.getRequestId());
+        }
+        return true;
     }
 
     @Override
     public boolean isCancelled() {
-        throw new UnsupportedOperationException();
+        return completion.isCancelled();
     }
 
     @Override
     public boolean isDone() {
-        return sync.isDone();
+        return completion.isDone();
     }
 
     @Override
     public Object get() throws InterruptedException, ExecutionException {
-        sync.acquire(-1);
-        if (this.rpcResponse != null) {
-            return this.rpcResponse.getResult();
-        }
-        return null;
+        return completion.get();
     }
 
     @Override
     public Object get(long timeout,
-                      TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        boolean success = sync.tryAcquireNanos(-1, unit.toNanos(timeout));
-        if (success) {
-            if (this.rpcResponse != null) {
-                return this.rpcResponse.getResult();
-            } else {
-                return null;
-            }
-        } else {
-            throw new RuntimeException("timeout exception requestid:  " + request.getRequestId() + "，className: " + request.getClassName() + "，methodName: " + request.getMethodName());
-        }
-    }
-
-    class Sync extends AbstractQueuedSynchronizer {
-
-        private static final long serialVersionUID = -527388158554160853L;
-
-        private final int done = 1;
-        private final int pending = 0;
-
-        @Override
-        protected boolean tryAcquire(int arg) {
-            return getState() == done;
-        }
-
-        @Override
-        protected boolean tryRelease(int releases) {
-            if (getState() == pending) {
-                return compareAndSetState(pending, done);
-            }
-            return false;
-        }
-
-        public boolean isDone() {
-            return getState() == done;
+                      TimeUnit unit) throws InterruptedException, ExecutionException {
+        try {
+            return completion.get(timeout, unit);
+        } catch (TimeoutException e) {
+            throw new RpcTimeoutException("timeout exception requestid:  " + request.getRequestId() + "，className: " + request.getClassName() + "，methodName: " + request.getMethodName());
         }
     }
 
@@ -163,16 +231,21 @@ public class RpcFuture implements Future<Object> {
      * @since 2024/7/2 13:44
      */
     public RpcFuture addCallback(RpcCallBack callBack) {
-        lock.lock();
-        try {
-            if (isDone()) {
-                runCallback(callBack);
-            } else {
-                this.pendingCallbacks.add(callBack);
-            }
-        } finally {
-            lock.unlock();
+        if (callbackExecutor == null) {
+            completion.whenComplete((result, cause) -> runCallback(callBack,
+                    result, cause));
+        } else {
+            completion.whenCompleteAsync((result, cause) -> runCallback(callBack,
+                    result, cause), callbackExecutor);
         }
         return this;
     }
+
+    private void runCallback(RpcCallBack callBack, Object result, Throwable cause) {
+        if (cause == null) {
+            callBack.success(result);
+        } else {
+            callBack.failure(cause);
+        }
+    }
 }
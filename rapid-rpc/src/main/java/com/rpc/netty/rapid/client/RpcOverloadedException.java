@@ -0,0 +1,17 @@
+package com.rpc.netty.rapid.client;
+
+/**
+ * 请求因为过载被拒绝的异常，比如节点上所有连接的在途请求都已经达到上限，
+ * 或者服务端的准入控制拒绝了请求，请求都没有被执行，可以安全地换一个节点重试
+ *
+ * @author debao.yang
+ * @since 2026/10/18 16:05
+ */
+public class RpcOverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 5120471785339262581L;
+
+    public RpcOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.rpc.netty.rapid.client;
+
+/**
+ * rpc调用超时异常
+ *
+ * @author debao.yang
+ * @since 2026/10/18 13:50
+ */
+public class RpcTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = -3462209736532513185L;
+
+    public RpcTimeoutException(String message) {
+        super(message);
+    }
+}
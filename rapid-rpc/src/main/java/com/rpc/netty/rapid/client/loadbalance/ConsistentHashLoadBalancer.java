@@ -0,0 +1,109 @@
+package com.rpc.netty.rapid.client.loadbalance;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+
+import java.util.Arrays;
+
+/**
+ * 按照指定参数做一致性哈希，相同参数的请求落到同一个节点上，适合有本地缓存的服务
+ * 哈希环只在节点快照变化的时候重建，选择的时候只做一次二分查找
+ * <p>
+ * 参与哈希的参数按hashCode计算，只支持值类型的参数(String、包装类型、枚举，或者按内容实现了hashCode的类)，
+ * 没有重写hashCode的对象使用的是对象标识，每次调用都不一样，也不能跨进程保持一致
+ * 枚举的hashCode也是对象标识，这里按name()计算
+ *
+ * @author debao.yang
+ * @since 2026/10/18 15:15
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer {
+
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    /**
+     * 参与哈希的参数下标，这个参数必须是值类型，见类注释
+     */
+    private final int argumentIndex;
+
+    private final int virtualNodes;
+
+    private volatile Ring ring;
+
+    public ConsistentHashLoadBalancer(int argumentIndex) {
+        this(argumentIndex, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashLoadBalancer(int argumentIndex, int virtualNodes) {
+        this.argumentIndex = argumentIndex;
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    public <T extends RpcEndpoint> T select(T[] endpoints, RpcRequest request) {
+        Ring ring = this.ring;
+        if (ring == null || ring.endpoints != endpoints) {
+            ring = new Ring(endpoints, virtualNodes);
+            this.ring = ring;
+        }
+        Object[] parameters = request.getParameters();
+        Object key = parameters != null && argumentIndex < parameters.length
+                ? parameters[argumentIndex] : null;
+        @SuppressWarnings("unchecked")
+        T endpoint = (T) ring.locate(key == null ? 0 : mix(hash(key)));
+        return endpoint;
+    }
+
+    private static int hash(Object key) {
+        return key instanceof Enum ? ((Enum<?>) key).name().hashCode() : key.hashCode();
+    }
+
+    /**
+     * murmur3的fmix32，把hashCode打散到整个int范围
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class Ring {
+
+        private final RpcEndpoint[] endpoints;
+
+        private final int[] hashes;
+
+        private final RpcEndpoint[] owners;
+
+        Ring(RpcEndpoint[] endpoints, int virtualNodes) {
+            this.endpoints = endpoints;
+            int size = endpoints.length * virtualNodes;
+            long[] points = new long[size];
+            int n = 0;
+            for (int i = 0; i < endpoints.length; i++) {
+                String address = String.valueOf(endpoints[i].getRemotePeer());
+                for (int v = 0; v < virtualNodes; v++) {
+                    int hash = mix((address + "#" + v).hashCode());
+                    // 高32位是哈希值，低32位是节点下标，排序后哈希值相同的按下标排列
+                    points[n++] = ((long) hash << 32) | i;
+                }
+            }
+            Arrays.sort(points);
+            this.hashes = new int[size];
+            this.owners = new RpcEndpoint[size];
+            for (int i = 0; i < size; i++) {
+                hashes[i] = (int) (points[i] >> 32);
+                owners[i] = endpoints[(int) points[i]];
+            }
+        }
+
+        RpcEndpoint locate(int hash) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return owners[index == hashes.length ? 0 : index];
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.rpc.netty.rapid.client.loadbalance;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少未完成请求数优先
+ * 从随机位置开始扫描，避免请求数相同时总是压到第一个节点上
+ *
+ * @author debao.yang
+ * @since 2026/10/18 15:06
+ */
+public class LeastInFlightLoadBalancer implements LoadBalancer {
+
+    @Override
+    public <T extends RpcEndpoint> T select(T[] endpoints, RpcRequest request) {
+        int size = endpoints.length;
+        int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        T best = endpoints[start];
+        int bestInFlight = best.getInFlight();
+        for (int i = 1; i < size && bestInFlight > 0; i++) {
+            T endpoint = endpoints[(start + i) % size];
+            int inFlight = endpoint.getInFlight();
+            if (inFlight < bestInFlight) {
+                best = endpoint;
+                bestInFlight = inFlight;
+            }
+        }
+        return best;
+    }
+}
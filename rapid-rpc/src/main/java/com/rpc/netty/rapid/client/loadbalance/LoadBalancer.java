@@ -0,0 +1,22 @@
+package com.rpc.netty.rapid.client.loadbalance;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+
+/**
+ * 负载均衡策略
+ * 从不可变的快照数组中选择一个服务节点(或者节点连接池中的一个连接)，实现中不应该有任何对象分配
+ *
+ * @author debao.yang
+ * @since 2026/10/18 15:00
+ */
+public interface LoadBalancer {
+
+    /**
+     * 选择一个节点
+     *
+     * @param endpoints 当前所有可用的节点(不可变的快照，不能修改)，至少有一个元素
+     * @param request   本次请求，按参数做一致性哈希的时候使用
+     * @return T
+     */
+    <T extends RpcEndpoint> T select(T[] endpoints, RpcRequest request);
+}
@@ -0,0 +1,48 @@
+package com.rpc.netty.rapid.client.loadbalance;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * power of two choices
+ * 随机选两个节点，比较 响应耗时的加权平均 * (未完成请求数 + 1)，选代价小的那个
+ * 还没有耗时数据的节点借用另一个节点的耗时，两个都没有时只比较未完成请求数，
+ * 新节点能尽快得到流量，但是请求积压之后不会再被优先选择
+ * 超时的请求也计入耗时(见RpcClientHandler.expire)，只接收请求不返回响应的节点代价会升高
+ * 耗时平均值随时间衰减(见RpcClientHandler)，慢过一次之后没有流量的节点过一段时间会被重新尝试
+ *
+ * @author debao.yang
+ * @since 2026/10/18 15:10
+ */
+public class P2cEwmaLoadBalancer implements LoadBalancer {
+
+    @Override
+    public <T extends RpcEndpoint> T select(T[] endpoints, RpcRequest request) {
+        int size = endpoints.length;
+        if (size == 1) {
+            return endpoints[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        T a = endpoints[first];
+        T b = endpoints[second];
+        double latencyA = a.getLatencyEwma();
+        double latencyB = b.getLatencyEwma();
+        if (latencyA == 0) {
+            latencyA = latencyB == 0 ? 1 : latencyB;
+        }
+        if (latencyB == 0) {
+            latencyB = latencyA;
+        }
+        return cost(latencyA, a) <= cost(latencyB, b) ? a : b;
+    }
+
+    private double cost(double latency, RpcEndpoint endpoint) {
+        return latency * (endpoint.getInFlight() + 1);
+    }
+}
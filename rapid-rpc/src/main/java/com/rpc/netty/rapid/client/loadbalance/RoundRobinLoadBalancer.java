@@ -0,0 +1,23 @@
+package com.rpc.netty.rapid.client.loadbalance;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询，默认的负载均衡策略
+ *
+ * @author debao.yang
+ * @since 2026/10/18 15:03
+ */
+public class RoundRobinLoadBalancer implements LoadBalancer {
+
+    private final AtomicInteger handlerIdx = new AtomicInteger(0);
+
+    @Override
+    public <T extends RpcEndpoint> T select(T[] endpoints, RpcRequest request) {
+        // 使用取模方式取得其中一个业务处理器，去掉符号位防止溢出后出现负数
+        int index = (handlerIdx.getAndIncrement() & Integer.MAX_VALUE) % endpoints.length;
+        return endpoints[index];
+    }
+}
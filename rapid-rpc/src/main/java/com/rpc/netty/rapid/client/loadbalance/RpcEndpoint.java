@@ -0,0 +1,24 @@
+package com.rpc.netty.rapid.client.loadbalance;
+
+import java.net.SocketAddress;
+
+/**
+ * 负载均衡选择的对象：一个服务节点(连接池)或者节点上的一个连接
+ *
+ * @author debao.yang
+ * @since 2026/10/18 15:40
+ */
+public interface RpcEndpoint {
+
+    /**
+     * 已发出还没有结束的请求个数
+     */
+    int getInFlight();
+
+    /**
+     * 响应耗时的指数加权移动平均(纳秒)，还没有数据时为0
+     */
+    double getLatencyEwma();
+
+    SocketAddress getRemotePeer();
+}
@@ -0,0 +1,112 @@
+package com.rpc.netty.rapid.client.proxy;
+
+import com.rpc.netty.rapid.client.RpcClientHandler;
+import com.rpc.netty.rapid.client.RpcConnetManager;
+import com.rpc.netty.rapid.client.RpcTimeoutException;
+import com.rpc.netty.rapid.client.loadbalance.LoadBalancer;
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
+import com.rpc.netty.rapid.context.RpcContext;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 接口类型的异步调用代理
+ * 调用方为服务接口声明一个异步的孪生接口：方法名和参数与服务接口一致，返回值改为CompletableFuture
+ * <pre>
+ * public interface HelloServiceAsync {
+ *     CompletableFuture&lt;String&gt; hello(String name);
+ * }
+ * </pre>
+ * 创建代理时就把孪生接口的每个方法对应到服务接口的方法上，参数类型取自方法声明，
+ * 不再从运行时的参数去猜测
+ *
+ * @author debao.yang
+ * @since 2026/10/18 18:30
+ */
+public class RpcAsyncStubImpl implements InvocationHandler {
+
+    private final Class<?> asyncInterface;
+    private final long timeout;
+    private final RpcConnetManager rpcConnetManager;
+    private final LoadBalancer loadBalancer;
+
+    /**
+     * 孪生接口的方法到远程方法描述的映射，创建之后只读
+     */
+    private final Map<Method, RpcMethodDescriptor> descriptors = new HashMap<>();
+
+    public RpcAsyncStubImpl(RpcConnetManager rpcConnetManager,
+                            Class<?> interfaceClass,
+                            Class<?> asyncInterface,
+                            long timeout,
+                            LoadBalancer loadBalancer) {
+        this.asyncInterface = asyncInterface;
+        this.timeout = timeout;
+        this.rpcConnetManager = rpcConnetManager;
+        this.loadBalancer = loadBalancer;
+        SerializerRegistry.registerServiceTypes(interfaceClass);
+        for (Method asyncMethod : asyncInterface.getMethods()) {
+            // 只接受CompletableFuture本身，Object、Future等父类型的返回值调用方无法当作异步结果使用
+            if (asyncMethod.getReturnType() != CompletableFuture.class) {
+                throw new IllegalArgumentException("async method must return " +
+                        "CompletableFuture: " + asyncMethod);
+            }
+            Method method;
+            try {
+                method = interfaceClass.getMethod(asyncMethod.getName(),
+                        asyncMethod.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("no method matches " + asyncMethod
+                        + " in " + interfaceClass.getName(), e);
+            }
+            descriptors.put(asyncMethod,
+                    RpcMethodDescriptor.of(interfaceClass, method));
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy,
+                         Method method,
+                         Object[] args) throws Throwable {
+        RpcMethodDescriptor descriptor = descriptors.get(method);
+        if (descriptor == null) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        CompletableFuture<Object> result;
+        try {
+            RpcRequest request = descriptor.newRequest(args);
+            long timeout = RpcContext.inheritTimeout(this.timeout);
+            if (timeout <= 0) {
+                throw new RpcTimeoutException("deadline exceeded before sending, " +
+                        "className: " + request.getClassName()
+                        + ", methodName: " + request.getMethodName());
+            }
+            RpcClientHandler handler = rpcConnetManager
+                    .chooseHandler(loadBalancer, request);
+            result = handler.sendRequest(request, timeout).toCompletableFuture();
+        } catch (Throwable e) {
+            // 异步接口不直接抛出异常(包括序列化等受检异常)，统一通过返回的future通知调用方
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "RpcAsyncStub[" + asyncInterface.getName() + "]";
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
+}
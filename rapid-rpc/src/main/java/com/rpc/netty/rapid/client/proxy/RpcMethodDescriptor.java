@@ -0,0 +1,108 @@
+package com.rpc.netty.rapid.client.proxy;
+
+import com.rpc.netty.rapid.codec.RpcMethodDictionary;
+import com.rpc.netty.rapid.codec.RpcProtocol;
+import com.rpc.netty.rapid.codec.RpcRequest;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 预先解析好的远程方法描述，每个Method只解析一次
+ * 调用时直接用来生成RpcRequest，不再每次调用getName、getParameterTypes(会复制数组)
+ *
+ * @author debao.yang
+ * @since 2026/10/18 18:30
+ */
+@Getter
+public class RpcMethodDescriptor {
+
+    private static final AtomicInteger ID_GENERATOR = new AtomicInteger(0);
+
+    /**
+     * 进程内唯一的描述，key是服务接口，同一个方法在所有代理之间共享同一个描述
+     */
+    private static final Map<Class<?>, Map<Method, RpcMethodDescriptor>> CACHE =
+            new ConcurrentHashMap<>();
+
+    /**
+     * 进程内紧凑的方法id，从0开始连续分配，生成的代码中作为常量使用
+     */
+    private final int id;
+
+    /**
+     * 服务接口的全限定名
+     */
+    private final String className;
+
+    private final String methodName;
+
+    /**
+     * 所有请求共享的参数类型数组，不能修改
+     */
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 方法签名，编码时按照它查找连接上协商的方法id，所有请求共享同一个字符串(hashCode只计算一次)
+     */
+    private final String signature;
+
+    /**
+     * 返回值是Iterator或者Stream，按照流式调用处理
+     */
+    private final boolean streaming;
+
+    /**
+     * 流式调用的返回值是java.util.stream.Stream
+     */
+    private final boolean javaStream;
+
+    /**
+     * 参数和返回值都是RpcStreamObserver，按照双向流式调用处理
+     */
+    private final boolean callStreaming;
+
+    private RpcMethodDescriptor(String className, Method method) {
+        this.id = ID_GENERATOR.getAndIncrement();
+        this.className = className;
+        this.methodName = method.getName();
+        this.parameterTypes = method.getParameterTypes();
+        this.signature = RpcMethodDictionary.signature(className, methodName,
+                parameterTypes);
+        this.streaming = RpcProtocol.isStreaming(method.getReturnType());
+        this.javaStream = method.getReturnType() == Stream.class;
+        this.callStreaming = RpcProtocol.isCallStreaming(method.getReturnType(),
+                parameterTypes);
+    }
+
+    /**
+     * 获取服务接口上一个方法的描述，第一次获取时解析
+     *
+     * @param interfaceClass 服务接口(方法可能声明在父接口上，类名以服务接口为准)
+     * @param method         服务接口的方法
+     * @return com.rpc.netty.rapid.client.proxy.RpcMethodDescriptor
+     * @author debao.yang
+     * @since 2026/10/18 18:50
+     */
+    public static RpcMethodDescriptor of(Class<?> interfaceClass, Method method) {
+        return CACHE.computeIfAbsent(interfaceClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key ->
+                        new RpcMethodDescriptor(interfaceClass.getName(), key));
+    }
+
+    public RpcRequest newRequest(Object[] args) {
+        RpcRequest request = new RpcRequest();
+        request.setClassName(className);
+        request.setMethodName(methodName);
+        request.setParameterTypes(parameterTypes);
+        request.setMethodKey(signature);
+        request.setParameters(args == null ? EMPTY_ARGS : args);
+        return request;
+    }
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+}
@@ -1,13 +1,26 @@
 package com.rpc.netty.rapid.client.proxy;
 
+import com.rpc.netty.rapid.client.RpcClientCallStream;
 import com.rpc.netty.rapid.client.RpcClientHandler;
+import com.rpc.netty.rapid.client.RpcClientStream;
 import com.rpc.netty.rapid.client.RpcConnetManager;
 import com.rpc.netty.rapid.client.RpcFuture;
+import com.rpc.netty.rapid.client.RpcTimeoutException;
+import com.rpc.netty.rapid.client.loadbalance.LoadBalancer;
 import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
+import com.rpc.netty.rapid.context.RpcContext;
+import com.rpc.netty.rapid.local.RpcLocalInvocation;
+import com.rpc.netty.rapid.local.RpcLocalInvoker;
+import com.rpc.netty.rapid.local.RpcLocalRegistry;
+import com.rpc.netty.rapid.server.RpcInvoker;
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -19,32 +32,150 @@ public class RpcProxyImpl<T> implements InvocationHandler, RpcAsyncProxy {
     private Class<T> clazz;
     private long timeout;
     private RpcConnetManager rpcConnetManager;
+    private LoadBalancer loadBalancer;
+    private RpcLocalInvocation localInvocation;
+
+    /**
+     * 接口方法到远程方法描述的缓存，避免每次调用都解析Method
+     */
+    private final Map<Method, RpcMethodDescriptor> descriptors =
+            new ConcurrentHashMap<>();
 
     public RpcProxyImpl(RpcConnetManager rpcConnetManager,
                         Class<T> interfaceClass,
-                        long timeout) {
+                        long timeout,
+                        LoadBalancer loadBalancer) {
         this.clazz = interfaceClass;
         this.timeout = timeout;
+        SerializerRegistry.registerServiceTypes(interfaceClass);
         this.rpcConnetManager = rpcConnetManager;
+        this.loadBalancer = loadBalancer;
+        this.localInvocation = rpcConnetManager.getClientConfig().getLocalInvocation();
     }
 
     @Override
     public Object invoke(Object proxy,
                          Method method,
                          Object[] args) throws Throwable {
-        // 1、设置请求对象
-        RpcRequest request = new RpcRequest();
-        request.setRequestId(UUID.randomUUID().toString());
-        request.setClassName(method.getDeclaringClass().getName());
-        request.setMethodName(method.getName());
-        request.setParameterTypes(method.getParameterTypes());
-        request.setParameters(args);
-        // 2、选择一个合适的Client处理器
+        // 1、方法描述每个Method只解析一次
+        RpcMethodDescriptor descriptor = descriptors.get(method);
+        if (descriptor == null) {
+            descriptor = descriptors.computeIfAbsent(method, m ->
+                    RpcMethodDescriptor.of(clazz, m));
+        }
+        return invoke(descriptor, args);
+    }
+
+    /**
+     * 按照预先解析好的方法描述发起同步调用，生成的客户端桩代码直接调用这个方法
+     *
+     * @param descriptor 方法描述
+     * @param args       方法执行的参数
+     * @return java.lang.Object
+     * @author debao.yang
+     * @since 2026/10/18 18:50
+     */
+    @SuppressWarnings("unchecked")
+    public Object invoke(RpcMethodDescriptor descriptor, Object[] args) throws Throwable {
+        if (descriptor.isCallStreaming()) {
+            // 响应观察者留在本地，打开流的请求中不携带参数值
+            return invokeCallStream(descriptor.newRequest(new Object[]{null}),
+                    (RpcStreamObserver<Object>) args[0]);
+        }
+        if (descriptor.isStreaming()) {
+            RpcClientStream<Object> stream = invokeStream(descriptor.newRequest(args));
+            return descriptor.isJavaStream() ? stream.toStream() : stream;
+        }
+        if (localInvocation != RpcLocalInvocation.DISABLED) {
+            RpcInvoker localInvoker = RpcLocalRegistry.lookup(descriptor.getSignature(),
+                    rpcConnetManager.getLocalAddressKeys());
+            if (localInvoker != null) {
+                return invokeLocal(descriptor, localInvoker, args);
+            }
+        }
+        return invokeRemote(descriptor.newRequest(args));
+    }
+
+    /**
+     * 服务提供者在当前进程中，直接在调用线程中执行
+     *
+     * @param descriptor 方法描述
+     * @param invoker    本进程中的调用器
+     * @param args       方法执行的参数
+     * @return java.lang.Object
+     * @author debao.yang
+     * @since 2026/10/19 01:25
+     */
+    protected Object invokeLocal(RpcMethodDescriptor descriptor, RpcInvoker invoker,
+                                 Object[] args) throws Throwable {
+        long timeout = RpcContext.inheritTimeout(this.timeout);
+        if (timeout <= 0) {
+            throw new RpcTimeoutException("deadline exceeded before invoking, " +
+                    "className: " + descriptor.getClassName()
+                    + ", methodName: " + descriptor.getMethodName());
+        }
+        return RpcLocalInvoker.invoke(invoker, args, timeout, localInvocation);
+    }
+
+    /**
+     * 发起流式调用，每个元素的等待时间不超过调用的超时时间
+     *
+     * @param request 请求对象
+     * @return com.rpc.netty.rapid.client.RpcClientStream
+     * @author debao.yang
+     * @since 2026/10/18 21:55
+     */
+    protected RpcClientStream<Object> invokeStream(RpcRequest request) {
+        long timeout = inheritTimeout(request);
         RpcClientHandler handler = rpcConnetManager
-                .chooseHandler();
-        // 3、发送一个客户端请求，返回结果
-        RpcFuture future = handler.sendRequest(request);
-        return future.get(timeout, TimeUnit.SECONDS);
+                .chooseHandler(loadBalancer, request);
+        return handler.openStream(request, timeout,
+                rpcConnetManager.getClientConfig().getStreamWindow());
+    }
+
+    /**
+     * 发起双向流式调用，返回发送请求元素的观察者
+     *
+     * @param request          请求对象
+     * @param responseObserver 接收服务端元素的观察者
+     * @return com.rpc.netty.rapid.client.RpcClientCallStream
+     * @author debao.yang
+     * @since 2026/10/18 23:15
+     */
+    protected RpcClientCallStream<Object, Object> invokeCallStream(
+            RpcRequest request, RpcStreamObserver<Object> responseObserver) {
+        if (responseObserver == null) {
+            throw new IllegalArgumentException("response observer is null, className: "
+                    + request.getClassName() + ", methodName: " + request.getMethodName());
+        }
+        long timeout = inheritTimeout(request);
+        RpcClientHandler handler = rpcConnetManager
+                .chooseHandler(loadBalancer, request);
+        return handler.openCallStream(request, timeout,
+                rpcConnetManager.getClientConfig().getStreamWindow(), responseObserver);
+    }
+
+    /**
+     * 发送请求并等待结果
+     *
+     * @param request 请求对象
+     * @return java.lang.Object
+     * @author debao.yang
+     * @since 2026/10/18 18:50
+     */
+    protected Object invokeRemote(RpcRequest request) throws Throwable {
+        // 2、在服务端的业务方法中发起的嵌套调用不能超过上游的截止时间
+        long timeout = inheritTimeout(request);
+        // 3、选择一个合适的Client处理器
+        RpcClientHandler handler = rpcConnetManager
+                .chooseHandler(loadBalancer, request);
+        // 4、发送一个客户端请求，返回结果
+        RpcFuture future = handler.sendRequest(request, timeout);
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -60,7 +191,6 @@ public class RpcProxyImpl<T> implements InvocationHandler, RpcAsyncProxy {
     public RpcFuture call(String funcName, Object... args) {
         // 设置请求对象
         RpcRequest request = new RpcRequest();
-        request.setRequestId(UUID.randomUUID().toString());
         request.setClassName(this.clazz.getName());
         request.setMethodName(funcName);
         request.setParameters(args);
@@ -72,11 +202,26 @@ public class RpcProxyImpl<T> implements InvocationHandler, RpcAsyncProxy {
         }
         request.setParameterTypes(parameterTypes);
 
+        long timeout = inheritTimeout(request);
+
         // 选择一个合适的Client任务处理器
         RpcClientHandler handler = rpcConnetManager
-                .chooseHandler();
+                .chooseHandler(loadBalancer, request);
+
+        return handler.sendRequest(request, timeout);
+    }
 
-        return handler.sendRequest(request);
+    /**
+     * 按照当前线程的RpcContext收紧超时时间，上游的截止时间已经过了就不再发送请求
+     */
+    private long inheritTimeout(RpcRequest request) {
+        long timeout = RpcContext.inheritTimeout(this.timeout);
+        if (timeout <= 0) {
+            throw new RpcTimeoutException("deadline exceeded before sending, " +
+                    "className: " + request.getClassName()
+                    + ", methodName: " + request.getMethodName());
+        }
+        return timeout;
     }
 
     private Class<?> getClassType(Object obj) {
@@ -0,0 +1,106 @@
+package com.rpc.netty.rapid.client.proxy;
+
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.CallbackFilter;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.InvocationHandler;
+import org.springframework.cglib.proxy.NoOp;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用cglib为服务接口生成客户端桩代码，替代JDK动态代理
+ * 接口的每个方法对应一个独立的回调，回调中固化了这个方法预先解析好的描述，
+ * 调用时直接生成请求，不再按照Method查找，也没有任何反射
+ *
+ * @author debao.yang
+ * @since 2026/10/18 18:50
+ */
+public final class RpcStubFactory {
+
+    private RpcStubFactory() {
+    }
+
+    /**
+     * 生成同步调用的桩对象，同一个接口生成的类会被cglib缓存，只生成一次
+     *
+     * @param interfaceClass 服务接口
+     * @param invoker        实际发送请求的代理实现
+     * @return T
+     * @author debao.yang
+     * @since 2026/10/18 18:55
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T createSyncStub(Class<T> interfaceClass, RpcProxyImpl<T> invoker) {
+        Method[] methods = interfaceClass.getMethods();
+        // 下标0留给Object的方法(equals、hashCode、toString)，直接使用Object的实现
+        Callback[] callbacks = new Callback[methods.length + 1];
+        callbacks[0] = NoOp.INSTANCE;
+        for (int i = 0; i < methods.length; i++) {
+            callbacks[i + 1] = new SyncMethodCallback(invoker,
+                    RpcMethodDescriptor.of(interfaceClass, methods[i]));
+        }
+
+        Enhancer enhancer = new Enhancer();
+        enhancer.setClassLoader(interfaceClass.getClassLoader());
+        enhancer.setInterfaces(new Class<?>[]{interfaceClass});
+        enhancer.setCallbackFilter(new MethodIndexFilter(interfaceClass, methods));
+        enhancer.setCallbacks(callbacks);
+        return (T) enhancer.create();
+    }
+
+    /**
+     * 把方法对应到回调的下标，cglib按照过滤器缓存生成的类，所以按照接口实现equals
+     */
+    private static final class MethodIndexFilter implements CallbackFilter {
+
+        private final Class<?> interfaceClass;
+
+        private final Map<Method, Integer> indexes = new HashMap<>();
+
+        MethodIndexFilter(Class<?> interfaceClass, Method[] methods) {
+            this.interfaceClass = interfaceClass;
+            for (int i = 0; i < methods.length; i++) {
+                indexes.put(methods[i], i + 1);
+            }
+        }
+
+        @Override
+        public int accept(Method method) {
+            return indexes.getOrDefault(method, 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MethodIndexFilter
+                    && ((MethodIndexFilter) o).interfaceClass == interfaceClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return interfaceClass.hashCode();
+        }
+    }
+
+    /**
+     * 一个接口方法的回调，方法描述在生成桩对象时就已经确定
+     */
+    private static final class SyncMethodCallback implements InvocationHandler {
+
+        private final RpcProxyImpl<?> invoker;
+
+        private final RpcMethodDescriptor descriptor;
+
+        SyncMethodCallback(RpcProxyImpl<?> invoker, RpcMethodDescriptor descriptor) {
+            this.invoker = invoker;
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return invoker.invoke(descriptor, args);
+        }
+    }
+}
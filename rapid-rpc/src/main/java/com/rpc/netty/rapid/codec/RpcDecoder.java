@@ -1,23 +1,73 @@
 package com.rpc.netty.rapid.codec;
 
+import com.rpc.netty.rapid.codec.serializer.Serializer;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.CharsetUtil;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 解码器
+ * 同时负责拆包，按照magic区分v2和v1(迁移期间兼容)的数据包
+ * 开启延迟反序列化时，IO线程只解析包头和方法id，包体作为RpcPayload交给后续的执行线程反序列化
+ * 分片帧的包体以retained slice的方式逐个加入CompositeByteBuf，最后一个分片到达时整体解码，不做拷贝
+ * 单个请求或者响应解码失败(不能反序列化、超过最大长度)时输出带有失败原因的请求或者响应，
+ * 不抛出异常，同一次读取中后面的数据包继续解码，只有对应的那一个调用失败
  *
  * @author debao.yang
  * @since 2024/7/2 08:12
  */
 public class RpcDecoder extends ByteToMessageDecoder {
 
+    /**
+     * v1的数据包没有消息类型，按照这个类型进行解码
+     */
     private Class<?> genericClass;
 
+    /**
+     * 延迟反序列化：使用方法字典的请求和所有的响应，包体保留为retained slice
+     */
+    private final boolean lazy;
+
+    /**
+     * 单条消息的最大长度(所有分片的包体之和)
+     */
+    private final int maxMessageLength;
+
+    /**
+     * 正在组合的分片，发送端保证同一条消息的分片是连续写出的，所以一个连接上同时只有一条
+     */
+    private CompositeByteBuf chunks;
+
+    private byte chunkFlags;
+
+    private long chunkRequestId;
+
+    /**
+     * 超过最大长度的消息，丢弃剩下的分片
+     */
+    private boolean discardingChunks;
+
     public RpcDecoder(Class<?> genericClass) {
+        this(genericClass, false);
+    }
+
+    public RpcDecoder(Class<?> genericClass, boolean lazy) {
+        this(genericClass, lazy, RpcProtocol.DEFAULT_MAX_MESSAGE_LENGTH);
+    }
+
+    public RpcDecoder(Class<?> genericClass, boolean lazy, int maxMessageLength) {
         this.genericClass = genericClass;
+        this.lazy = lazy;
+        this.maxMessageLength = maxMessageLength;
     }
 
     @Override
@@ -29,21 +79,308 @@ public class RpcDecoder extends ByteToMessageDecoder {
         if (in.readableBytes() < 4) {
             return;
         }
+        short magic = in.getShort(in.readerIndex());
+        if (magic == RpcProtocol.MAGIC) {
+            decodeV2(ctx, in, out);
+        } else if (magic == 0) {
+            decodeV1(ctx, in, out);
+        } else {
+            // 不认识的数据包，直接丢弃并交给异常处理关闭连接
+            in.skipBytes(in.readableBytes());
+            throw new CorruptedFrameException("invalid magic: " + magic);
+        }
+    }
+
+    private void decodeV2(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (in.readableBytes() < RpcProtocol.HEADER_LENGTH) {
+            return;
+        }
+        int index = in.readerIndex();
+        byte version = in.getByte(index + 2);
+        byte flags = in.getByte(index + 3);
+        byte messageType = in.getByte(index + 4);
+        byte serializerId = in.getByte(index + 5);
+        long requestId = in.getLong(index + 6);
+        int bodyLength = in.getInt(index + 14);
+
+        // 包头校验失败的数据包尽早拒绝，不需要等包体全部到达
+        if (version != RpcProtocol.VERSION_2) {
+            in.skipBytes(in.readableBytes());
+            throw new CorruptedFrameException("unsupported version: " + version);
+        }
+        Serializer serializer = SerializerRegistry.get(serializerId);
+        if (serializer == null && messageType != RpcProtocol.MSG_TYPE_HANDSHAKE
+                && messageType != RpcProtocol.MSG_TYPE_DICTIONARY
+                && messageType != RpcProtocol.MSG_TYPE_STREAM_CONTROL) {
+            in.skipBytes(in.readableBytes());
+            throw new CorruptedFrameException("unsupported serializer: " + serializerId);
+        }
+        // 只接受握手协商出的序列化方式，protostuff是协商之前和协商的方式都不支持时的退路
+        if ((messageType == RpcProtocol.MSG_TYPE_REQUEST
+                || messageType == RpcProtocol.MSG_TYPE_RESPONSE)
+                && serializerId != RpcProtocol.SERIALIZER_PROTOSTUFF
+                && !isNegotiated(ctx, serializerId)) {
+            in.skipBytes(in.readableBytes());
+            throw new CorruptedFrameException("serializer not negotiated: " + serializerId);
+        }
+        if (bodyLength < 0 || bodyLength > RpcProtocol.MAX_CHUNK_LENGTH) {
+            in.skipBytes(in.readableBytes());
+            throw new TooLongFrameException("invalid body length: " + bodyLength);
+        }
+        if (in.readableBytes() < RpcProtocol.HEADER_LENGTH + bodyLength) {
+            return;
+        }
+
+        in.skipBytes(RpcProtocol.HEADER_LENGTH);
+        boolean moreChunks = (flags & RpcProtocol.FLAG_MORE_CHUNKS) != 0;
+        if (chunks == null && !discardingChunks && !moreChunks) {
+            decodeBody(messageType, flags, serializer, requestId,
+                    in.readSlice(bodyLength), out);
+            return;
+        }
+        decodeChunk(ctx, in, messageType, flags, moreChunks, serializer, requestId,
+                bodyLength, out);
+    }
+
+    private boolean isNegotiated(ChannelHandlerContext ctx, byte serializerId) {
+        Serializer[] serializers = ctx.channel().attr(RpcProtocol.SERIALIZERS_KEY).get();
+        if (serializers != null) {
+            for (Serializer serializer : serializers) {
+                if (serializer.getId() == serializerId) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分片帧：包体加入正在组合的消息，最后一个分片到达时整体解码
+     */
+    private void decodeChunk(ChannelHandlerContext ctx, ByteBuf in, byte messageType,
+                             byte flags, boolean moreChunks, Serializer serializer,
+                             long requestId, int bodyLength, List<Object> out) {
+        if (discardingChunks) {
+            in.skipBytes(bodyLength);
+            discardingChunks = moreChunks;
+            return;
+        }
+        if (chunks == null) {
+            chunks = ctx.alloc().compositeBuffer(
+                    maxMessageLength / RpcProtocol.MAX_CHUNK_LENGTH + 1);
+            chunkFlags = flags;
+            chunkRequestId = requestId;
+        } else if (requestId != chunkRequestId) {
+            releaseChunks();
+            in.skipBytes(bodyLength);
+            throw new CorruptedFrameException("interleaved chunk, request id: "
+                    + requestId + ", expected: " + chunkRequestId);
+        }
+        if ((long) chunks.readableBytes() + bodyLength > maxMessageLength) {
+            byte firstFlags = chunkFlags;
+            releaseChunks();
+            in.skipBytes(bodyLength);
+            discardingChunks = moreChunks;
+            addFailure(messageType, firstFlags, requestId,
+                    new RpcMessageTooLargeException(requestId,
+                            "message too large: exceeds max message length "
+                                    + maxMessageLength), out);
+            return;
+        }
+        chunks.addComponent(true, in.readRetainedSlice(bodyLength));
+        if (moreChunks) {
+            return;
+        }
+        ByteBuf body = chunks;
+        chunks = null;
+        try {
+            decodeBody(messageType,
+                    (byte) (chunkFlags & ~RpcProtocol.FLAG_MORE_CHUNKS), serializer,
+                    requestId, body, out);
+        } finally {
+            body.release();
+        }
+    }
+
+    private void releaseChunks() {
+        if (chunks != null) {
+            chunks.release();
+            chunks = null;
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        releaseChunks();
+        super.handlerRemoved0(ctx);
+    }
+
+    private void decodeBody(byte messageType, byte flags, Serializer serializer,
+                            long requestId, ByteBuf body, List<Object> out) {
+        int bodyLength = body.readableBytes();
+        switch (messageType) {
+            case RpcProtocol.MSG_TYPE_REQUEST:
+                // 使用方法字典的请求先读出方法id、超时时间和信用窗口，剩下的才是序列化的请求
+                int methodId = -1;
+                int timeoutMillis = 0;
+                int streamWindow = 0;
+                if ((flags & RpcProtocol.FLAG_METHOD_ID) != 0) {
+                    methodId = RpcProtocol.readVarint(body);
+                    timeoutMillis = RpcProtocol.readVarint(body);
+                    streamWindow = RpcProtocol.readVarint(body);
+                }
+                long receivedNanos = System.nanoTime();
+                RpcRequest request;
+                if (lazy && methodId >= 0) {
+                    // 方法id已经足够路由，参数留给执行方法的线程反序列化
+                    request = new RpcRequest();
+                    request.setPayload(new RpcPayload(body.retainedSlice(),
+                            serializer, receivedNanos));
+                } else {
+                    try {
+                        request = deserialize(serializer, body, requestId,
+                                RpcRequest.class);
+                    } catch (RpcDeserializationException e) {
+                        addFailure(messageType, flags, requestId, e, out);
+                        break;
+                    }
+                }
+                request.setRequestId(requestId);
+                request.setMethodId(methodId);
+                if (methodId >= 0) {
+                    request.setTimeoutMillis(timeoutMillis);
+                    request.setStreamWindow(streamWindow);
+                }
+                request.setStream((flags & RpcProtocol.FLAG_STREAM) != 0);
+                request.setEndOfStream((flags & RpcProtocol.FLAG_END_STREAM) != 0);
+                // 截止时间在IO线程中就确定，延迟解码的请求也能在排队之前丢弃
+                if (request.getTimeoutMillis() > 0) {
+                    request.setDeadlineNanos(receivedNanos
+                            + TimeUnit.MILLISECONDS.toNanos(request.getTimeoutMillis()));
+                }
+                out.add(request);
+                break;
+            case RpcProtocol.MSG_TYPE_RESPONSE:
+                boolean stream = (flags & RpcProtocol.FLAG_STREAM) != 0;
+                boolean endOfStream = (flags & RpcProtocol.FLAG_END_STREAM) != 0;
+                if (lazy) {
+                    RpcResponse lazyResponse = new RpcResponse();
+                    lazyResponse.setRequestId(requestId);
+                    lazyResponse.setStream(stream);
+                    lazyResponse.setEndOfStream(endOfStream);
+                    lazyResponse.setPayload(new RpcPayload(body.retainedSlice(),
+                            serializer, System.nanoTime()));
+                    out.add(lazyResponse);
+                    break;
+                }
+                RpcResponse response;
+                try {
+                    response = deserialize(serializer, body, requestId,
+                            RpcResponse.class);
+                } catch (RpcDeserializationException e) {
+                    addFailure(messageType, flags, requestId, e, out);
+                    break;
+                }
+                response.setRequestId(requestId);
+                response.setStream(stream);
+                response.setEndOfStream(endOfStream);
+                out.add(response);
+                break;
+            case RpcProtocol.MSG_TYPE_HANDSHAKE:
+                byte[] serializerIds = new byte[bodyLength];
+                body.readBytes(serializerIds);
+                out.add(new RpcHandshake(serializerIds,
+                        (flags & RpcProtocol.FLAG_METHOD_DICTIONARY) != 0));
+                break;
+            case RpcProtocol.MSG_TYPE_DICTIONARY:
+                out.add(decodeDictionary(body));
+                break;
+            case RpcProtocol.MSG_TYPE_STREAM_CONTROL:
+                out.add(new RpcStreamControl(requestId, RpcProtocol.readVarint(body),
+                        (flags & RpcProtocol.FLAG_END_STREAM) != 0));
+                break;
+            default:
+                throw new CorruptedFrameException("unknown message type: "
+                        + messageType);
+        }
+    }
+
+    /**
+     * 包体已经整体切出，反序列化失败(类型不允许、内容损坏)不影响后续的数据包，
+     * 包装成带请求id的异常，由调用方转换成失败的请求或者响应
+     */
+    private static <T> T deserialize(Serializer serializer, ByteBuf body, long requestId,
+                                     Class<T> clazz) {
+        try {
+            return serializer.deserialize(body, body.readableBytes(), clazz);
+        } catch (RuntimeException e) {
+            throw new RpcDeserializationException(requestId, "deserialize "
+                    + clazz.getSimpleName() + " failed, request id: " + requestId
+                    + ", serializer: " + serializer.getName() + ", " + e, e);
+        }
+    }
+
+    /**
+     * 输出一个只带有请求id和失败原因的请求或者响应，由后面的处理器只让这一个调用失败
+     * 其他类型的消息(握手、方法字典)失败时连接无法继续使用，抛出异常关闭连接
+     */
+    private static void addFailure(byte messageType, byte flags, long requestId,
+                                   DecoderException cause, List<Object> out) {
+        if (messageType == RpcProtocol.MSG_TYPE_REQUEST) {
+            RpcRequest request = new RpcRequest();
+            request.setRequestId(requestId);
+            request.setStream((flags & RpcProtocol.FLAG_STREAM) != 0);
+            request.setDecodeError(cause);
+            out.add(request);
+        } else if (messageType == RpcProtocol.MSG_TYPE_RESPONSE) {
+            RpcResponse response = new RpcResponse();
+            response.setRequestId(requestId);
+            response.setThrowable(cause);
+            out.add(response);
+        } else {
+            throw cause;
+        }
+    }
+
+    private RpcMethodDictionary decodeDictionary(ByteBuf body) {
+        int count = RpcProtocol.readVarint(body);
+        if (count > body.readableBytes()) {
+            throw new CorruptedFrameException("invalid dictionary size: " + count);
+        }
+        int[] methodIds = new int[count];
+        String[] signatures = new String[count];
+        for (int i = 0; i < count; i++) {
+            methodIds[i] = RpcProtocol.readVarint(body);
+            int length = RpcProtocol.readVarint(body);
+            signatures[i] = body.toString(body.readerIndex(), length,
+                    CharsetUtil.UTF_8);
+            body.skipBytes(length);
+        }
+        return new RpcMethodDictionary(methodIds, signatures);
+    }
+
+    private void decodeV1(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
         // 首先记录一下当前的位置
         in.markReaderIndex();
         // 当前请求数据包的大小读取出来
         int dataLength = in.readInt();
+        if (dataLength < 0 || dataLength > RpcProtocol.MAX_FRAME_LENGTH - 4) {
+            in.skipBytes(in.readableBytes());
+            throw new TooLongFrameException("invalid data length: " + dataLength);
+        }
         if (in.readableBytes() < dataLength) {
             in.resetReaderIndex();
             return;
         }
+        // 记录下对端使用的是v1协议，响应也按照v1协议回写
+        ctx.channel().attr(RpcProtocol.VERSION_KEY)
+                .setIfAbsent(RpcProtocol.VERSION_1);
 
-        // 真正读取需要长度的数据包内容
-        byte[] data = new byte[dataLength];
-        in.readBytes(data);
+        // 真正读取需要长度的数据包内容(readSlice只移动读指针，不拷贝数据)
+        ByteBuf frame = in.readSlice(dataLength);
 
-        // 解码操作，返回指定的对象
-        Object obj = Serialization.deserialize(data, genericClass);
+        // 解码操作，直接从buffer中反序列化，返回指定的对象
+        Object obj = Serialization.deserialize(frame, dataLength, genericClass);
 
         // 填充到buffer中，传播给下游handler做实际的处理
         out.add(obj);
@@ -0,0 +1,37 @@
+package com.rpc.netty.rapid.codec;
+
+import io.netty.handler.codec.DecoderException;
+import lombok.Getter;
+
+/**
+ * 包体已经完整读出但是反序列化失败，数据包的边界没有被破坏，连接仍然可用
+ * 带上请求id，方便对端只让对应的请求失败，而不是关闭连接上所有的请求
+ *
+ * @author debao.yang
+ * @since 2026/10/19 18:10
+ */
+@Getter
+public class RpcDeserializationException extends DecoderException {
+
+    private final long requestId;
+
+    public RpcDeserializationException(long requestId, String message, Throwable cause) {
+        super(message, cause);
+        this.requestId = requestId;
+    }
+
+    /**
+     * 在异常链中查找
+     *
+     * @param cause exceptionCaught收到的异常
+     * @return 没有找到时返回null
+     */
+    public static RpcDeserializationException find(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof RpcDeserializationException) {
+                return (RpcDeserializationException) t;
+            }
+        }
+        return null;
+    }
+}
@@ -1,21 +1,56 @@
 package com.rpc.netty.rapid.codec;
 
+import com.rpc.netty.rapid.codec.serializer.Serializer;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.CharsetUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
 
 /**
  * 编码器
+ * 包体超过一个数据帧的消息拆分成分片帧，分片直接引用序列化的结果(retained slice)，不做拷贝
+ * 响应序列化失败或者太大时替换成对应请求的异常响应，不会因为一个响应断开整个连接
  *
  * @author debao.yang
  * @since 2024/7/2 08:11
  */
+@Slf4j
 public class RpcEncoder extends MessageToByteEncoder<Object> {
 
     private Class<?> genericClass;
 
+    /**
+     * 单条消息的最大长度(所有分片的包体之和)
+     */
+    private final int maxMessageLength;
+
     public RpcEncoder(Class<?> genericClass) {
+        this(genericClass, true);
+    }
+
+    /**
+     * @param genericClass 要编码的对象类型
+     * @param preferDirect 是否优先使用堆外内存(池化)作为输出buffer
+     */
+    public RpcEncoder(Class<?> genericClass, boolean preferDirect) {
+        this(genericClass, preferDirect, RpcProtocol.DEFAULT_MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * @param genericClass     要编码的对象类型
+     * @param preferDirect     是否优先使用堆外内存(池化)作为输出buffer
+     * @param maxMessageLength 单条消息的最大长度，超过时请求直接失败，响应替换成异常响应
+     */
+    public RpcEncoder(Class<?> genericClass, boolean preferDirect,
+                      int maxMessageLength) {
+        super(preferDirect);
         this.genericClass = genericClass;
+        this.maxMessageLength = maxMessageLength;
     }
 
     /**
@@ -34,12 +69,241 @@ public class RpcEncoder extends MessageToByteEncoder<Object> {
     protected void encode(ChannelHandlerContext ctx,
                           Object msg,
                           ByteBuf out) throws Exception {
-        if (genericClass.isInstance(msg)) {
-            byte[] data = Serialization.serialize(msg);
-            // 消息分为：(1、包头 数据包长度) 2、包体(数据包内容)
-            out.writeInt(data.length);
-            out.writeBytes(data);
+        if (msg instanceof RpcHandshake) {
+            encodeHandshake((RpcHandshake) msg, out);
+        } else if (msg instanceof RpcMethodDictionary) {
+            encodeDictionary((RpcMethodDictionary) msg, out);
+        } else if (msg instanceof RpcStreamControl) {
+            encodeStreamControl((RpcStreamControl) msg, out);
+        } else if (genericClass.isInstance(msg)) {
+            Byte version = ctx.channel().attr(RpcProtocol.VERSION_KEY).get();
+            if (version != null && version == RpcProtocol.VERSION_1) {
+                encodeV1(msg, out);
+            } else {
+                encodeV2(ctx, msg, out);
+            }
+        }
+    }
+
+    private void encodeV2(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
+        encodeV2(ctx, msg, out, false);
+    }
+
+    /**
+     * @param errorResponse msg是否是编码器替换出来的异常响应，异常响应再失败时不再替换
+     */
+    private void encodeV2(ChannelHandlerContext ctx, Object msg, ByteBuf out,
+                          boolean errorResponse) {
+        byte messageType;
+        long requestId;
+        int flags = 0;
+        if (msg instanceof RpcRequest) {
+            RpcRequest request = (RpcRequest) msg;
+            messageType = RpcProtocol.MSG_TYPE_REQUEST;
+            requestId = request.getRequestId();
+            if (request.isStream()) {
+                flags = request.isEndOfStream()
+                        ? RpcProtocol.FLAG_STREAM | RpcProtocol.FLAG_END_STREAM
+                        : RpcProtocol.FLAG_STREAM;
+            }
+        } else {
+            RpcResponse response = (RpcResponse) msg;
+            messageType = RpcProtocol.MSG_TYPE_RESPONSE;
+            requestId = response.getRequestId();
+            if (response.isStream()) {
+                flags = response.isEndOfStream()
+                        ? RpcProtocol.FLAG_STREAM | RpcProtocol.FLAG_END_STREAM
+                        : RpcProtocol.FLAG_STREAM;
+            }
+        }
+        Serializer serializer = chooseSerializer(ctx, msg);
+        Integer methodId = msg instanceof RpcRequest
+                ? lookupMethodId(ctx, (RpcRequest) msg) : null;
+        if (methodId != null) {
+            flags |= RpcProtocol.FLAG_METHOD_ID;
+        }
+        // 包头：magic version flags 消息类型 序列化方式 请求id 包体长度(先占位)
+        int headerIndex = writeHeader(out, flags, messageType, serializer.getId(),
+                requestId);
+        // 包体直接序列化到out中，最后回填长度
+        try {
+            if (methodId == null) {
+                serializer.serialize(msg, out);
+            } else {
+                RpcRequest request = (RpcRequest) msg;
+                RpcProtocol.writeVarint(out, methodId);
+                RpcProtocol.writeVarint(out, (int) Math.max(0, Math.min(
+                        request.getTimeoutMillis(), Integer.MAX_VALUE)));
+                RpcProtocol.writeVarint(out, Math.max(0, request.getStreamWindow()));
+                serializeWithoutMethod(serializer, request, out);
+            }
+        } catch (RuntimeException e) {
+            out.writerIndex(headerIndex);
+            if (msg instanceof RpcRequest || errorResponse) {
+                throw e;
+            }
+            log.warn("serialize rpc response failed, request id: {}", requestId, e);
+            encodeError(ctx, (RpcResponse) msg, "serialize rpc response failed: " + e,
+                    out);
+            return;
+        }
+        int bodyLength = out.writerIndex() - headerIndex - RpcProtocol.HEADER_LENGTH;
+        if (bodyLength <= RpcProtocol.MAX_CHUNK_LENGTH) {
+            out.setInt(headerIndex + 14, bodyLength);
+            return;
+        }
+        if (bodyLength > maxMessageLength) {
+            out.writerIndex(headerIndex);
+            String message = "message too large: " + bodyLength
+                    + " bytes exceeds max message length " + maxMessageLength;
+            if (msg instanceof RpcRequest || errorResponse) {
+                throw new RpcMessageTooLargeException(requestId, message);
+            }
+            // 响应太大时告诉调用方原因，而不是让调用方等到超时
+            encodeError(ctx, (RpcResponse) msg, message, out);
+            return;
+        }
+        writeChunks(ctx, out, headerIndex, flags, messageType, serializer.getId(),
+                requestId);
+    }
+
+    /**
+     * 没法原样写出的响应替换成同一个请求id的异常响应
+     * 流式调用中的一个元素出错时整个流以异常结束
+     */
+    private void encodeError(ChannelHandlerContext ctx, RpcResponse failed,
+                             String message, ByteBuf out) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(failed.getRequestId());
+        response.setLegacyRequestId(failed.getLegacyRequestId());
+        response.setThrowable(new IllegalStateException(message));
+        response.setStream(failed.isStream());
+        response.setEndOfStream(failed.isStream());
+        encodeV2(ctx, response, out, true);
+    }
+
+    /**
+     * 把已经序列化到out中的大消息拆分成分片帧
+     * 每个分片是一个新的包头加上out的retained slice，组合成一个CompositeByteBuf先写出，
+     * out本身清空后由MessageToByteEncoder写出一个空buffer，写出的promise在所有分片之后完成
+     */
+    private void writeChunks(ChannelHandlerContext ctx, ByteBuf out, int headerIndex,
+                             int flags, byte messageType, byte serializerId,
+                             long requestId) {
+        int bodyIndex = headerIndex + RpcProtocol.HEADER_LENGTH;
+        int bodyEnd = out.writerIndex();
+        int chunks = (bodyEnd - bodyIndex + RpcProtocol.MAX_CHUNK_LENGTH - 1)
+                / RpcProtocol.MAX_CHUNK_LENGTH;
+        CompositeByteBuf frames = ctx.alloc().compositeBuffer(chunks * 2);
+        for (int index = bodyIndex; index < bodyEnd;
+             index += RpcProtocol.MAX_CHUNK_LENGTH) {
+            int length = Math.min(RpcProtocol.MAX_CHUNK_LENGTH, bodyEnd - index);
+            boolean last = index + length == bodyEnd;
+            ByteBuf header = ctx.alloc().buffer(RpcProtocol.HEADER_LENGTH);
+            writeHeader(header, last ? flags : flags | RpcProtocol.FLAG_MORE_CHUNKS,
+                    messageType, serializerId, requestId);
+            header.setInt(14, length);
+            frames.addComponent(true, header);
+            frames.addComponent(true, out.retainedSlice(index, length));
+        }
+        out.clear();
+        ctx.write(frames, ctx.voidPromise());
+    }
+
+    /**
+     * 按照服务端下发的方法字典查找请求的方法id，没有协商方法字典或者字典中没有这个方法时返回null
+     */
+    private Integer lookupMethodId(ChannelHandlerContext ctx, RpcRequest request) {
+        String methodKey = request.getMethodKey();
+        if (methodKey == null) {
+            return null;
+        }
+        Map<String, Integer> methodIds = ctx.channel()
+                .attr(RpcProtocol.METHOD_IDS_KEY).get();
+        return methodIds == null ? null : methodIds.get(methodKey);
+    }
+
+    /**
+     * 序列化去掉类名、方法名和参数类型的副本，不修改调用方持有的请求
+     * 超时时间和信用窗口已经写在方法id后面，副本只复制RpcRequest.deserializePayload还原的字段
+     */
+    private void serializeWithoutMethod(Serializer serializer, RpcRequest request,
+                                        ByteBuf out) {
+        RpcRequest body = new RpcRequest();
+        body.setLegacyRequestId(request.getLegacyRequestId());
+        body.setParameters(request.getParameters());
+        serializer.serialize(body, out);
+    }
+
+    private void encodeHandshake(RpcHandshake handshake, ByteBuf out) {
+        byte[] serializerIds = handshake.getSerializerIds();
+        int headerIndex = writeHeader(out,
+                handshake.isMethodDictionary() ? RpcProtocol.FLAG_METHOD_DICTIONARY : 0,
+                RpcProtocol.MSG_TYPE_HANDSHAKE, (byte) 0, 0);
+        out.writeBytes(serializerIds);
+        out.setInt(headerIndex + 14, serializerIds.length);
+    }
+
+    private void encodeDictionary(RpcMethodDictionary dictionary, ByteBuf out) {
+        int[] methodIds = dictionary.getMethodIds();
+        String[] signatures = dictionary.getSignatures();
+        int headerIndex = writeHeader(out, 0, RpcProtocol.MSG_TYPE_DICTIONARY,
+                (byte) 0, 0);
+        RpcProtocol.writeVarint(out, methodIds.length);
+        for (int i = 0; i < methodIds.length; i++) {
+            RpcProtocol.writeVarint(out, methodIds[i]);
+            byte[] signature = signatures[i].getBytes(CharsetUtil.UTF_8);
+            RpcProtocol.writeVarint(out, signature.length);
+            out.writeBytes(signature);
+        }
+        out.setInt(headerIndex + 14,
+                out.writerIndex() - headerIndex - RpcProtocol.HEADER_LENGTH);
+    }
+
+    private void encodeStreamControl(RpcStreamControl control, ByteBuf out) {
+        int headerIndex = writeHeader(out,
+                control.isCancel() ? RpcProtocol.FLAG_END_STREAM : 0,
+                RpcProtocol.MSG_TYPE_STREAM_CONTROL, (byte) 0, control.getRequestId());
+        RpcProtocol.writeVarint(out, control.getCredits());
+        out.setInt(headerIndex + 14,
+                out.writerIndex() - headerIndex - RpcProtocol.HEADER_LENGTH);
+    }
+
+    private int writeHeader(ByteBuf out, int flags, byte messageType,
+                            byte serializerId, long requestId) {
+        int headerIndex = out.writerIndex();
+        out.writeShort(RpcProtocol.MAGIC);
+        out.writeByte(RpcProtocol.VERSION_2);
+        out.writeByte(flags);
+        out.writeByte(messageType);
+        out.writeByte(serializerId);
+        out.writeLong(requestId);
+        out.writeInt(0);
+        return headerIndex;
+    }
 
+    /**
+     * 按照协商的优先级选择第一个支持这条消息的序列化方式，都不支持时使用protostuff
+     */
+    private Serializer chooseSerializer(ChannelHandlerContext ctx, Object msg) {
+        Serializer[] serializers = ctx.channel().attr(RpcProtocol.SERIALIZERS_KEY)
+                .get();
+        if (serializers != null) {
+            for (Serializer serializer : serializers) {
+                if (serializer.supports(msg)) {
+                    return serializer;
+                }
+            }
         }
+        return SerializerRegistry.PROTOSTUFF;
+    }
+
+    private void encodeV1(Object msg, ByteBuf out) {
+        // 消息分为：(1、包头 数据包长度) 2、包体(数据包内容)
+        // 先占位包头，包体直接序列化到out中，最后回填长度
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        Serialization.serialize(msg, out);
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
     }
 }
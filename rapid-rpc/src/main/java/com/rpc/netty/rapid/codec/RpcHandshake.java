@@ -0,0 +1,31 @@
+package com.rpc.netty.rapid.codec;
+
+import lombok.Getter;
+
+/**
+ * 握手消息
+ * 客户端发送自己支持的序列化id(按优先级排列)，服务端回复双方都支持的序列化id
+ * 客户端同时可以要求服务端下发方法字典(包头的flags)
+ *
+ * @author debao.yang
+ * @since 2026/10/18 12:50
+ */
+@Getter
+public class RpcHandshake {
+
+    private final byte[] serializerIds;
+
+    /**
+     * 是否使用方法字典，只在客户端发出的握手消息中有意义
+     */
+    private final boolean methodDictionary;
+
+    public RpcHandshake(byte[] serializerIds) {
+        this(serializerIds, false);
+    }
+
+    public RpcHandshake(byte[] serializerIds, boolean methodDictionary) {
+        this.serializerIds = serializerIds;
+        this.methodDictionary = methodDictionary;
+    }
+}
@@ -0,0 +1,97 @@
+package com.rpc.netty.rapid.codec;
+
+import com.rpc.netty.rapid.codec.serializer.Serializer;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 连接建立时的握手处理器，协商这个连接上使用的序列化方式
+ * 1、客户端连接激活后发送自己支持的序列化id
+ * 2、服务端按照客户端的优先级选出自己也支持的，设置到连接上并回复给客户端
+ * 3、客户端收到回复后设置到连接上
+ * 协商完成之后在pipeline中传播一个RpcHandshake的用户事件，服务端据此决定是否下发方法字典
+ * 协商完成之前(以及协商的序列化方式都不支持某条消息时)使用protostuff
+ *
+ * @author debao.yang
+ * @since 2026/10/18 12:55
+ */
+@Slf4j
+public class RpcHandshakeHandler extends SimpleChannelInboundHandler<RpcHandshake> {
+
+    /**
+     * 客户端优先使用的序列化id，服务端为null
+     */
+    private final byte[] preferredIds;
+
+    /**
+     * 客户端是否要求服务端下发方法字典
+     */
+    private final boolean methodDictionary;
+
+    /**
+     * 服务端使用
+     */
+    public RpcHandshakeHandler() {
+        this(null);
+    }
+
+    /**
+     * 客户端使用
+     *
+     * @param preferredIds 客户端优先使用的序列化id
+     */
+    public RpcHandshakeHandler(byte[] preferredIds) {
+        this(preferredIds, false);
+    }
+
+    /**
+     * 客户端使用
+     *
+     * @param preferredIds     客户端优先使用的序列化id
+     * @param methodDictionary 是否要求服务端下发方法字典
+     */
+    public RpcHandshakeHandler(byte[] preferredIds, boolean methodDictionary) {
+        this.preferredIds = preferredIds;
+        this.methodDictionary = methodDictionary;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (preferredIds != null) {
+            ctx.writeAndFlush(new RpcHandshake(preferredIds, methodDictionary));
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx,
+                                RpcHandshake handshake) throws Exception {
+        List<Serializer> serializers = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (byte id : handshake.getSerializerIds()) {
+            Serializer serializer = SerializerRegistry.get(id);
+            if (serializer != null) {
+                serializers.add(serializer);
+                names.add(serializer.getName());
+            }
+        }
+        ctx.channel().attr(RpcProtocol.SERIALIZERS_KEY)
+                .set(serializers.toArray(new Serializer[0]));
+
+        if (preferredIds == null) {
+            byte[] acceptedIds = new byte[serializers.size()];
+            for (int i = 0; i < acceptedIds.length; i++) {
+                acceptedIds[i] = serializers.get(i).getId();
+            }
+            ctx.writeAndFlush(new RpcHandshake(acceptedIds));
+        }
+        log.info("negotiated serializers: {}, remote peer: {}", names,
+                ctx.channel().remoteAddress());
+        ctx.fireUserEventTriggered(handshake);
+    }
+}
@@ -0,0 +1,36 @@
+package com.rpc.netty.rapid.codec;
+
+import io.netty.handler.codec.TooLongFrameException;
+import lombok.Getter;
+
+/**
+ * 单条消息超过了配置的最大长度，带上请求id，方便调用方让对应的请求失败，而不是等到超时
+ *
+ * @author debao.yang
+ * @since 2026/10/18 20:40
+ */
+@Getter
+public class RpcMessageTooLargeException extends TooLongFrameException {
+
+    private final long requestId;
+
+    public RpcMessageTooLargeException(long requestId, String message) {
+        super(message);
+        this.requestId = requestId;
+    }
+
+    /**
+     * 在异常链中查找(编码器中抛出的异常会被包装成EncoderException)
+     *
+     * @param cause exceptionCaught收到的异常
+     * @return 没有找到时返回null
+     */
+    public static RpcMessageTooLargeException find(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof RpcMessageTooLargeException) {
+                return (RpcMessageTooLargeException) t;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.rpc.netty.rapid.codec;
+
+import lombok.Getter;
+
+/**
+ * 方法字典消息，服务端下发的方法id和方法签名的对应关系
+ * 客户端按照方法签名找到方法id之后，请求中只携带varint的方法id
+ * <p>
+ * 包体: | 条目个数(varint) | (方法id(varint) 签名长度(varint) 签名utf8)* |
+ *
+ * @author debao.yang
+ * @since 2026/10/18 19:30
+ */
+@Getter
+public class RpcMethodDictionary {
+
+    private final int[] methodIds;
+
+    /**
+     * 和methodIds一一对应的方法签名
+     */
+    private final String[] signatures;
+
+    public RpcMethodDictionary(int[] methodIds, String[] signatures) {
+        this.methodIds = methodIds;
+        this.signatures = signatures;
+    }
+
+    /**
+     * 方法签名：接口全限定名#方法名(参数类型,参数类型)，两端按照同样的规则生成
+     *
+     * @param className      服务接口的全限定名
+     * @param methodName     方法名
+     * @param parameterTypes 参数类型
+     * @return java.lang.String
+     * @author debao.yang
+     * @since 2026/10/18 19:32
+     */
+    public static String signature(String className, String methodName,
+                                   Class<?>[] parameterTypes) {
+        StringBuilder builder = new StringBuilder(className).append('#')
+                .append(methodName).append('(');
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(parameterTypes[i].getName());
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.rpc.netty.rapid.codec;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 客户端接收方法字典，合并到连接上的方法id表中
+ * 字典的下发和编码器的读取都在连接的EventLoop线程中，所以使用普通的HashMap
+ *
+ * @author debao.yang
+ * @since 2026/10/18 19:40
+ */
+@Slf4j
+public class RpcMethodDictionaryHandler
+        extends SimpleChannelInboundHandler<RpcMethodDictionary> {
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx,
+                                RpcMethodDictionary dictionary) throws Exception {
+        Map<String, Integer> methodIds = ctx.channel()
+                .attr(RpcProtocol.METHOD_IDS_KEY).get();
+        if (methodIds == null) {
+            methodIds = new HashMap<>();
+            ctx.channel().attr(RpcProtocol.METHOD_IDS_KEY).set(methodIds);
+        }
+        int[] ids = dictionary.getMethodIds();
+        String[] signatures = dictionary.getSignatures();
+        for (int i = 0; i < ids.length; i++) {
+            methodIds.put(signatures[i], ids[i]);
+        }
+        log.info("received method dictionary: {} methods, total: {}, remote peer: {}",
+                ids.length, methodIds.size(), ctx.channel().remoteAddress());
+    }
+}
@@ -0,0 +1,55 @@
+package com.rpc.netty.rapid.codec;
+
+import com.rpc.netty.rapid.codec.serializer.Serializer;
+import io.netty.buffer.ByteBuf;
+import lombok.Getter;
+
+/**
+ * 延迟反序列化的包体
+ * IO线程只解析包头和路由需要的字段，包体保留为retained slice，由执行方法(或者处理响应)的线程反序列化
+ * deserialize和release之后包体都会被释放，两者只能调用其中一个且只能调用一次
+ *
+ * @author debao.yang
+ * @since 2026/10/18 20:10
+ */
+public final class RpcPayload {
+
+    private final ByteBuf body;
+
+    private final Serializer serializer;
+
+    /**
+     * IO线程解码包头的时间(System.nanoTime)
+     */
+    @Getter
+    private final long receivedNanos;
+
+    public RpcPayload(ByteBuf body, Serializer serializer, long receivedNanos) {
+        this.body = body;
+        this.serializer = serializer;
+        this.receivedNanos = receivedNanos;
+    }
+
+    /**
+     * 反序列化包体并释放
+     *
+     * @param clazz 包体的类型
+     * @return T
+     * @author debao.yang
+     * @since 2026/10/18 20:12
+     */
+    public <T> T deserialize(Class<T> clazz) {
+        try {
+            return serializer.deserialize(body, body.readableBytes(), clazz);
+        } finally {
+            body.release();
+        }
+    }
+
+    /**
+     * 不再需要包体(请求被丢弃、响应已经没有人等待)时释放
+     */
+    public void release() {
+        body.release();
+    }
+}
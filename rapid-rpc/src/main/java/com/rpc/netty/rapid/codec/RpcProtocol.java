@@ -0,0 +1,182 @@
+package com.rpc.netty.rapid.codec;
+
+import com.rpc.netty.rapid.codec.serializer.Serializer;
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.AttributeKey;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 协议相关的常量定义
+ * <p>
+ * v1: | 数据包长度(4) | 包体 |
+ * <p>
+ * v2: | magic(2) | version(1) | flags(1) | 消息类型(1) | 序列化方式(1) |
+ * 请求id(8) | 包体长度(4) | 包体 |
+ * <p>
+ * 包体超过一个数据帧的消息拆分成多个连续的分片帧，除最后一个分片外都带有FLAG_MORE_CHUNKS，
+ * 第一个分片的flags同时带有消息本身的flags，接收端把各分片的包体组合起来再解码
+ *
+ * @author debao.yang
+ * @since 2026/10/18 11:20
+ */
+public final class RpcProtocol {
+
+    private RpcProtocol() {
+    }
+
+    /**
+     * v1的包头是一个小于MAX_FRAME_LENGTH的长度，前两个字节一定是0，
+     * 所以magic只要不为0就能和v1的数据包区分开
+     */
+    public static final short MAGIC = (short) 0x5250;
+
+    public static final byte VERSION_1 = 1;
+
+    public static final byte VERSION_2 = 2;
+
+    public static final int HEADER_LENGTH = 18;
+
+    /**
+     * 单个数据帧(包头+包体)的最大长度
+     */
+    public static final int MAX_FRAME_LENGTH = 65536;
+
+    /**
+     * 单个分片的最大包体长度
+     */
+    public static final int MAX_CHUNK_LENGTH = MAX_FRAME_LENGTH - HEADER_LENGTH;
+
+    /**
+     * 默认的单条消息(所有分片的包体之和)的最大长度
+     */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
+
+    public static final byte MSG_TYPE_REQUEST = 1;
+
+    public static final byte MSG_TYPE_RESPONSE = 2;
+
+    /**
+     * 连接建立时协商序列化方式的握手消息，包体是序列化id列表，不经过序列化
+     */
+    public static final byte MSG_TYPE_HANDSHAKE = 3;
+
+    /**
+     * 服务端下发的方法字典(方法id -> 方法签名)，包体手写编码，不经过序列化
+     * 握手之后下发全量，之后注册新服务时下发增量
+     */
+    public static final byte MSG_TYPE_DICTIONARY = 4;
+
+    /**
+     * 流式调用的控制消息，包体是varint的信用个数，带有FLAG_END_STREAM时表示取消
+     * 服务端流式调用中只有客户端发出；双向流式调用中服务端也用它归还请求方向的信用
+     */
+    public static final byte MSG_TYPE_STREAM_CONTROL = 5;
+
+    /**
+     * 握手消息的flags：客户端希望使用方法字典
+     */
+    public static final byte FLAG_METHOD_DICTIONARY = 0x01;
+
+    /**
+     * 请求消息的flags：包体以varint的方法id、超时时间(毫秒)和流式调用的信用窗口开头，
+     * 序列化的请求中不再携带类名、方法名和参数类型
+     * 超时时间和信用窗口不用反序列化就能读到，延迟解码的请求在IO线程中也能做截止时间检查
+     */
+    public static final byte FLAG_METHOD_ID = 0x02;
+
+    /**
+     * 分片帧的flags：后面还有同一条消息的分片
+     */
+    public static final byte FLAG_MORE_CHUNKS = 0x04;
+
+    /**
+     * 响应消息的flags：流式调用的一个元素，同一个请求id后面还有响应
+     * 请求消息的flags：双向流式调用中客户端发出的一个元素
+     */
+    public static final byte FLAG_STREAM = 0x08;
+
+    /**
+     * 响应消息的flags：流式调用结束(可能带有异常)；请求消息的flags：客户端的请求方向结束；
+     * 控制消息的flags：取消流式调用
+     */
+    public static final byte FLAG_END_STREAM = 0x10;
+
+    /**
+     * 流式调用默认的信用窗口：服务端最多先发出这么多个客户端还没有消费的元素
+     */
+    public static final int DEFAULT_STREAM_WINDOW = 256;
+
+    public static final byte SERIALIZER_PROTOSTUFF = 1;
+
+    public static final byte SERIALIZER_JACKSON = 2;
+
+    public static final byte SERIALIZER_PRIMITIVE = 3;
+
+    /**
+     * 连接上使用的协议版本，解码到v1数据包时设置，编码时按照同样的版本回写
+     */
+    public static final AttributeKey<Byte> VERSION_KEY =
+            AttributeKey.valueOf("rapid.rpc.protocol.version");
+
+    /**
+     * 握手之后双方协商出的序列化方式，按照优先级排列
+     */
+    public static final AttributeKey<Serializer[]> SERIALIZERS_KEY =
+            AttributeKey.valueOf("rapid.rpc.protocol.serializers");
+
+    /**
+     * 客户端收到的方法字典，key是方法签名，value是服务端的方法id
+     * 只在连接的EventLoop线程中读写
+     */
+    public static final AttributeKey<Map<String, Integer>> METHOD_IDS_KEY =
+            AttributeKey.valueOf("rapid.rpc.protocol.methodIds");
+
+    /**
+     * 返回值是Iterator或者Stream的方法按照流式调用处理，两端按照同样的规则判断
+     * <p>
+     * 不支持Flow.Publisher(Java 8没有java.util.concurrent.Flow，也不引入reactive-streams依赖)：
+     * 服务端的信用窗口对应Publisher的request(n)，拉取式的Iterator已经能表达同样的背压，
+     * 已有的Publisher可以包装成一个每次request(1)、阻塞等待下一个元素的Iterator返回
+     */
+    public static boolean isStreaming(Class<?> returnType) {
+        return returnType == Iterator.class || returnType == Stream.class;
+    }
+
+    /**
+     * 形如 RpcStreamObserver&lt;Req&gt; method(RpcStreamObserver&lt;Resp&gt;) 的方法按照双向流式调用处理
+     * (客户端流式调用是服务端只发出一个元素的双向流式调用)，两端按照同样的规则判断
+     */
+    public static boolean isCallStreaming(Class<?> returnType,
+                                          Class<?>[] parameterTypes) {
+        return returnType == RpcStreamObserver.class && parameterTypes.length == 1
+                && parameterTypes[0] == RpcStreamObserver.class;
+    }
+
+    /**
+     * 写入一个非负的varint(每个字节7位，最高位表示后面还有字节)
+     */
+    public static void writeVarint(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarint(ByteBuf in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("malformed varint");
+    }
+}
@@ -14,7 +14,15 @@ import java.io.Serializable;
 public class RpcRequest implements Serializable {
     private static final long serialVersionUID = 4819719995530933531L;
 
-    private String requestId;
+    /**
+     * 请求id，v2协议中放在包头里，不参与序列化
+     */
+    private transient long requestId;
+
+    /**
+     * v1协议中的字符串请求id，仅在兼容v1数据包时使用
+     */
+    private String legacyRequestId;
 
     private String className;
 
@@ -23,4 +31,93 @@ public class RpcRequest implements Serializable {
     private Class<?>[] parameterTypes;
 
     private Object[] parameters;
+
+    /**
+     * 调用方剩余的时间预算(毫秒)，0表示没有限制
+     * 传递的是相对时间，不依赖两端的时钟同步
+     */
+    private long timeoutMillis;
+
+    /**
+     * 流式调用的初始信用窗口，0表示普通调用(服务端按照默认窗口处理)
+     */
+    private int streamWindow;
+
+    /**
+     * 服务端解码时按照timeoutMillis换算出的本地截止时间(System.nanoTime)，不参与序列化
+     */
+    private transient long deadlineNanos;
+
+    /**
+     * 客户端的方法签名(见RpcMethodDictionary.signature)，编码时用来查找连接上协商的方法id，不参与序列化
+     */
+    private transient String methodKey;
+
+    /**
+     * 服务端解码出的方法id，-1表示请求没有使用方法字典(按照类名、方法名查找)，不参与序列化
+     */
+    private transient int methodId = -1;
+
+    /**
+     * 延迟反序列化时IO线程保留的包体，为null表示已经完整解码，不参与序列化
+     */
+    private transient RpcPayload payload;
+
+    /**
+     * 双向流式调用中客户端发出的一帧(元素或者结束)，元素是parameters[0]，
+     * v2协议中放在包头的flags里，不参与序列化
+     */
+    private transient boolean stream;
+
+    /**
+     * 双向流式调用中请求方向的最后一帧
+     */
+    private transient boolean endOfStream;
+
+    /**
+     * 解码失败的原因(包体不能反序列化、消息太大)，不为null时只有requestId和stream有效，
+     * 服务端不执行这个请求，直接返回失败，不参与序列化
+     */
+    private transient Throwable decodeError;
+
+    /**
+     * 调用方的截止时间是否已经过了，这之后的执行结果调用方已经不会再读取
+     *
+     * @param nowNanos 当前时间(System.nanoTime)
+     * @return boolean
+     * @author debao.yang
+     * @since 2026/10/18 18:10
+     */
+    public boolean isExpired(long nowNanos) {
+        return deadlineNanos != 0 && deadlineNanos - nowNanos <= 0;
+    }
+
+    /**
+     * 在执行方法的线程中反序列化延迟解码的包体，还原参数，已经完整解码时什么都不做
+     * 超时时间、信用窗口和截止时间在解码的时候已经从方法id后面读出
+     *
+     * @author debao.yang
+     * @since 2026/10/18 20:15
+     */
+    public void deserializePayload() {
+        RpcPayload payload = this.payload;
+        if (payload == null) {
+            return;
+        }
+        this.payload = null;
+        RpcRequest body = payload.deserialize(RpcRequest.class);
+        this.legacyRequestId = body.legacyRequestId;
+        this.parameters = body.parameters;
+    }
+
+    /**
+     * 请求不再执行时释放延迟解码的包体
+     */
+    public void releasePayload() {
+        RpcPayload payload = this.payload;
+        if (payload != null) {
+            this.payload = null;
+            payload.release();
+        }
+    }
 }
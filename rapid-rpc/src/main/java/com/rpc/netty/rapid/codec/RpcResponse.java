@@ -14,10 +14,74 @@ import java.io.Serializable;
 public class RpcResponse implements Serializable {
     private static final long serialVersionUID = -4953814251407762400L;
 
-    private String requestId;
+    public static final byte STATUS_OK = 0;
+
+    /**
+     * 服务端过载，请求没有执行就被拒绝，调用方可以立即换一个节点重试
+     */
+    public static final byte STATUS_OVERLOADED = 1;
+
+    /**
+     * 请求id，v2协议中放在包头里，不参与序列化
+     */
+    private transient long requestId;
+
+    /**
+     * v1协议中的字符串请求id，仅在兼容v1数据包时使用
+     */
+    private String legacyRequestId;
 
     private Object result;
 
     private Throwable throwable;
 
+    /**
+     * 响应状态，不是STATUS_OK时result中是服务端给出的原因
+     */
+    private byte status = STATUS_OK;
+
+    /**
+     * 延迟反序列化时IO线程保留的包体，为null表示已经完整解码，不参与序列化
+     */
+    private transient RpcPayload payload;
+
+    /**
+     * 流式调用的一帧(元素或者结束)，v2协议中放在包头的flags里，不参与序列化
+     */
+    private transient boolean stream;
+
+    /**
+     * 流式调用的最后一帧，throwable不为null时表示以异常结束
+     */
+    private transient boolean endOfStream;
+
+    /**
+     * 在处理响应的线程中反序列化延迟解码的包体，已经完整解码时什么都不做
+     *
+     * @author debao.yang
+     * @since 2026/10/18 20:18
+     */
+    public synchronized void deserializePayload() {
+        RpcPayload payload = this.payload;
+        if (payload == null) {
+            return;
+        }
+        this.payload = null;
+        RpcResponse body = payload.deserialize(RpcResponse.class);
+        this.legacyRequestId = body.legacyRequestId;
+        this.result = body.result;
+        this.throwable = body.throwable;
+        this.status = body.status;
+    }
+
+    /**
+     * 响应已经没有人等待时释放延迟解码的包体
+     */
+    public synchronized void releasePayload() {
+        RpcPayload payload = this.payload;
+        if (payload != null) {
+            this.payload = null;
+            payload.release();
+        }
+    }
 }
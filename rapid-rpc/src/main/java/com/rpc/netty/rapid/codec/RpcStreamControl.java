@@ -0,0 +1,28 @@
+package com.rpc.netty.rapid.codec;
+
+import lombok.Getter;
+
+/**
+ * 流式调用的控制消息，客户端消费了一部分元素之后归还信用，或者提前取消
+ *
+ * @author debao.yang
+ * @since 2026/10/18 21:10
+ */
+@Getter
+public class RpcStreamControl {
+
+    private final long requestId;
+
+    /**
+     * 归还的信用个数，服务端可以再多发出这么多个元素
+     */
+    private final int credits;
+
+    private final boolean cancel;
+
+    public RpcStreamControl(long requestId, int credits, boolean cancel) {
+        this.requestId = requestId;
+        this.credits = credits;
+        this.cancel = cancel;
+    }
+}
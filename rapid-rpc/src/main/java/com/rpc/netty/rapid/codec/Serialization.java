@@ -1,8 +1,13 @@
 package com.rpc.netty.rapid.codec;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.util.concurrent.FastThreadLocal;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtostuffIOUtil;
 import io.protostuff.Schema;
+import io.protostuff.runtime.RuntimeSchema;
 import org.objenesis.Objenesis;
 import org.objenesis.ObjenesisStd;
 
@@ -22,17 +27,25 @@ public class Serialization {
 
     private static final Objenesis OBJENESIS = new ObjenesisStd(true);
 
+    /**
+     * 每个线程(主要是EventLoop线程)复用一个LinkedBuffer，避免每条消息都重新分配
+     */
+    private static final FastThreadLocal<LinkedBuffer> BUFFER =
+            new FastThreadLocal<LinkedBuffer>() {
+                @Override
+                protected LinkedBuffer initialValue() {
+                    return LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+                }
+            };
+
     public Serialization() {
 
     }
 
+    @SuppressWarnings("unchecked")
     public static <T> Schema<T> getSchema(Class<T> clazz) {
-        @SuppressWarnings("unchecked")
-        Schema<T> schema = (Schema<T>) cacheSchema.get(clazz);
-        if (schema == null) {
-            cacheSchema.put(clazz, schema);
-        }
-        return schema;
+        return (Schema<T>) cacheSchema.computeIfAbsent(clazz,
+                RuntimeSchema::createFrom);
     }
 
     /**
@@ -41,7 +54,7 @@ public class Serialization {
     public static <T> byte[] serialize(T obj) {
         @SuppressWarnings("unchecked")
         Class<T> cls = (Class<T>) obj.getClass();
-        LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+        LinkedBuffer buffer = BUFFER.get();
         try {
             Schema<T> schema = getSchema(cls);
             return ProtostuffIOUtil.toByteArray(obj, schema, buffer);
@@ -52,6 +65,29 @@ public class Serialization {
         }
     }
 
+    /**
+     * 序列化：对象->直接写入ByteBuf，不产生中间的字节数组
+     *
+     * @param obj 要序列化的对象
+     * @param out 目标buffer(池化的，可以是堆外内存)
+     * @author debao.yang
+     * @since 2026/10/18 11:02
+     */
+    public static <T> void serialize(T obj, ByteBuf out) {
+        @SuppressWarnings("unchecked")
+        Class<T> cls = (Class<T>) obj.getClass();
+        LinkedBuffer buffer = BUFFER.get();
+        try {
+            Schema<T> schema = getSchema(cls);
+            ProtostuffIOUtil.writeTo(new ByteBufOutputStream(out), obj, schema,
+                    buffer);
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
     /**
      * 反序列化（字节数组->对象）
      */
@@ -65,4 +101,39 @@ public class Serialization {
             throw new IllegalStateException(e.getMessage(), e);
         }
     }
+
+    /**
+     * 反序列化（ByteBuf->对象）
+     * 堆内buffer直接读底层数组，堆外buffer通过输入流读取，都不会拷贝出新的字节数组
+     *
+     * @param in     已经分好帧的buffer
+     * @param length 要读取的数据包长度
+     * @param cls    目标类型
+     * @return T
+     * @author debao.yang
+     * @since 2026/10/18 11:06
+     */
+    public static <T> T deserialize(ByteBuf in, int length, Class<T> cls) {
+        try {
+            T message = OBJENESIS.newInstance(cls);
+            Schema<T> schema = getSchema(cls);
+            if (in.hasArray()) {
+                ProtostuffIOUtil.mergeFrom(in.array(),
+                        in.arrayOffset() + in.readerIndex(), length, message,
+                        schema);
+                in.skipBytes(length);
+            } else {
+                LinkedBuffer buffer = BUFFER.get();
+                try {
+                    ProtostuffIOUtil.mergeFrom(new ByteBufInputStream(in, length),
+                            message, schema, buffer);
+                } finally {
+                    buffer.clear();
+                }
+            }
+            return message;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package com.rpc.netty.rapid.codec.serializer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.rpc.netty.rapid.codec.RpcProtocol;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * jackson序列化
+ * Object类型的字段(参数、返回值)带上类型信息，保证对端能还原出具体的类型
+ * 值为null的字段不输出(使用方法字典的请求没有类名、方法名和参数类型)
+ * 类型信息由对端决定，只允许还原框架自己的类型、常用的JDK值类型和集合、以及注册过的服务接口
+ * 参数和返回值所在的包，其他类型(反序列化gadget)直接拒绝
+ *
+ * @author debao.yang
+ * @since 2026/10/18 12:14
+ */
+public class JacksonSerializer implements Serializer {
+
+    /**
+     * 框架自己的类型
+     */
+    private static final String PROTOCOL_PACKAGE = "com.rpc.netty.rapid.";
+
+    /**
+     * 允许的JDK类型，只列出值类型和常用的集合，不按包放开
+     * 包括Arrays.asList和Collections的不可变、同步、空、单元素集合(jackson有专门的反序列化器)
+     */
+    private static final String JDK_TYPES =
+            "java\\.lang\\.(String|Boolean|Character|Byte|Short|Integer|Long|Float|Double)"
+                    + "|java\\.math\\.(BigInteger|BigDecimal)"
+                    + "|java\\.util\\.(ArrayList|LinkedList|HashMap|LinkedHashMap|TreeMap"
+                    + "|HashSet|LinkedHashSet|TreeSet|Date|UUID|Arrays\\$ArrayList"
+                    + "|Collections\\$(Unmodifiable|Synchronized|Empty|Singleton)[A-Za-z]*)";
+
+    /**
+     * 基本类型的数组
+     */
+    private static final Pattern PRIMITIVE_ARRAYS = Pattern.compile("\\[+[ZBCSIJFD]");
+
+    /**
+     * 注册过的服务接口中出现的类型所在的包
+     */
+    private final Set<String> allowedPackages = new LinkedHashSet<>();
+
+    /**
+     * 允许的包变化时整体替换，类型校验器构建之后不能修改
+     */
+    private volatile ObjectMapper objectMapper = newObjectMapper(Collections.emptySet());
+
+    private static ObjectMapper newObjectMapper(Set<String> packages) {
+        // 数组的元素类型也必须是允许的类型，否则可以通过数组还原出任意的类
+        BasicPolymorphicTypeValidator.Builder validator = BasicPolymorphicTypeValidator
+                .builder()
+                .allowIfSubType(PROTOCOL_PACKAGE)
+                .allowIfSubType(arrayOf(Pattern.quote(PROTOCOL_PACKAGE) + "[^;]*"))
+                .allowIfSubType(Pattern.compile(JDK_TYPES))
+                .allowIfSubType(arrayOf("(" + JDK_TYPES + ")"))
+                .allowIfSubType(PRIMITIVE_ARRAYS);
+        for (String packageName : packages) {
+            validator.allowIfSubType(packageName)
+                    .allowIfSubType(arrayOf(Pattern.quote(packageName) + "[^;]*"));
+        }
+        return new ObjectMapper()
+                .configure(MapperFeature.PROPAGATE_TRANSIENT_MARKER, true)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+                .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .activateDefaultTyping(validator.build(),
+                        ObjectMapper.DefaultTyping.JAVA_LANG_OBJECT);
+    }
+
+    private static Pattern arrayOf(String elementPattern) {
+        return Pattern.compile("\\[+L(" + elementPattern + ");");
+    }
+
+    /**
+     * 允许还原服务接口的参数和返回值(包括泛型参数)所在的包中的类型
+     * 服务端注册服务、客户端创建代理的时候调用，包有变化时重新构建ObjectMapper
+     *
+     * @param interfaceClass 服务接口
+     * @author debao.yang
+     * @since 2026/10/19 10:10
+     */
+    public synchronized void allowTypesOf(Class<?> interfaceClass) {
+        Set<String> packages = new LinkedHashSet<>(allowedPackages);
+        addPackage(packages, interfaceClass);
+        for (Method method : interfaceClass.getMethods()) {
+            addPackages(packages, method.getGenericReturnType());
+            for (Type type : method.getGenericParameterTypes()) {
+                addPackages(packages, type);
+            }
+        }
+        if (packages.size() != allowedPackages.size()) {
+            allowedPackages.addAll(packages);
+            objectMapper = newObjectMapper(allowedPackages);
+        }
+    }
+
+    private static void addPackages(Set<String> packages, Type type) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            while (clazz.isArray()) {
+                clazz = clazz.getComponentType();
+            }
+            addPackage(packages, clazz);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            addPackages(packages, parameterizedType.getRawType());
+            for (Type argument : parameterizedType.getActualTypeArguments()) {
+                addPackages(packages, argument);
+            }
+        } else if (type instanceof GenericArrayType) {
+            addPackages(packages, ((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                addPackages(packages, bound);
+            }
+        }
+    }
+
+    /**
+     * JDK的类型只按照JDK_TYPES放开，不会因为出现在接口上就放开整个包
+     */
+    private static void addPackage(Set<String> packages, Class<?> clazz) {
+        Package pkg = clazz.getPackage();
+        if (clazz.isPrimitive() || pkg == null) {
+            return;
+        }
+        String name = pkg.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.")) {
+            return;
+        }
+        packages.add(name + ".");
+    }
+
+    @Override
+    public byte getId() {
+        return RpcProtocol.SERIALIZER_JACKSON;
+    }
+
+    @Override
+    public String getName() {
+        return "jackson";
+    }
+
+    @Override
+    public void serialize(Object obj, ByteBuf out) {
+        try {
+            objectMapper.writeValue((OutputStream) new ByteBufOutputStream(out), obj);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf in, int length, Class<T> clazz) {
+        try {
+            if (in.hasArray()) {
+                T message = objectMapper.readValue(in.array(),
+                        in.arrayOffset() + in.readerIndex(), length, clazz);
+                in.skipBytes(length);
+                return message;
+            }
+            return objectMapper.readValue(
+                    (InputStream) new ByteBufInputStream(in, length), clazz);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+}
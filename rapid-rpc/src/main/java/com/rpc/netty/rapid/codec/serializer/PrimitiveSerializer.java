@@ -0,0 +1,277 @@
+package com.rpc.netty.rapid.codec.serializer;
+
+import com.rpc.netty.rapid.codec.RpcProtocol;
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.CharsetUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 手写的轻量序列化，只支持参数和返回值都是基本类型(及其包装类型)或者String的调用
+ * 不支持的消息由编码器退回到其他序列化方式
+ * <p>
+ * 请求: | 类型(1) | 剩余时间(8) | 流式窗口(4) | className | methodName | 参数个数(1) | (参数类型(1) 参数值)* |
+ * 使用方法字典的请求没有className、methodName和参数类型，参数类型标识按照参数值的实际类型写入
+ * <p>
+ * 响应: | 类型(1) | 返回值类型(1) | 返回值 |
+ *
+ * @author debao.yang
+ * @since 2026/10/18 12:20
+ */
+public class PrimitiveSerializer implements Serializer {
+
+    private static final byte KIND_REQUEST = 1;
+    private static final byte KIND_RESPONSE = 2;
+
+    /**
+     * 下标即类型标识，0表示null
+     */
+    private static final Class<?>[] TYPES = new Class<?>[]{
+            null,
+            boolean.class, Boolean.class,
+            byte.class, Byte.class,
+            short.class, Short.class,
+            char.class, Character.class,
+            int.class, Integer.class,
+            long.class, Long.class,
+            float.class, Float.class,
+            double.class, Double.class,
+            String.class
+    };
+
+    private static final Map<Class<?>, Byte> TYPE_TAGS = new HashMap<>();
+
+    static {
+        for (byte i = 1; i < TYPES.length; i++) {
+            TYPE_TAGS.put(TYPES[i], i);
+        }
+    }
+
+    @Override
+    public byte getId() {
+        return RpcProtocol.SERIALIZER_PRIMITIVE;
+    }
+
+    @Override
+    public String getName() {
+        return "primitive";
+    }
+
+    @Override
+    public boolean supports(Object obj) {
+        if (obj instanceof RpcRequest) {
+            RpcRequest request = (RpcRequest) obj;
+            Class<?>[] parameterTypes = request.getParameterTypes();
+            Object[] parameters = request.getParameters();
+            if (parameterTypes == null && parameters != null) {
+                // 没有参数类型时(双向流式调用的元素)按照参数值的类型判断
+                if (request.getLegacyRequestId() != null
+                        || parameters.length > Byte.MAX_VALUE) {
+                    return false;
+                }
+                for (Object value : parameters) {
+                    if (value != null && !TYPE_TAGS.containsKey(value.getClass())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            int count = parameterTypes == null ? 0 : parameterTypes.length;
+            if (request.getLegacyRequestId() != null
+                    || count != (parameters == null ? 0 : parameters.length)
+                    || count > Byte.MAX_VALUE) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (!TYPE_TAGS.containsKey(parameterTypes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (obj instanceof RpcResponse) {
+            RpcResponse response = (RpcResponse) obj;
+            Object result = response.getResult();
+            return response.getLegacyRequestId() == null
+                    && response.getThrowable() == null
+                    && response.getStatus() == RpcResponse.STATUS_OK
+                    && (result == null || TYPE_TAGS.containsKey(result.getClass()));
+        }
+        return false;
+    }
+
+    @Override
+    public void serialize(Object obj, ByteBuf out) {
+        if (obj instanceof RpcRequest) {
+            RpcRequest request = (RpcRequest) obj;
+            out.writeByte(KIND_REQUEST);
+            out.writeLong(request.getTimeoutMillis());
+            out.writeInt(request.getStreamWindow());
+            writeString(out, request.getClassName());
+            writeString(out, request.getMethodName());
+            Class<?>[] parameterTypes = request.getParameterTypes();
+            Object[] parameters = request.getParameters();
+            if (parameterTypes == null) {
+                int count = parameters == null ? 0 : parameters.length;
+                out.writeByte(count);
+                for (int i = 0; i < count; i++) {
+                    Object value = parameters[i];
+                    out.writeByte(value == null ? 0 : TYPE_TAGS.get(value.getClass()));
+                    writeValue(out, value);
+                }
+                return;
+            }
+            int count = parameterTypes.length;
+            out.writeByte(count);
+            for (int i = 0; i < count; i++) {
+                byte tag = TYPE_TAGS.get(parameterTypes[i]);
+                out.writeByte(tag);
+                writeValue(out, parameters[i]);
+            }
+        } else {
+            RpcResponse response = (RpcResponse) obj;
+            out.writeByte(KIND_RESPONSE);
+            Object result = response.getResult();
+            if (result == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(TYPE_TAGS.get(result.getClass()));
+                writeValue(out, result);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(ByteBuf in, int length, Class<T> clazz) {
+        byte kind = in.readByte();
+        if (kind == KIND_REQUEST) {
+            RpcRequest request = new RpcRequest();
+            request.setTimeoutMillis(in.readLong());
+            request.setStreamWindow(in.readInt());
+            request.setClassName(readString(in));
+            request.setMethodName(readString(in));
+            // 个数和类型标识都来自对端，越界时按损坏的数据包处理
+            int count = in.readByte();
+            if (count < 0 || count > in.readableBytes()) {
+                throw new CorruptedFrameException("invalid parameter count: " + count);
+            }
+            Class<?>[] parameterTypes = new Class<?>[count];
+            Object[] parameters = new Object[count];
+            for (int i = 0; i < count; i++) {
+                parameterTypes[i] = readType(in);
+                parameters[i] = readValue(in, parameterTypes[i]);
+            }
+            request.setParameterTypes(parameterTypes);
+            request.setParameters(parameters);
+            return (T) request;
+        }
+        RpcResponse response = new RpcResponse();
+        Class<?> type = readType(in);
+        if (type != null) {
+            response.setResult(readValue(in, type));
+        }
+        return (T) response;
+    }
+
+    /**
+     * 读取类型标识，0表示null
+     */
+    private Class<?> readType(ByteBuf in) {
+        byte tag = in.readByte();
+        if (tag < 0 || tag >= TYPES.length) {
+            throw new CorruptedFrameException("invalid type tag: " + tag);
+        }
+        return TYPES[tag];
+    }
+
+    /**
+     * 写入一个值，包装类型和String先写一个是否为null的标识
+     */
+    private void writeValue(ByteBuf out, Object value) {
+        if (!(value instanceof Number || value instanceof Boolean
+                || value instanceof Character)) {
+            if (value == null) {
+                out.writeBoolean(false);
+                return;
+            }
+            out.writeBoolean(true);
+            writeString(out, (String) value);
+            return;
+        }
+        out.writeBoolean(true);
+        if (value instanceof Integer) {
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte((Byte) value);
+        } else {
+            out.writeChar((Character) value);
+        }
+    }
+
+    private Object readValue(ByteBuf in, Class<?> type) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        if (type == String.class) {
+            return readString(in);
+        } else if (type == int.class || type == Integer.class) {
+            return in.readInt();
+        } else if (type == long.class || type == Long.class) {
+            return in.readLong();
+        } else if (type == boolean.class || type == Boolean.class) {
+            return in.readBoolean();
+        } else if (type == double.class || type == Double.class) {
+            return in.readDouble();
+        } else if (type == float.class || type == Float.class) {
+            return in.readFloat();
+        } else if (type == short.class || type == Short.class) {
+            return in.readShort();
+        } else if (type == byte.class || type == Byte.class) {
+            return in.readByte();
+        }
+        return in.readChar();
+    }
+
+    /**
+     * 字符串：长度(4) + utf8内容，直接写入ByteBuf不产生中间数组，-1表示null
+     */
+    private void writeString(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        int length = ByteBufUtil.writeUtf8(out, value);
+        out.setInt(lengthIndex, length);
+    }
+
+    private String readString(ByteBuf in) {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.readableBytes()) {
+            throw new CorruptedFrameException("invalid string length: " + length);
+        }
+        String value = in.toString(in.readerIndex(), length, CharsetUtil.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+}
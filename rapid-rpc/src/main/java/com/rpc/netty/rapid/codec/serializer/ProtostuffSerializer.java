@@ -0,0 +1,34 @@
+package com.rpc.netty.rapid.codec.serializer;
+
+import com.rpc.netty.rapid.codec.RpcProtocol;
+import com.rpc.netty.rapid.codec.Serialization;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * protostuff序列化，默认的序列化方式
+ *
+ * @author debao.yang
+ * @since 2026/10/18 12:10
+ */
+public class ProtostuffSerializer implements Serializer {
+
+    @Override
+    public byte getId() {
+        return RpcProtocol.SERIALIZER_PROTOSTUFF;
+    }
+
+    @Override
+    public String getName() {
+        return "protostuff";
+    }
+
+    @Override
+    public void serialize(Object obj, ByteBuf out) {
+        Serialization.serialize(obj, out);
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf in, int length, Class<T> clazz) {
+        return Serialization.deserialize(in, length, clazz);
+    }
+}
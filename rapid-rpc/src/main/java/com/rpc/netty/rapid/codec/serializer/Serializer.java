@@ -0,0 +1,40 @@
+package com.rpc.netty.rapid.codec.serializer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 序列化方式的SPI
+ * 每种实现都有一个固定的数字id，写在v2协议头中，对端按照这个id进行解码
+ *
+ * @author debao.yang
+ * @since 2026/10/18 12:05
+ */
+public interface Serializer {
+
+    /**
+     * 固定的序列化id，一旦发布不能修改
+     */
+    byte getId();
+
+    /**
+     * 配置中使用的名称
+     */
+    String getName();
+
+    /**
+     * 是否能够序列化这个对象，不支持的时候由编码器退回到其他序列化方式
+     */
+    default boolean supports(Object obj) {
+        return true;
+    }
+
+    /**
+     * 序列化：对象->直接写入ByteBuf
+     */
+    void serialize(Object obj, ByteBuf out);
+
+    /**
+     * 反序列化：从ByteBuf中读取length个字节还原出对象
+     */
+    <T> T deserialize(ByteBuf in, int length, Class<T> clazz);
+}
@@ -0,0 +1,60 @@
+package com.rpc.netty.rapid.codec.serializer;
+
+/**
+ * 固定的序列化方式注册表，按照序列化id直接取数组
+ *
+ * @author debao.yang
+ * @since 2026/10/18 12:40
+ */
+public final class SerializerRegistry {
+
+    public static final Serializer PROTOSTUFF = new ProtostuffSerializer();
+
+    public static final JacksonSerializer JACKSON = new JacksonSerializer();
+
+    public static final Serializer PRIMITIVE = new PrimitiveSerializer();
+
+    private static final Serializer[] SERIALIZERS = new Serializer[8];
+
+    static {
+        register(PROTOSTUFF);
+        register(JACKSON);
+        register(PRIMITIVE);
+    }
+
+    private SerializerRegistry() {
+    }
+
+    private static void register(Serializer serializer) {
+        SERIALIZERS[serializer.getId()] = serializer;
+    }
+
+    /**
+     * 登记服务接口，允许jackson还原接口的参数和返回值类型
+     */
+    public static void registerServiceTypes(Class<?> interfaceClass) {
+        JACKSON.allowTypesOf(interfaceClass);
+    }
+
+    /**
+     * 通过序列化id获取，不存在返回null
+     */
+    public static Serializer get(byte id) {
+        if (id <= 0 || id >= SERIALIZERS.length) {
+            return null;
+        }
+        return SERIALIZERS[id];
+    }
+
+    /**
+     * 通过配置的名称获取
+     */
+    public static Serializer get(String name) {
+        for (Serializer serializer : SERIALIZERS) {
+            if (serializer != null && serializer.getName().equalsIgnoreCase(name)) {
+                return serializer;
+            }
+        }
+        throw new IllegalArgumentException("unknown serializer: " + name);
+    }
+}
@@ -0,0 +1,166 @@
+package com.rpc.netty.rapid.config.consumer;
+
+import com.rpc.netty.rapid.client.loadbalance.LoadBalancer;
+import com.rpc.netty.rapid.client.loadbalance.RoundRobinLoadBalancer;
+import com.rpc.netty.rapid.codec.RpcProtocol;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
+import com.rpc.netty.rapid.local.RpcLocalInvocation;
+import com.rpc.netty.rapid.transport.RpcSocketOptions;
+import com.rpc.netty.rapid.transport.RpcTransportType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 客户端启动配置类
+ *
+ * @author debao.yang
+ * @since 2026/10/18 13:10
+ */
+@Getter
+@Setter
+public class RpcClientConfig {
+
+    /**
+     * 优先使用的序列化方式，按优先级排列，连接建立时和服务端协商
+     * 协商出的序列化方式都不支持某条消息时退回到protostuff
+     */
+    private List<String> serializers = Arrays.asList("primitive", "protostuff");
+
+    /**
+     * 自定义的回调执行器，优先级高于callbackThreads
+     */
+    private Executor callbackExecutor;
+
+    /**
+     * 大于0时创建一个所有调用共享的回调线程池(回调中有阻塞操作时使用)
+     * 默认为0，回调直接在Netty的EventLoop线程中执行
+     */
+    private int callbackThreads = 0;
+
+    /**
+     * 回调线程池的队列长度，队列已满时回调在完成的线程(EventLoop)中直接执行，
+     * 慢回调会拖慢读取，而不是让排队的回调无限占用内存
+     */
+    private int callbackQueueCapacity = 65536;
+
+    /**
+     * 按接口配置的负载均衡策略，key是接口的全限定名，没有配置的接口使用轮询
+     */
+    private Map<String, LoadBalancer> loadBalancers = new ConcurrentHashMap<>();
+
+    public void setLoadBalancer(Class<?> interfaceClass, LoadBalancer loadBalancer) {
+        loadBalancers.put(interfaceClass.getName(), loadBalancer);
+    }
+
+    public LoadBalancer getLoadBalancer(Class<?> interfaceClass) {
+        LoadBalancer loadBalancer = loadBalancers.get(interfaceClass.getName());
+        return loadBalancer != null ? loadBalancer : new RoundRobinLoadBalancer();
+    }
+
+    /**
+     * 每个服务节点常驻的连接个数
+     */
+    private int connectionsPerEndpoint = 1;
+
+    /**
+     * 每个服务节点最多的连接个数，连接都比较忙的时候自动扩容到这个值
+     */
+    private int maxConnectionsPerEndpoint = 4;
+
+    /**
+     * 单个连接上在途请求的上限(软上限)，节点饱和时换其他节点，所有节点都饱和时请求直接失败
+     */
+    private int maxInFlightPerConnection = 4096;
+
+    /**
+     * 最空闲的连接的在途请求达到这个值时扩容一个连接
+     */
+    private int connectionGrowThreshold = 256;
+
+    /**
+     * 合并写：调用线程只把请求放进连接的写队列，由EventLoop批量写出后统一flush
+     * 关闭时每个请求单独writeAndFlush
+     */
+    private boolean writeBatching = true;
+
+    /**
+     * 合并写时一次flush最多携带的请求个数
+     */
+    private int flushMaxMessages = 64;
+
+    /**
+     * 合并写时待写出的字节数达到这个值就flush
+     */
+    private int flushMaxBytes = 64 * 1024;
+
+    /**
+     * 合并写时为了攒批额外等待的时间(微秒)，0表示只合并同一个EventLoop周期内到达的请求
+     */
+    private long flushDelayMicros = 0;
+
+    /**
+     * 同步调用使用cglib生成的桩代码，关闭时使用JDK动态代理
+     */
+    private boolean bytecodeStubs = true;
+
+    /**
+     * 握手时要求服务端下发方法字典，之后的请求只携带varint的方法id，不再携带类名、方法名和参数类型
+     */
+    private boolean methodDictionary = true;
+
+    /**
+     * 延迟反序列化：配置了回调执行器时，EventLoop只解析响应的包头，响应在回调执行器中反序列化
+     * 没有回调执行器时仍然在EventLoop中完整解码
+     */
+    private boolean lazyDeserialization = true;
+
+    /**
+     * 单条消息的最大长度(字节)，超过一个数据帧的消息拆分成分片传输
+     */
+    private int maxMessageLength = RpcProtocol.DEFAULT_MAX_MESSAGE_LENGTH;
+
+    /**
+     * 流式调用的信用窗口：服务端最多先发出这么多个还没有被消费的元素
+     * 双向流式调用中两个方向使用同一个窗口，客户端也最多先发出这么多个服务端还没有处理的元素
+     */
+    private int streamWindow = RpcProtocol.DEFAULT_STREAM_WINDOW;
+
+    /**
+     * 客户端配置的某个服务地址就是当前进程中的服务端时，同步调用的代理直接在调用线程中执行
+     * 预先生成的调用器，不经过序列化和网络；流式调用仍然走网络
+     * 默认关闭，打开时选择参数和返回值是直接传递引用还是复制一份
+     */
+    private RpcLocalInvocation localInvocation = RpcLocalInvocation.DISABLED;
+
+    /**
+     * 网络传输方式，默认在Linux上native epoll可用时使用epoll
+     */
+    private RpcTransportType transport = RpcTransportType.AUTO;
+
+    /**
+     * 所有连接共享的IO线程个数，小于等于0时使用Netty的默认值(CPU核数的2倍)
+     */
+    private int ioThreads = 0;
+
+    /**
+     * 发起连接的socket参数
+     */
+    private RpcSocketOptions socketOptions = new RpcSocketOptions();
+
+    /**
+     * 转换成序列化id，用于握手
+     */
+    public byte[] getSerializerIds() {
+        byte[] ids = new byte[serializers.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SerializerRegistry.get(serializers.get(i)).getId();
+        }
+        return ids;
+    }
+}
@@ -13,6 +13,16 @@ public class ProviderConfig extends RpcConfigAbstract {
 
     protected Object ref;
 
+    /**
+     * 大于0时这个服务使用独立的线程池(舱壁隔离)，慢服务不会占满共享线程池
+     */
+    protected int threads = 0;
+
+    /**
+     * 独立线程池的队列长度
+     */
+    protected int queueCapacity = 1024;
+
     public Object getRef() {
         return ref;
     }
@@ -20,4 +30,20 @@ public class ProviderConfig extends RpcConfigAbstract {
     public void setRef(Object ref) {
         this.ref = ref;
     }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
 }
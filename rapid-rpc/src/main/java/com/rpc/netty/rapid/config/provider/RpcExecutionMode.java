@@ -0,0 +1,26 @@
+package com.rpc.netty.rapid.config.provider;
+
+/**
+ * 服务端执行业务方法的方式
+ *
+ * @author debao.yang
+ * @since 2026/10/18 17:40
+ */
+public enum RpcExecutionMode {
+
+    /**
+     * 所有连接共享一个有界线程池
+     */
+    SHARED_POOL,
+
+    /**
+     * 直接在IO线程中执行，只适合所有方法都不阻塞的服务
+     */
+    IO_THREAD,
+
+    /**
+     * 每个请求一个虚拟线程，同时执行的请求个数不超过maxVirtualThreads，
+     * 运行时不支持虚拟线程时退回到SHARED_POOL
+     */
+    VIRTUAL_THREAD
+}
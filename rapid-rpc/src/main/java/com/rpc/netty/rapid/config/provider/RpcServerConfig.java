@@ -1,6 +1,9 @@
 package com.rpc.netty.rapid.config.provider;
 
+import com.rpc.netty.rapid.codec.RpcProtocol;
 import com.rpc.netty.rapid.server.RpcServer;
+import com.rpc.netty.rapid.transport.RpcSocketOptions;
+import com.rpc.netty.rapid.transport.RpcTransportType;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +27,140 @@ public class RpcServerConfig {
     @Setter
     private List<ProviderConfig> providerConfigs;
 
+    /**
+     * 工作线程中完成的响应放入连接的写队列，由IO线程批量写出后统一flush
+     * 关闭时每个响应单独writeAndFlush
+     */
+    @Getter
+    @Setter
+    private boolean responseBatching = true;
+
+    /**
+     * 合并写时一次flush最多携带的响应个数
+     */
+    @Getter
+    @Setter
+    private int flushMaxResponses = 64;
+
+    /**
+     * 标记了RpcNonBlocking的方法直接在IO线程中执行，响应在本次读完成时统一flush
+     */
+    @Getter
+    @Setter
+    private boolean invokeNonBlockingOnIoThread = true;
+
+    /**
+     * 业务方法的执行方式，配置了独立线程池的服务不受这个配置影响
+     */
+    @Getter
+    @Setter
+    private RpcExecutionMode executionMode = RpcExecutionMode.SHARED_POOL;
+
+    /**
+     * 共享线程池的线程个数
+     */
+    @Getter
+    @Setter
+    private int workerThreads = 200;
+
+    /**
+     * 共享线程池的队列长度
+     */
+    @Getter
+    @Setter
+    private int workerQueueCapacity = 65536;
+
+    /**
+     * VIRTUAL_THREAD模式下同时执行的请求上限，达到上限之后的请求直接返回过载响应
+     * 虚拟线程不排队，排队时间预算在这个模式下不起作用，准入控制只靠这个上限
+     */
+    @Getter
+    @Setter
+    private int maxVirtualThreads = 10000;
+
+    /**
+     * 请求在线程池队列中等待的时间预算(毫秒)，超过之后不再执行，直接返回过载响应
+     * 小于等于0表示不限制
+     */
+    @Getter
+    @Setter
+    private long maxQueueTimeMillis = 1000;
+
+    /**
+     * 延迟反序列化：使用方法字典的请求在IO线程中只解析包头和方法id，参数在执行方法的线程中反序列化
+     * 大请求不会阻塞同一个EventLoop上的其他连接
+     */
+    @Getter
+    @Setter
+    private boolean lazyDeserialization = true;
+
+    /**
+     * 单条消息的最大长度(字节)，超过一个数据帧的消息拆分成分片传输
+     */
+    @Getter
+    @Setter
+    private int maxMessageLength = RpcProtocol.DEFAULT_MAX_MESSAGE_LENGTH;
+
+    /**
+     * 网络传输方式，默认在Linux上native epoll可用时使用epoll
+     */
+    @Getter
+    @Setter
+    private RpcTransportType transport = RpcTransportType.AUTO;
+
+    /**
+     * 接受连接的线程个数
+     */
+    @Getter
+    @Setter
+    private int bossThreads = 1;
+
+    /**
+     * 监听socket的accept队列长度(SO_BACKLOG)，实际值不超过内核的net.core.somaxconn
+     */
+    @Getter
+    @Setter
+    private int backlog = 1024;
+
+    /**
+     * 监听socket的个数：大于1时在epoll下通过SO_REUSEPORT把多个监听socket绑定到同一个端口，
+     * 每个监听socket有自己的accept线程，由内核把新连接分散到各个监听socket上；NIO下只绑定一个
+     */
+    @Getter
+    @Setter
+    private int acceptors = 1;
+
+    /**
+     * 不为空时在TCP端口之外再监听这个路径上的unix domain socket(需要epoll)，
+     * 同一台机器上的客户端可以通过unix://路径连接，绕过TCP协议栈
+     */
+    @Getter
+    @Setter
+    private String unixSocketPath;
+
+    /**
+     * 不为空时再监听这个目录上的共享内存传输，同一台机器上的客户端通过shm://目录连接，
+     * 请求和响应经过内存映射文件中的环形缓冲交换，每个连接两端各占用一个读线程
+     */
+    @Getter
+    @Setter
+    private String sharedMemoryPath;
+
+    /**
+     * 处理连接读写的IO线程个数，小于等于0时使用Netty的默认值(CPU核数的2倍)
+     */
+    @Getter
+    @Setter
+    private int ioThreads = 0;
+
+    /**
+     * 接入连接的socket参数
+     */
+    @Getter
+    @Setter
+    private RpcSocketOptions socketOptions = new RpcSocketOptions();
+
+    @Getter
     private RpcServer rpcServer = null;
 
     public RpcServerConfig(List<ProviderConfig> providerConfigs) {
@@ -33,7 +170,7 @@ public class RpcServerConfig {
     public void exporter() {
         if (rpcServer == null) {
             try {
-                rpcServer = new RpcServer(host + ":" + port);
+                rpcServer = new RpcServer(host + ":" + port, this);
             } catch (Exception e) {
                 log.error("RpcServerConfig exporter exception: ", e);
             }
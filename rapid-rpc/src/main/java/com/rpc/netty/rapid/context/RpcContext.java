@@ -0,0 +1,81 @@
+package com.rpc.netty.rapid.context;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 当前线程上的rpc调用上下文
+ * 服务端执行业务方法之前设置调用方的截止时间，业务方法中再发起的rpc调用自动继承剩余的时间
+ *
+ * @author debao.yang
+ * @since 2026/10/18 18:05
+ */
+public final class RpcContext {
+
+    private static final ThreadLocal<RpcContext> LOCAL =
+            ThreadLocal.withInitial(RpcContext::new);
+
+    /**
+     * 本地的截止时间(System.nanoTime)，0表示没有截止时间
+     */
+    private long deadlineNanos;
+
+    private RpcContext() {
+    }
+
+    public static RpcContext current() {
+        return LOCAL.get();
+    }
+
+    /**
+     * 服务端执行业务方法之前设置，执行完之后调用clear
+     *
+     * @param deadlineNanos 本地的截止时间，0表示没有截止时间
+     * @author debao.yang
+     * @since 2026/10/18 18:06
+     */
+    public static void setDeadlineNanos(long deadlineNanos) {
+        LOCAL.get().deadlineNanos = deadlineNanos;
+    }
+
+    public static void clear() {
+        LOCAL.get().deadlineNanos = 0;
+    }
+
+    /**
+     * 按照当前上下文的剩余时间收紧调用的超时时间，嵌套调用不会超过上游的截止时间
+     *
+     * @param timeoutMillis 调用自己配置的超时时间(毫秒)
+     * @return 实际使用的超时时间，小于等于0表示上游的截止时间已经过了
+     * @author debao.yang
+     * @since 2026/10/18 18:08
+     */
+    public static long inheritTimeout(long timeoutMillis) {
+        RpcContext context = LOCAL.get();
+        if (!context.hasDeadline()) {
+            return timeoutMillis;
+        }
+        return Math.min(timeoutMillis, context.getRemainingMillis());
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != 0;
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * 剩余的时间(毫秒)，没有截止时间时返回Long.MAX_VALUE
+     */
+    public long getRemainingMillis() {
+        if (!hasDeadline()) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return hasDeadline() && deadlineNanos - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.rpc.netty.rapid.local;
+
+import com.rpc.netty.rapid.codec.Serialization;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 进程内调用时参数和返回值的复制
+ * 不可变的值直接返回；其他的值放进一个holder中用protostuff序列化再反序列化一次，
+ * 和网络调用看到的对象一致，只是省掉了协议头、网络和线程切换
+ *
+ * @author debao.yang
+ * @since 2026/10/19 01:15
+ */
+final class RpcLocalCopier {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class));
+
+    private RpcLocalCopier() {
+    }
+
+    /**
+     * 复制参数数组，所有参数都不可变时返回原数组
+     */
+    static Object[] copyArgs(Object[] args) {
+        if (args == null || args.length == 0) {
+            return args;
+        }
+        boolean immutable = true;
+        for (Object arg : args) {
+            if (!isImmutable(arg)) {
+                immutable = false;
+                break;
+            }
+        }
+        if (immutable) {
+            return args;
+        }
+        // 参数一起复制，同一个对象被多个参数引用时复制之后仍然是各自的副本(和网络调用一致)
+        Holder holder = new Holder();
+        holder.values = args;
+        return Serialization.deserialize(Serialization.serialize(holder),
+                Holder.class).values;
+    }
+
+    static Object copy(Object value) {
+        if (isImmutable(value)) {
+            return value;
+        }
+        Holder holder = new Holder();
+        holder.values = new Object[]{value};
+        return Serialization.deserialize(Serialization.serialize(holder),
+                Holder.class).values[0];
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || IMMUTABLE_TYPES.contains(value.getClass())
+                || value instanceof Enum;
+    }
+
+    /**
+     * protostuff只能序列化对象的字段，值放在Object数组中按照实际类型写入
+     */
+    private static final class Holder {
+
+        private Object[] values;
+    }
+}
@@ -0,0 +1,25 @@
+package com.rpc.netty.rapid.local;
+
+/**
+ * 服务提供者就在当前进程中时的调用方式
+ *
+ * @author debao.yang
+ * @since 2026/10/19 01:10
+ */
+public enum RpcLocalInvocation {
+
+    /**
+     * 不做短路，始终通过网络调用(同一个进程中的压测需要走网络)
+     */
+    DISABLED,
+
+    /**
+     * 直接把参数和返回值的引用交给对方，最快，但是双方共享可变对象
+     */
+    PASS_THROUGH,
+
+    /**
+     * 不可变的值(String、基本类型的包装类型、枚举)直接传递，其他的值复制一份，双方互不影响
+     */
+    DEEP_COPY
+}
@@ -0,0 +1,50 @@
+package com.rpc.netty.rapid.local;
+
+import com.rpc.netty.rapid.context.RpcContext;
+import com.rpc.netty.rapid.server.RpcInvoker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在调用线程中直接执行本进程的服务方法
+ * 调用的超时时间作为业务方法的截止时间放入RpcContext，业务方法中再发起的调用照样继承；
+ * 执行本身不会被超时打断(没有其他线程可以放弃等待)
+ *
+ * @author debao.yang
+ * @since 2026/10/19 01:20
+ */
+public final class RpcLocalInvoker {
+
+    private RpcLocalInvoker() {
+    }
+
+    /**
+     * @param invoker       本进程中的调用器
+     * @param args          方法执行的参数
+     * @param timeoutMillis 已经按照上游截止时间收紧过的超时时间
+     * @param invocation    参数和返回值的传递方式
+     * @return 方法的返回值，DEEP_COPY时是一份副本
+     * @author debao.yang
+     * @since 2026/10/19 01:21
+     */
+    public static Object invoke(RpcInvoker invoker, Object[] args, long timeoutMillis,
+                                RpcLocalInvocation invocation) throws Throwable {
+        boolean copy = invocation == RpcLocalInvocation.DEEP_COPY;
+        Object[] parameters = copy ? RpcLocalCopier.copyArgs(args) : args;
+        RpcContext context = RpcContext.current();
+        long previousDeadline = context.getDeadlineNanos();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (previousDeadline != 0 && previousDeadline - deadline < 0) {
+            deadline = previousDeadline;
+        }
+        RpcContext.setDeadlineNanos(deadline);
+        Object result;
+        try {
+            // 业务异常已经由调用器拆开，和远程调用一样原样抛给调用方
+            result = invoker.invoke(parameters);
+        } finally {
+            RpcContext.setDeadlineNanos(previousDeadline);
+        }
+        return copy ? RpcLocalCopier.copy(result) : result;
+    }
+}
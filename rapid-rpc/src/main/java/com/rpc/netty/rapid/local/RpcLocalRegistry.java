@@ -0,0 +1,163 @@
+package com.rpc.netty.rapid.local;
+
+import com.rpc.netty.rapid.codec.RpcMethodDictionary;
+import com.rpc.netty.rapid.server.RpcInvoker;
+import io.netty.channel.unix.DomainSocketAddress;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的服务注册表
+ * RpcServer注册服务时把预先生成的调用器按照自己监听的地址登记到这里，同一个进程中的客户端代理
+ * 只在自己配置的某个地址就是本进程中的服务端时，才按照方法签名查到调用器后直接在调用线程中执行，
+ * 不经过序列化、网络和线程切换；指向其他机器的客户端不会被进程内无关的服务端接管
+ *
+ * @author debao.yang
+ * @since 2026/10/19 01:05
+ */
+@Slf4j
+public final class RpcLocalRegistry {
+
+    /**
+     * key: 服务端监听地址(见key方法)  value: 方法签名(和RpcMethodDescriptor的签名一致)到调用器
+     */
+    private static final Map<String, Map<String, RpcInvoker>> SERVERS =
+            new ConcurrentHashMap<>();
+
+    private RpcLocalRegistry() {
+    }
+
+    /**
+     * 登记一批调用器，同一个地址上同一个方法后注册的覆盖先注册的
+     *
+     * @param serverAddresses 服务端监听的所有地址
+     * @param invokers        服务端新注册的调用器
+     * @author debao.yang
+     * @since 2026/10/19 01:06
+     */
+    public static void register(Collection<SocketAddress> serverAddresses,
+                                RpcInvoker[] invokers) {
+        for (SocketAddress address : serverAddresses) {
+            Map<String, RpcInvoker> server = SERVERS.computeIfAbsent(key(address),
+                    k -> new ConcurrentHashMap<>());
+            for (RpcInvoker invoker : invokers) {
+                server.put(signature(invoker), invoker);
+            }
+        }
+    }
+
+    /**
+     * 服务端关闭时移除自己登记的调用器，已经被其他服务端覆盖的不受影响
+     *
+     * @param serverAddresses 服务端监听的所有地址
+     * @param invokers        服务端的所有调用器
+     * @author debao.yang
+     * @since 2026/10/19 01:07
+     */
+    public static void unregister(Collection<SocketAddress> serverAddresses,
+                                  RpcInvoker[] invokers) {
+        for (SocketAddress address : serverAddresses) {
+            Map<String, RpcInvoker> server = SERVERS.get(key(address));
+            if (server == null) {
+                continue;
+            }
+            for (RpcInvoker invoker : invokers) {
+                server.remove(signature(invoker), invoker);
+            }
+        }
+    }
+
+    /**
+     * @param signature   方法签名
+     * @param addressKeys 客户端配置的服务地址对应的key，见keys方法
+     * @return 客户端配置的地址上本进程中提供这个方法的调用器，没有时返回null
+     */
+    public static RpcInvoker lookup(String signature, String[] addressKeys) {
+        for (String addressKey : addressKeys) {
+            Map<String, RpcInvoker> server = SERVERS.get(addressKey);
+            if (server != null) {
+                RpcInvoker invoker = server.get(signature);
+                if (invoker != null) {
+                    return invoker;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 客户端配置的服务地址对应的key，地址变化时计算一次
+     * 指向本机的TCP地址还能匹配监听在通配地址(0.0.0.0)上同一个端口的服务端
+     *
+     * @param clientAddresses 客户端配置的所有服务地址
+     * @return java.lang.String[]
+     * @author debao.yang
+     * @since 2026/10/19 01:08
+     */
+    public static String[] keys(Collection<SocketAddress> clientAddresses) {
+        List<String> keys = new ArrayList<>();
+        for (SocketAddress address : clientAddresses) {
+            keys.add(key(address));
+            if (address instanceof InetSocketAddress) {
+                InetSocketAddress inetAddress = (InetSocketAddress) address;
+                if (isLocal(inetAddress.getAddress())) {
+                    keys.add(anyLocalKey(inetAddress.getPort()));
+                }
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    /**
+     * TCP地址按照ip和端口区分(通配地址统一成*)，unix domain socket和共享内存按照路径区分
+     */
+    private static String key(SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            InetSocketAddress inetAddress = (InetSocketAddress) address;
+            InetAddress ip = inetAddress.getAddress();
+            if (ip == null) {
+                return inetAddress.getHostString() + ":" + inetAddress.getPort();
+            }
+            return ip.isAnyLocalAddress() ? anyLocalKey(inetAddress.getPort())
+                    : ip.getHostAddress() + ":" + inetAddress.getPort();
+        }
+        if (address instanceof DomainSocketAddress) {
+            return "unix://" + ((DomainSocketAddress) address).path();
+        }
+        return address.toString();
+    }
+
+    private static String anyLocalKey(int port) {
+        return "*:" + port;
+    }
+
+    private static boolean isLocal(InetAddress ip) {
+        if (ip == null) {
+            return false;
+        }
+        if (ip.isLoopbackAddress() || ip.isAnyLocalAddress()) {
+            return true;
+        }
+        try {
+            return NetworkInterface.getByInetAddress(ip) != null;
+        } catch (SocketException e) {
+            log.warn("can not check whether {} is a local address", ip, e);
+            return false;
+        }
+    }
+
+    private static String signature(RpcInvoker invoker) {
+        return RpcMethodDictionary.signature(invoker.getClassName(),
+                invoker.getMethodName(), invoker.getParameterTypes());
+    }
+}
@@ -0,0 +1,71 @@
+package com.rpc.netty.rapid.server;
+
+import com.rpc.netty.rapid.codec.RpcMethodDictionary;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+/**
+ * 方法字典的下发
+ * 1、客户端握手时要求使用方法字典，连接加入订阅并下发当前的全量字典
+ * 2、运行期间注册新的服务，向所有订阅的连接下发增量字典
+ * 先加入订阅再取全量快照，注册时先发布调用器再下发增量，所以并发时条目只会重复不会遗漏(客户端按签名覆盖)
+ *
+ * @author debao.yang
+ * @since 2026/10/18 19:50
+ */
+public class RpcDictionaryPublisher {
+
+    private final RpcInvokerRegistry invokerRegistry;
+
+    /**
+     * 订阅了方法字典的连接，连接关闭时自动移除
+     */
+    private final ChannelGroup channels = new DefaultChannelGroup(
+            "rapid-rpc-dictionary", GlobalEventExecutor.INSTANCE);
+
+    public RpcDictionaryPublisher(RpcInvokerRegistry invokerRegistry) {
+        this.invokerRegistry = invokerRegistry;
+    }
+
+    /**
+     * 连接订阅方法字典并下发全量
+     *
+     * @param channel 握手时要求使用方法字典的连接
+     * @author debao.yang
+     * @since 2026/10/18 19:52
+     */
+    public void subscribe(Channel channel) {
+        channels.add(channel);
+        RpcInvoker[] invokers = invokerRegistry.getInvokers();
+        if (invokers.length > 0) {
+            channel.writeAndFlush(toDictionary(invokers));
+        }
+    }
+
+    /**
+     * 向所有订阅的连接下发新注册的方法
+     *
+     * @param invokers 新注册的调用器
+     * @author debao.yang
+     * @since 2026/10/18 19:55
+     */
+    public void publish(RpcInvoker[] invokers) {
+        if (invokers.length > 0 && !channels.isEmpty()) {
+            channels.writeAndFlush(toDictionary(invokers));
+        }
+    }
+
+    private RpcMethodDictionary toDictionary(RpcInvoker[] invokers) {
+        int[] methodIds = new int[invokers.length];
+        String[] signatures = new String[invokers.length];
+        for (int i = 0; i < invokers.length; i++) {
+            RpcInvoker invoker = invokers[i];
+            methodIds[i] = invoker.getMethodId();
+            signatures[i] = RpcMethodDictionary.signature(invoker.getClassName(),
+                    invoker.getMethodName(), invoker.getParameterTypes());
+        }
+        return new RpcMethodDictionary(methodIds, signatures);
+    }
+}
@@ -0,0 +1,85 @@
+package com.rpc.netty.rapid.server;
+
+import com.rpc.netty.rapid.codec.RpcProtocol;
+import lombok.Getter;
+import org.springframework.cglib.reflect.FastMethod;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 预先解析好的方法调用器
+ * 注册服务的时候就把FastMethod准备好，请求到来时直接调用，不再做任何反射查找
+ *
+ * @author debao.yang
+ * @since 2026/10/18 10:12
+ */
+@Getter
+public class RpcInvoker {
+
+    /**
+     * 紧凑的方法id，即在RpcInvokerRegistry数组中的下标
+     */
+    private final int methodId;
+
+    private final String className;
+
+    private final String methodName;
+
+    private final Class<?>[] parameterTypes;
+
+    private final Object serviceRef;
+
+    private final FastMethod fastMethod;
+
+    /**
+     * 方法标记了RpcNonBlocking，可以直接在IO线程中执行
+     */
+    private final boolean nonBlocking;
+
+    /**
+     * 返回值是Iterator或者Stream，结果按照流式调用逐个元素发送
+     */
+    private final boolean streaming;
+
+    /**
+     * 双向流式调用(参数和返回值都是RpcStreamObserver)，在流自己的串行执行器中处理
+     */
+    private final boolean callStreaming;
+
+    public RpcInvoker(int methodId,
+                      String className,
+                      Object serviceRef,
+                      FastMethod fastMethod,
+                      boolean nonBlocking) {
+        this.methodId = methodId;
+        this.className = className;
+        this.methodName = fastMethod.getName();
+        this.parameterTypes = fastMethod.getParameterTypes();
+        this.serviceRef = serviceRef;
+        this.fastMethod = fastMethod;
+        this.streaming = RpcProtocol.isStreaming(fastMethod.getReturnType());
+        this.callStreaming = RpcProtocol.isCallStreaming(fastMethod.getReturnType(),
+                fastMethod.getParameterTypes());
+        // 双向流式调用发送时可能等待客户端的信用，不能在IO线程中执行
+        this.nonBlocking = nonBlocking && !callStreaming;
+    }
+
+    /**
+     * 执行具体的本地服务方法
+     * FastMethod把业务方法抛出的异常包装成InvocationTargetException，这里统一拆开，
+     * 远程调用、流式调用和进程内的短路调用都把业务方法原本的异常交给调用方
+     *
+     * @param parameters 方法执行的参数
+     * @return java.lang.Object
+     * @throws Throwable 业务方法抛出的异常
+     * @author debao.yang
+     * @since 2026/10/18 10:15
+     */
+    public Object invoke(Object[] parameters) throws Throwable {
+        try {
+            return fastMethod.invoke(serviceRef, parameters);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.rpc.netty.rapid.server;
+
+import com.rpc.netty.rapid.codec.RpcMethodDictionary;
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cglib.reflect.FastClass;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务端的调用器注册表
+ * 1、registerProcessor的时候为接口的每个方法生成一个RpcInvoker，并分配一个紧凑的方法id
+ * 2、按方法id查找是一次数组访问，按名称查找是两次map访问加上重载方法的参数类型比较
+ * 3、同一个接口重新注册时，签名不变的方法沿用原来的方法id，调用器换成绑定新实现的，
+ *    新实现中已经没有的方法原来的id置空，客户端方法字典中的旧id不会再调用到被替换的实现
+ *
+ * @author debao.yang
+ * @since 2026/10/18 10:20
+ */
+@Slf4j
+public class RpcInvokerRegistry {
+
+    private static final RpcInvoker[] EMPTY = new RpcInvoker[0];
+
+    /**
+     * 下标即方法id，注册的时候整体替换(copy on write)，重新注册后移除的方法对应的位置为null
+     */
+    private volatile RpcInvoker[] invokers = EMPTY;
+
+    /**
+     * key: 接口全限定名  value: (key: 方法名 value: 所有的重载方法)
+     */
+    private final Map<String, Map<String, RpcInvoker[]>> serviceMap =
+            new ConcurrentHashMap<>();
+
+    /**
+     * 注册一个服务提供者，预先生成接口下所有方法的调用器
+     *
+     * @param providerConfig 服务提供者的配置
+     * @return 这次新注册的调用器
+     * @author debao.yang
+     * @since 2026/10/18 10:25
+     */
+    public synchronized RpcInvoker[] register(ProviderConfig providerConfig) {
+        String className = providerConfig.getInterface();
+        Object serviceRef = providerConfig.getRef();
+        Class<?> interfaceClass = loadInterface(className, serviceRef);
+        SerializerRegistry.registerServiceTypes(interfaceClass);
+
+        // 同一个服务的FastClass只需要生成一次
+        FastClass serviceFastClass = FastClass.create(serviceRef.getClass());
+
+        RpcInvoker[] current = this.invokers;
+        Method[] methods = interfaceClass.getMethods();
+
+        // 重新注册同一个接口：按签名找到原来的方法id，没有沿用的位置最后置空
+        Map<String, Integer> previousIds = new HashMap<>();
+        for (RpcInvoker previous : current) {
+            if (previous != null && previous.getClassName().equals(className)) {
+                previousIds.put(RpcMethodDictionary.signature(className,
+                        previous.getMethodName(), previous.getParameterTypes()),
+                        previous.getMethodId());
+            }
+        }
+        // 同一个签名只有第一次出现时沿用原来的id(继承的多个父接口中可能声明了同样的方法)
+        String[] signatures = new String[methods.length];
+        Set<String> reused = new HashSet<>();
+        int appended = 0;
+        for (int i = 0; i < methods.length; i++) {
+            signatures[i] = RpcMethodDictionary.signature(className,
+                    methods[i].getName(), methods[i].getParameterTypes());
+            if (!(previousIds.containsKey(signatures[i]) && reused.add(signatures[i]))) {
+                appended++;
+            }
+        }
+        RpcInvoker[] newInvokers = Arrays.copyOf(current, current.length + appended);
+        RpcInvoker[] registered = new RpcInvoker[methods.length];
+        Map<String, RpcInvoker[]> methodMap = new HashMap<>();
+
+        int nextMethodId = current.length;
+        for (int i = 0; i < methods.length; i++) {
+            Method method = methods[i];
+            Integer previousId = previousIds.remove(signatures[i]);
+            int methodId = previousId != null ? previousId : nextMethodId++;
+            RpcInvoker invoker = new RpcInvoker(methodId, className,
+                    serviceRef, serviceFastClass.getMethod(method),
+                    isNonBlocking(method, serviceRef.getClass()));
+            newInvokers[methodId] = invoker;
+            registered[i] = invoker;
+
+            RpcInvoker[] overloads = methodMap.getOrDefault(method.getName(),
+                    EMPTY);
+            overloads = Arrays.copyOf(overloads, overloads.length + 1);
+            overloads[overloads.length - 1] = invoker;
+            methodMap.put(method.getName(), overloads);
+        }
+
+        for (int methodId : previousIds.values()) {
+            newInvokers[methodId] = null;
+        }
+
+        this.invokers = newInvokers;
+        serviceMap.put(className, methodMap);
+        log.info("register service: {}, methods: {}, reused method ids: {}",
+                className, methods.length, methods.length - appended);
+        return registered;
+    }
+
+    /**
+     * 接口方法或者实现类的方法上标记了RpcNonBlocking
+     */
+    private boolean isNonBlocking(Method method, Class<?> serviceClass) {
+        if (method.isAnnotationPresent(RpcNonBlocking.class)) {
+            return true;
+        }
+        try {
+            return serviceClass.getMethod(method.getName(),
+                    method.getParameterTypes()).isAnnotationPresent(RpcNonBlocking.class);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private Class<?> loadInterface(String className, Object serviceRef) {
+        try {
+            return Class.forName(className, true,
+                    serviceRef.getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("service interface not found: "
+                    + className, e);
+        }
+    }
+
+    /**
+     * 通过方法id查找调用器
+     *
+     * @param methodId 紧凑的方法id
+     * @return com.rpc.netty.rapid.server.RpcInvoker
+     * @author debao.yang
+     * @since 2026/10/18 10:31
+     */
+    public RpcInvoker getInvoker(int methodId) {
+        RpcInvoker[] invokers = this.invokers;
+        if (methodId < 0 || methodId >= invokers.length) {
+            return null;
+        }
+        return invokers[methodId];
+    }
+
+    /**
+     * 通过请求中的类名、方法名和参数类型查找调用器
+     *
+     * @param rpcRequest rpc请求的参数
+     * @return com.rpc.netty.rapid.server.RpcInvoker
+     * @author debao.yang
+     * @since 2026/10/18 10:33
+     */
+    public RpcInvoker lookup(RpcRequest rpcRequest) {
+        Map<String, RpcInvoker[]> methodMap =
+                serviceMap.get(rpcRequest.getClassName());
+        if (methodMap == null) {
+            return null;
+        }
+        RpcInvoker[] overloads = methodMap.get(rpcRequest.getMethodName());
+        if (overloads == null) {
+            return null;
+        }
+        Class<?>[] parameterTypes = rpcRequest.getParameterTypes();
+        for (RpcInvoker invoker : overloads) {
+            if (matches(invoker.getParameterTypes(), parameterTypes)) {
+                return invoker;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(Class<?>[] expected, Class<?>[] actual) {
+        int length = actual == null ? 0 : actual.length;
+        if (expected.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected[i] != actual[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前所有有效的调用器，不包含重新注册后已经移除的方法，方法id见RpcInvoker.getMethodId
+     */
+    public RpcInvoker[] getInvokers() {
+        RpcInvoker[] invokers = this.invokers;
+        int count = 0;
+        for (RpcInvoker invoker : invokers) {
+            if (invoker != null) {
+                count++;
+            }
+        }
+        if (count == invokers.length) {
+            return invokers.clone();
+        }
+        RpcInvoker[] valid = new RpcInvoker[count];
+        int index = 0;
+        for (RpcInvoker invoker : invokers) {
+            if (invoker != null) {
+                valid[index++] = invoker;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * 指定接口当前的调用器，重新注册之前用来找出要被替换的调用器
+     *
+     * @param className 接口的全限定名
+     * @return 接口没有注册时返回空数组
+     */
+    public RpcInvoker[] getInvokers(String className) {
+        Map<String, RpcInvoker[]> methodMap = serviceMap.get(className);
+        if (methodMap == null) {
+            return EMPTY;
+        }
+        return methodMap.values().stream()
+                .flatMap(Arrays::stream)
+                .toArray(RpcInvoker[]::new);
+    }
+
+    /**
+     * 已经分配的方法id个数(包括已经移除的方法)
+     */
+    public int size() {
+        return invokers.length;
+    }
+}
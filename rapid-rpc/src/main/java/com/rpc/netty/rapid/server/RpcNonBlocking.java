@@ -0,0 +1,21 @@
+package com.rpc.netty.rapid.server;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一个服务方法不会阻塞(没有IO、锁等待，执行时间很短)
+ * 可以标记在接口方法或者实现类的方法上，服务端开启invokeNonBlockingOnIoThread时
+ * 这样的方法直接在IO线程中执行，省掉线程切换
+ *
+ * @author debao.yang
+ * @since 2026/10/18 17:05
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcNonBlocking {
+}
@@ -2,20 +2,34 @@ package com.rpc.netty.rapid.server;
 
 import com.rpc.netty.rapid.codec.RpcDecoder;
 import com.rpc.netty.rapid.codec.RpcEncoder;
+import com.rpc.netty.rapid.codec.RpcHandshakeHandler;
 import com.rpc.netty.rapid.codec.RpcRequest;
 import com.rpc.netty.rapid.codec.RpcResponse;
 import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.local.RpcLocalRegistry;
+import com.rpc.netty.rapid.transport.RpcAddress;
+import com.rpc.netty.rapid.transport.RpcTransport;
+import com.rpc.netty.rapid.transport.shm.RpcShmAddress;
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.channel.unix.DomainSocketAddress;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 服务端
@@ -26,59 +40,220 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class RpcServer {
 
+    /**
+     * 检查残留的unix socket文件时试探连接的超时时间
+     */
+    private static final long STALE_SOCKET_PROBE_MILLIS = 1000;
+
+    /**
+     * stat中socket文件的类型位
+     */
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
     private String serverAddress;
 
-    private final EventLoopGroup bossGroup = new NioEventLoopGroup();
-    private final EventLoopGroup workGroup = new NioEventLoopGroup();
+    private final RpcTransport transport;
+
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workGroup;
+
+    /**
+     * 监听socket的个数，只有支持SO_REUSEPORT的传输方式才会大于1
+     */
+    private final int acceptors;
+
+    private final List<Channel> serverChannels = new ArrayList<>();
+
+    /**
+     * 实际监听的所有地址，本进程中的服务按照这些地址登记到RpcLocalRegistry
+     */
+    private final List<SocketAddress> boundAddresses = new ArrayList<>();
 
-    private volatile Map<String,/* interface name */Object> handlerMap =
-            new HashMap<>();
+    private final RpcInvokerRegistry invokerRegistry = new RpcInvokerRegistry();
+
+    private final RpcDictionaryPublisher dictionaryPublisher =
+            new RpcDictionaryPublisher(invokerRegistry);
+
+    private final RpcServerConfig serverConfig;
+
+    /**
+     * TCP和unix domain socket的连接使用同样的编解码pipeline
+     */
+    private final ChannelInitializer<Channel> channelInitializer =
+            new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) throws Exception {
+                    ChannelPipeline cp = ch.pipeline();
+                    // RpcDecoder自己按照协议头进行拆包
+                    cp.addLast(new RpcDecoder(RpcRequest.class,
+                            serverConfig.isLazyDeserialization(),
+                            serverConfig.getMaxMessageLength()));
+                    cp.addLast(new RpcEncoder(RpcResponse.class, true,
+                            serverConfig.getMaxMessageLength()));
+                    cp.addLast(new RpcHandshakeHandler());
+                    cp.addLast(new RpcServerHandler(invokerRegistry,
+                            dictionaryPublisher, serverExecutor, serverConfig,
+                            stats));
+                }
+            };
+
+    @Getter
+    private final RpcServerStats stats = new RpcServerStats();
+
+    /**
+     * 所有连接共享的业务执行层
+     */
+    @Getter
+    private final RpcServerExecutor serverExecutor;
 
     public RpcServer(String serverAddress) throws InterruptedException {
+        this(serverAddress, new RpcServerConfig(Collections.emptyList()));
+    }
+
+    public RpcServer(String serverAddress, RpcServerConfig serverConfig)
+            throws InterruptedException {
         this.serverAddress = serverAddress;
+        this.serverConfig = serverConfig;
+        this.serverExecutor = new RpcServerExecutor(serverConfig);
+        this.transport = RpcTransport.resolve(serverConfig.getTransport());
+        if (serverConfig.getAcceptors() > 1 && !transport.supportsReusePort()) {
+            log.warn("{} acceptors need SO_REUSEPORT, not supported by the {} transport,"
+                    + " bind one listening socket", serverConfig.getAcceptors(),
+                    transport.getName());
+            this.acceptors = 1;
+        } else {
+            this.acceptors = Math.max(1, serverConfig.getAcceptors());
+        }
+        // 每个监听socket注册到不同的accept线程上
+        this.bossGroup = transport.newEventLoopGroup(
+                Math.max(serverConfig.getBossThreads(), acceptors), "rapid-rpc-boss");
+        this.workGroup = transport.newEventLoopGroup(serverConfig.getIoThreads(),
+                "rapid-rpc-io");
         this.start();
     }
 
     private void start() throws InterruptedException {
+        SocketAddress address = RpcAddress.parse(serverAddress);
+        if (address == null) {
+            throw new IllegalArgumentException("malformed server address: " + serverAddress);
+        }
+        bind(address);
+        // TCP之外再监听一个unix domain socket，给同一台机器上的客户端使用
+        String unixSocketPath = serverConfig.getUnixSocketPath();
+        if (unixSocketPath != null && !unixSocketPath.isEmpty()
+                && !RpcAddress.isUnix(address)) {
+            bind(new DomainSocketAddress(unixSocketPath));
+        }
+        // 再监听一个共享内存目录，给同一台机器上对延迟最敏感的客户端使用
+        String sharedMemoryPath = serverConfig.getSharedMemoryPath();
+        if (sharedMemoryPath != null && !sharedMemoryPath.isEmpty()
+                && !RpcAddress.isSharedMemory(address)) {
+            bind(new RpcShmAddress(sharedMemoryPath));
+        }
+        log.info("start rapid rpc success!");
+    }
+
+    private void bind(SocketAddress address) throws InterruptedException {
+        boolean unix = RpcAddress.isUnix(address);
+        boolean sharedMemory = RpcAddress.isSharedMemory(address);
         ServerBootstrap sb = new ServerBootstrap();
         sb.group(bossGroup, workGroup)
-                .channel(NioServerSocketChannel.class)
-                .option(ChannelOption.SO_BACKLOG, 128)
-                .childHandler(new ChannelInitializer<SocketChannel>() {
-                    @Override
-                    protected void initChannel(SocketChannel ch) throws Exception {
-                        ChannelPipeline cp = ch.pipeline();
-                        cp.addLast(new LengthFieldBasedFrameDecoder(65536, 0, 4
-                                , 0, 0));
-                        cp.addLast(new RpcDecoder(RpcRequest.class));
-                        cp.addLast(new RpcEncoder(RpcResponse.class));
-                        cp.addLast(new RpcServerHandler(handlerMap));
-                    }
-                });
-        String[] array = serverAddress.split(":");
-        String host = array[0];
-        int port = Integer.parseInt(array[1]);
-
-        ChannelFuture channelFuture = sb.bind(host, port).sync();
-        channelFuture.addListener((ChannelFutureListener) future -> {
-            if (future.isSuccess()) {
-                log.info("server success binding to {}", serverAddress);
-            } else {
-                log.info("server fail binding to {}", serverAddress);
-                throw new Exception("server start fail, cause: " + future.cause());
-            }
-        });
+                .channel(transport.serverChannelClass(address))
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childHandler(channelInitializer);
+        if (!sharedMemory) {
+            sb.option(ChannelOption.SO_BACKLOG, serverConfig.getBacklog());
+        }
+        transport.applyServerOptions(sb, serverConfig.getSocketOptions(), address);
+        // unix domain socket和共享内存不支持SO_REUSEPORT，只绑定一个
+        int count = unix || sharedMemory ? 1 : acceptors;
+        if (unix) {
+            deleteStaleSocketFile((DomainSocketAddress) address);
+        } else if (count > 1) {
+            transport.enableReusePort(sb);
+        }
+        // 每次绑定注册到bossGroup的下一个线程上，多个监听socket各自独立accept
+        for (int i = 0; i < count; i++) {
+            ChannelFuture channelFuture = sb.bind(address).sync();
+            serverChannels.add(channelFuture.channel());
+        }
+        // 端口为0时按照实际绑定的端口登记
+        SocketAddress localAddress = serverChannels.get(serverChannels.size() - 1)
+                .localAddress();
+        boundAddresses.add(localAddress != null ? localAddress : address);
+        log.info("server success binding to {}, transport: {}, acceptors: {}, "
+                        + "backlog: {}", address, transport.getName(), count,
+                serverConfig.getBacklog());
+    }
 
+    /**
+     * 进程异常退出时socket文件会残留，不删除的话再次绑定会失败
+     * 只删除已经没有人监听的socket文件：路径上不是socket(比如配置写错的普通文件)，
+     * 或者还能连接上(另一个服务端正在使用)时绑定失败，不能删掉别人的文件
+     */
+    private void deleteStaleSocketFile(DomainSocketAddress address)
+            throws InterruptedException {
+        Path path = Paths.get(address.path());
+        boolean socket;
+        try {
+            socket = isSocket(path);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            throw new IllegalStateException("can not read unix socket path: " + path, e);
+        }
+        if (!socket) {
+            throw new IllegalStateException("unix socket path exists and is not a "
+                    + "socket: " + path);
+        }
+        if (isListening(address)) {
+            throw new IllegalStateException("unix socket is in use by another "
+                    + "server: " + path);
+        }
         try {
-            channelFuture.await(5, TimeUnit.SECONDS);
-            if (channelFuture.isSuccess()) {
-                log.info("start rapid rpc success!");
-            }
-        } catch (InterruptedException e) {
-            log.error("start rapid rpc occur interrupted, ex: +", e);
+            Files.deleteIfExists(path);
+            log.info("delete stale unix socket file: {}", path);
+        } catch (IOException e) {
+            throw new IllegalStateException("can not delete stale unix socket file: "
+                    + path, e);
         }
     }
 
+    /**
+     * 优先按照stat的文件类型判断，不支持unix属性时退回到"不是普通文件、目录和链接"
+     */
+    private static boolean isSocket(Path path) throws IOException {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode",
+                    LinkOption.NOFOLLOW_LINKS);
+            return (mode & S_IFMT) == S_IFSOCK;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return Files.readAttributes(path, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS).isOther();
+        }
+    }
+
+    /**
+     * 试探连接一次，连接成功或者超时都认为还有服务端在监听
+     */
+    private boolean isListening(DomainSocketAddress address) throws InterruptedException {
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(workGroup)
+                .channel(transport.channelClass(address))
+                .handler(new ChannelInboundHandlerAdapter());
+        ChannelFuture connectFuture = bootstrap.connect(address);
+        if (!connectFuture.await(STALE_SOCKET_PROBE_MILLIS)) {
+            connectFuture.channel().close();
+            return true;
+        }
+        if (connectFuture.isSuccess()) {
+            connectFuture.channel().close();
+            return true;
+        }
+        return false;
+    }
+
     /**
      * 程序注册器
      *
@@ -86,15 +261,26 @@ public class RpcServer {
      * @since 2024/7/2 09:07
      */
     public void registerProcessor(ProviderConfig providerConfig) {
-        // key: providerConfig.interface (userService接口权限命名)
-        // value: providerConfig.ref (userService接口下的具体实现类 userServiceImpl
-        // 实例对象)
-        handlerMap.put(providerConfig.getInterface(), providerConfig.getRef());
+        // 为providerConfig.interface (userService接口权限命名)下的每个方法
+        // 预先生成调用器，绑定到providerConfig.ref (userServiceImpl 实例对象)
+        RpcInvoker[] replaced = invokerRegistry.getInvokers(providerConfig.getInterface());
+        RpcInvoker[] invokers = invokerRegistry.register(providerConfig);
+        serverExecutor.register(providerConfig);
+        // 同一个进程中连接这些地址的客户端可以直接调用，重新注册时先移除绑定旧实现的调用器
+        RpcLocalRegistry.unregister(boundAddresses, replaced);
+        RpcLocalRegistry.register(boundAddresses, invokers);
+        // 运行期间注册的服务，下发到已经建立的连接上
+        dictionaryPublisher.publish(invokers);
     }
 
     public void close() {
+        RpcLocalRegistry.unregister(boundAddresses, invokerRegistry.getInvokers());
+        for (Channel serverChannel : serverChannels) {
+            serverChannel.close();
+        }
         bossGroup.shutdownGracefully();
         workGroup.shutdownGracefully();
+        serverExecutor.shutdown();
 
     }
 
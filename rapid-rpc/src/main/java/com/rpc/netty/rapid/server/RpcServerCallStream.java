@@ -0,0 +1,270 @@
+package com.rpc.netty.rapid.server;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.RpcResponse;
+import com.rpc.netty.rapid.codec.RpcStreamControl;
+import com.rpc.netty.rapid.stream.RpcSerialExecutor;
+import com.rpc.netty.rapid.stream.RpcStreamCredits;
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * 服务端的双向流式调用
+ * 1、打开流的请求和之后客户端发来的每个元素都提交到流自己的串行执行器，按顺序交给服务实现返回的观察者
+ * 2、每处理完半个窗口的元素向客户端归还一次信用，客户端发出还没有处理的元素不超过窗口
+ * 3、服务实现通过响应观察者发出元素，每个元素消耗一个客户端给的信用，信用用完时阻塞发送线程
+ * 响应方向结束(或者客户端取消、连接断开)时整个调用结束，从连接的流表中移除，之后客户端发来的元素直接丢弃
+ *
+ * @author debao.yang
+ * @since 2026/10/18 22:40
+ */
+@Slf4j
+public class RpcServerCallStream {
+
+    private final long requestId;
+
+    private final RpcSerialExecutor executor;
+
+    private final Consumer<RpcResponse> writer;
+
+    private final Consumer<RpcStreamControl> controlWriter;
+
+    /**
+     * 流结束时的回调，从连接的流表中移除
+     */
+    private final Runnable onFinish;
+
+    /**
+     * 响应方向的信用(客户端给的)
+     */
+    private final RpcStreamCredits sendCredits;
+
+    /**
+     * 等待客户端信用的最长时间(毫秒)，0表示一直等待
+     */
+    private final long sendTimeoutMillis;
+
+    /**
+     * 每处理这么多个元素归还一次信用
+     */
+    private final int creditBatch;
+
+    /**
+     * 服务实现返回的请求观察者，只在串行执行器中访问
+     */
+    private RpcStreamObserver<Object> requestObserver;
+
+    /**
+     * 已经处理还没有归还信用的元素个数，只在串行执行器中访问
+     */
+    private int processed;
+
+    /**
+     * 请求方向已经结束(客户端结束、取消或者调用已经结束)，只在串行执行器中访问
+     */
+    private boolean inboundDone;
+
+    private volatile boolean outboundDone;
+
+    private volatile boolean cancelled;
+
+    private final RpcStreamObserver<Object> responseObserver =
+            new RpcStreamObserver<Object>() {
+                @Override
+                public void onNext(Object value) {
+                    send(value);
+                }
+
+                @Override
+                public void onError(Throwable cause) {
+                    finishOutbound(cause);
+                }
+
+                @Override
+                public void onCompleted() {
+                    finishOutbound(null);
+                }
+            };
+
+    public RpcServerCallStream(long requestId, int window, long sendTimeoutMillis,
+                               RpcSerialExecutor executor,
+                               Consumer<RpcResponse> writer,
+                               Consumer<RpcStreamControl> controlWriter,
+                               Runnable onFinish) {
+        this.requestId = requestId;
+        this.sendCredits = new RpcStreamCredits(window);
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.creditBatch = Math.max(1, window / 2);
+        this.executor = executor;
+        this.writer = writer;
+        this.controlWriter = controlWriter;
+        this.onFinish = onFinish;
+    }
+
+    /**
+     * 在串行执行器中执行服务方法，传入响应观察者，拿到请求观察者
+     * 执行失败时以普通的异常响应结束，排队期间已经超时的调用直接丢弃
+     *
+     * @throws RejectedExecutionException 线程池已满
+     */
+    @SuppressWarnings("unchecked")
+    public void open(RpcInvoker invoker, RpcRequest rpcRequest) {
+        executor.execute(() -> {
+            // 排队期间调用方已经超时，不再执行服务方法
+            if (rpcRequest.isExpired(System.nanoTime())) {
+                log.warn("rpc stream expired before open, request id: {}", requestId);
+                rpcRequest.releasePayload();
+                inboundDone = true;
+                outboundDone = true;
+                sendCredits.close();
+                onFinish.run();
+                return;
+            }
+            try {
+                rpcRequest.deserializePayload();
+                Object observer = invoker.invoke(new Object[]{responseObserver});
+                if (observer == null) {
+                    throw new IllegalStateException("rpc stream method returned null"
+                            + " observer: " + invoker.getMethodName());
+                }
+                requestObserver = (RpcStreamObserver<Object>) observer;
+            } catch (Throwable t) {
+                log.error("open rpc stream failed, request id: " + requestId, t);
+                inboundDone = true;
+                if (!outboundDone) {
+                    outboundDone = true;
+                    sendCredits.close();
+                    RpcResponse response = new RpcResponse();
+                    response.setRequestId(requestId);
+                    response.setThrowable(t);
+                    writer.accept(response);
+                    onFinish.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * 客户端发来的一帧(元素或者结束)，在IO线程中调用
+     */
+    public void onFrame(RpcRequest frame) {
+        executor.execute(() -> deliver(frame));
+    }
+
+    private void deliver(RpcRequest frame) {
+        if (inboundDone || requestObserver == null) {
+            return;
+        }
+        try {
+            if (frame.isEndOfStream()) {
+                inboundDone = true;
+                requestObserver.onCompleted();
+                return;
+            }
+            Object[] parameters = frame.getParameters();
+            requestObserver.onNext(parameters == null || parameters.length == 0
+                    ? null : parameters[0]);
+        } catch (Throwable t) {
+            // 服务实现处理元素失败，整个流以异常结束
+            log.error("rpc stream observer failed, request id: " + requestId, t);
+            inboundDone = true;
+            finishOutbound(t);
+            return;
+        }
+        if (++processed >= creditBatch) {
+            controlWriter.accept(new RpcStreamControl(requestId, processed, false));
+            processed = 0;
+        }
+    }
+
+    /**
+     * 客户端归还响应方向的信用，任意线程调用
+     */
+    public void addCredits(int count) {
+        sendCredits.add(count);
+    }
+
+    /**
+     * 客户端取消或者连接断开，请求观察者收到CancellationException，之后的发送直接失败
+     */
+    public void cancel() {
+        if (outboundDone) {
+            return;
+        }
+        cancelled = true;
+        outboundDone = true;
+        sendCredits.close();
+        onFinish.run();
+        runSerial(() -> {
+            if (!inboundDone && requestObserver != null) {
+                requestObserver.onError(new CancellationException(
+                        "rpc stream cancelled, request id: " + requestId));
+            }
+            inboundDone = true;
+        });
+    }
+
+    /**
+     * 服务端处理不了后续的元素(线程池已满)，以异常结束整个调用
+     */
+    public void abort(Throwable cause) {
+        finishOutbound(cause);
+    }
+
+    private void send(Object value) {
+        if (outboundDone) {
+            throw new IllegalStateException(cancelled
+                    ? "rpc stream cancelled, request id: " + requestId
+                    : "rpc stream already completed, request id: " + requestId);
+        }
+        boolean acquired;
+        try {
+            acquired = sendCredits.acquire(sendTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for credits", e);
+        }
+        if (!acquired) {
+            throw new IllegalStateException("client did not return credits in "
+                    + sendTimeoutMillis + "ms, request id: " + requestId);
+        }
+        writer.accept(frame(value, null, false));
+    }
+
+    private void finishOutbound(Throwable cause) {
+        if (outboundDone) {
+            return;
+        }
+        outboundDone = true;
+        sendCredits.close();
+        writer.accept(frame(null, cause, true));
+        onFinish.run();
+        // 调用已经结束，不再处理客户端后续发来的元素
+        runSerial(() -> inboundDone = true);
+    }
+
+    /**
+     * 调用结束之后的收尾任务，线程池已满时只是少了一次回调，流已经从流表中移除
+     */
+    private void runSerial(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("rpc stream executor rejected, request id: {}", requestId);
+        }
+    }
+
+    private RpcResponse frame(Object element, Throwable cause, boolean end) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(requestId);
+        response.setResult(element);
+        response.setThrowable(cause);
+        response.setStream(true);
+        response.setEndOfStream(end);
+        return response;
+    }
+}
@@ -0,0 +1,270 @@
+package com.rpc.netty.rapid.server;
+
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcExecutionMode;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端统一的业务执行层，所有连接共享
+ * 按照配置选择共享线程池、服务独立线程池(舱壁)、IO线程或者虚拟线程执行业务方法
+ *
+ * @author debao.yang
+ * @since 2026/10/18 17:40
+ */
+@Slf4j
+public class RpcServerExecutor {
+
+    private final RpcExecutionMode executionMode;
+
+    private final boolean invokeNonBlockingOnIoThread;
+
+    /**
+     * 共享线程池，IO_THREAD模式下为null
+     */
+    private final ThreadPoolExecutor sharedPool;
+
+    /**
+     * 每个请求一个虚拟线程的执行器，运行时不支持虚拟线程时为null
+     */
+    private final ExecutorService virtualThreadExecutor;
+
+    /**
+     * 虚拟线程模式下同时执行的请求上限，每个请求占用一个许可，没有许可时拒绝请求
+     */
+    private final int maxVirtualThreads;
+
+    private final Semaphore virtualThreadPermits;
+
+    /**
+     * IO_THREAD模式下执行双向流式调用的线程池，第一次需要时创建
+     */
+    private volatile ThreadPoolExecutor streamPool;
+
+    private final int workerThreads;
+
+    private final int workerQueueCapacity;
+
+    /**
+     * 服务独立的线程池，key是接口的全限定名
+     */
+    private final Map<String, ThreadPoolExecutor> bulkheads = new ConcurrentHashMap<>();
+
+    public RpcServerExecutor(RpcServerConfig serverConfig) {
+        this.invokeNonBlockingOnIoThread = serverConfig.isInvokeNonBlockingOnIoThread();
+        this.workerThreads = serverConfig.getWorkerThreads();
+        this.workerQueueCapacity = serverConfig.getWorkerQueueCapacity();
+        this.maxVirtualThreads = Math.max(1, serverConfig.getMaxVirtualThreads());
+        this.virtualThreadPermits = new Semaphore(maxVirtualThreads);
+        ExecutorService virtual = null;
+        if (serverConfig.getExecutionMode() == RpcExecutionMode.VIRTUAL_THREAD) {
+            virtual = newVirtualThreadExecutor();
+        }
+        this.virtualThreadExecutor = virtual;
+        if (serverConfig.getExecutionMode() == RpcExecutionMode.VIRTUAL_THREAD
+                && virtual == null) {
+            log.warn("virtual threads are not supported by this runtime, " +
+                    "fall back to {}", RpcExecutionMode.SHARED_POOL);
+            this.executionMode = RpcExecutionMode.SHARED_POOL;
+        } else {
+            this.executionMode = serverConfig.getExecutionMode();
+        }
+        this.sharedPool = executionMode == RpcExecutionMode.SHARED_POOL
+                ? newPool("rapid-rpc-worker", serverConfig.getWorkerThreads(),
+                serverConfig.getWorkerQueueCapacity())
+                : null;
+    }
+
+    /**
+     * 注册服务，配置了threads的服务创建独立的线程池
+     *
+     * @param providerConfig 服务提供者的配置
+     * @author debao.yang
+     * @since 2026/10/18 17:45
+     */
+    public void register(ProviderConfig providerConfig) {
+        if (providerConfig.getThreads() > 0) {
+            String className = providerConfig.getInterface();
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            ThreadPoolExecutor old = bulkheads.put(className,
+                    newPool("rapid-rpc-" + simpleName, providerConfig.getThreads(),
+                            providerConfig.getQueueCapacity()));
+            if (old != null) {
+                old.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 选择执行这个方法的执行器
+     *
+     * @param invoker 方法调用器，为null时表示没有找到对应的方法
+     * @return 返回null表示直接在IO线程中执行
+     * @author debao.yang
+     * @since 2026/10/18 17:48
+     */
+    public Executor select(RpcInvoker invoker) {
+        if (invoker == null
+                || (invokeNonBlockingOnIoThread && invoker.isNonBlocking())) {
+            return null;
+        }
+        if (!bulkheads.isEmpty()) {
+            ThreadPoolExecutor bulkhead = bulkheads.get(invoker.getClassName());
+            if (bulkhead != null) {
+                return bulkhead;
+            }
+        }
+        switch (executionMode) {
+            case IO_THREAD:
+                return null;
+            case VIRTUAL_THREAD:
+                return this::executeOnVirtualThread;
+            default:
+                return sharedPool;
+        }
+    }
+
+    /**
+     * 选择执行流式调用的执行器：双向流式调用发送时可能等待客户端的信用，服务端流式调用要拉取用户的
+     * Iterator/Stream，都不能在IO线程中执行
+     * select返回IO线程时使用共享线程池，IO_THREAD模式下没有共享线程池，使用按同样配置创建的流线程池
+     *
+     * @param invoker 流式调用的方法调用器
+     * @return java.util.concurrent.Executor
+     * @author debao.yang
+     * @since 2026/10/19 17:20
+     */
+    public Executor selectForStream(RpcInvoker invoker) {
+        Executor executor = select(invoker);
+        if (executor != null) {
+            return executor;
+        }
+        if (sharedPool != null) {
+            return sharedPool;
+        }
+        ThreadPoolExecutor pool = streamPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = streamPool;
+                if (pool == null) {
+                    pool = newPool("rapid-rpc-stream", workerThreads,
+                            workerQueueCapacity);
+                    pool.allowCoreThreadTimeOut(true);
+                    streamPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 虚拟线程立即开始执行，请求不会排队，排队时间的预算不起作用，
+     * 所以用许可限制同时执行的请求个数，没有许可时和线程池队列已满一样拒绝
+     */
+    private void executeOnVirtualThread(Runnable task) {
+        if (!virtualThreadPermits.tryAcquire()) {
+            throw new RejectedExecutionException("too many requests on virtual "
+                    + "threads, max: " + maxVirtualThreads);
+        }
+        try {
+            virtualThreadExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    virtualThreadPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            virtualThreadPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 当前所有执行线程的个数(虚拟线程按正在执行的请求个数计算)
+     */
+    public int getThreadCount() {
+        int count = maxVirtualThreads - virtualThreadPermits.availablePermits();
+        if (sharedPool != null) {
+            count += sharedPool.getPoolSize();
+        }
+        if (streamPool != null) {
+            count += streamPool.getPoolSize();
+        }
+        for (ThreadPoolExecutor bulkhead : bulkheads.values()) {
+            count += bulkhead.getPoolSize();
+        }
+        return count;
+    }
+
+    /**
+     * 所有线程池中排队等待执行的请求个数
+     */
+    public int getQueueDepth() {
+        int depth = sharedPool != null ? sharedPool.getQueue().size() : 0;
+        for (ThreadPoolExecutor bulkhead : bulkheads.values()) {
+            depth += bulkhead.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * 指定服务的独立线程池中排队的请求个数，没有独立线程池时返回-1
+     */
+    public int getQueueDepth(String className) {
+        ThreadPoolExecutor bulkhead = bulkheads.get(className);
+        return bulkhead != null ? bulkhead.getQueue().size() : -1;
+    }
+
+    public RpcExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void shutdown() {
+        if (sharedPool != null) {
+            sharedPool.shutdown();
+        }
+        if (streamPool != null) {
+            streamPool.shutdown();
+        }
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+        for (ThreadPoolExecutor bulkhead : bulkheads.values()) {
+            bulkhead.shutdown();
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads,
+                                              int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new DefaultThreadFactory(name, true));
+    }
+
+    /**
+     * 项目按Java 8编译，通过反射创建虚拟线程执行器(Java 21+)
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -1,20 +1,27 @@
 package com.rpc.netty.rapid.server;
 
+import com.rpc.netty.rapid.codec.RpcHandshake;
+import com.rpc.netty.rapid.codec.RpcMessageTooLargeException;
 import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.RpcProtocol;
 import com.rpc.netty.rapid.codec.RpcResponse;
+import com.rpc.netty.rapid.codec.RpcStreamControl;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.context.RpcContext;
+import com.rpc.netty.rapid.stream.RpcSerialExecutor;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.internal.PlatformDependent;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cglib.reflect.FastClass;
-import org.springframework.cglib.reflect.FastMethod;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author debao.yang
@@ -23,14 +30,129 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class RpcServerHandler extends SimpleChannelInboundHandler<RpcRequest> {
 
-    private Map<String, Object> handlerMap;
+    private final RpcInvokerRegistry invokerRegistry;
 
-    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(16, 16,
-            600L,
-            TimeUnit.SECONDS, new ArrayBlockingQueue<>(65536));
+    private final RpcDictionaryPublisher dictionaryPublisher;
 
-    public RpcServerHandler(Map<String, Object> handlerMap) {
-        this.handlerMap = handlerMap;
+    /**
+     * 服务端共享的业务执行层，不再每个连接创建一个线程池
+     */
+    private final RpcServerExecutor serverExecutor;
+
+    private final RpcServerStats stats;
+
+    private final boolean responseBatching;
+
+    private final int flushMaxResponses;
+
+    /**
+     * 排队时间预算(纳秒)，小于等于0表示不限制
+     */
+    private final long maxQueueTimeNanos;
+
+    /**
+     * 工作线程写入、IO线程读取的待发送响应队列
+     */
+    private final Queue<RpcResponse> responseQueue = PlatformDependent.newMpscQueue();
+
+    /**
+     * 是否已经提交了响应队列的排空任务
+     */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private volatile ChannelHandlerContext ctx;
+
+    private final Runnable drainTask = this::drainResponseQueue;
+
+    /**
+     * 本次读取中在IO线程直接执行、已经写出但还没有flush的响应个数，只在IO线程中访问
+     */
+    private int unflushedResponses = 0;
+
+    /**
+     * 连接上正在进行的流式调用，key是请求id
+     */
+    private final Map<Long, RpcServerStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 连接上正在进行的双向流式调用，key是请求id(即流id)
+     */
+    private final Map<Long, RpcServerCallStream> callStreams = new ConcurrentHashMap<>();
+
+    public RpcServerHandler(RpcInvokerRegistry invokerRegistry,
+                            RpcDictionaryPublisher dictionaryPublisher,
+                            RpcServerExecutor serverExecutor,
+                            RpcServerConfig serverConfig,
+                            RpcServerStats stats) {
+        this.invokerRegistry = invokerRegistry;
+        this.dictionaryPublisher = dictionaryPublisher;
+        this.serverExecutor = serverExecutor;
+        this.stats = stats;
+        this.responseBatching = serverConfig.isResponseBatching();
+        this.flushMaxResponses = Math.max(1, serverConfig.getFlushMaxResponses());
+        this.maxQueueTimeNanos = TimeUnit.MILLISECONDS.toNanos(
+                serverConfig.getMaxQueueTimeMillis());
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    /**
+     * 握手完成，客户端要求使用方法字典时订阅字典的下发
+     */
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt)
+            throws Exception {
+        if (evt instanceof RpcHandshake && ((RpcHandshake) evt).isMethodDictionary()) {
+            dictionaryPublisher.subscribe(ctx.channel());
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    /**
+     * 流式调用的控制消息(归还信用、取消)不经过channelRead0
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof RpcStreamControl) {
+            RpcStreamControl control = (RpcStreamControl) msg;
+            RpcServerStream stream = streams.get(control.getRequestId());
+            if (stream != null) {
+                if (control.isCancel()) {
+                    stream.cancel();
+                } else {
+                    stream.addCredits(control.getCredits());
+                }
+                return;
+            }
+            RpcServerCallStream callStream = callStreams.get(control.getRequestId());
+            if (callStream != null) {
+                if (control.isCancel()) {
+                    callStream.cancel();
+                } else {
+                    callStream.addCredits(control.getCredits());
+                }
+            }
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    /**
+     * 连接断开时关闭所有还在进行的流式调用的数据源
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        for (RpcServerStream stream : streams.values()) {
+            stream.cancel();
+        }
+        for (RpcServerCallStream callStream : callStreams.values()) {
+            callStream.cancel();
+        }
+        super.channelInactive(ctx);
     }
 
     @Override
@@ -38,55 +160,305 @@ public class RpcServerHandler extends SimpleChannelInboundHandler<RpcRequest> {
                                 RpcRequest rpcRequest) throws Exception {
 
         // 1、解析rpcRequest
-        // 2、从handlerMap中找到具体的接口(key)所绑定的实例(bean)
-        // 3、通过反射cglib调用 具体方法传递相相关执行参数执行逻辑即可
+        // 2、从invokerRegistry中找到预先生成好的方法调用器
+        // 3、通过调用器(cglib FastMethod)传递相关执行参数执行逻辑即可
         // 4、返回响应信息给调用方
 
-        executor.submit(() -> {
-            RpcResponse response = new RpcResponse();
-            response.setRequestId(rpcRequest.getRequestId());
-            try {
-                Object result = handle(rpcRequest);
-                response.setResult(result);
-            } catch (Throwable t) {
-                response.setThrowable(t);
-                log.error("rpc service handle request Throwable: " + t);
+        // 解码失败的请求(不能反序列化、超过最大长度)不执行，只让这一个调用失败
+        if (rpcRequest.getDecodeError() != null) {
+            onDecodeError(ctx, rpcRequest);
+            return;
+        }
+
+        // 双向流式调用中客户端发来的元素，交给对应的流按顺序处理
+        if (rpcRequest.isStream()) {
+            onStreamFrame(rpcRequest);
+            return;
+        }
+
+        // 截止时间检查(解码之后)：调用方已经超时的请求直接丢弃
+        if (rpcRequest.isExpired(System.nanoTime())) {
+            stats.recordExpired();
+            rpcRequest.releasePayload();
+            return;
+        }
+
+        // 使用方法字典的请求没有类名，按照方法id查找
+        RpcInvoker invoker = rpcRequest.getClassName() == null
+                ? invokerRegistry.getInvoker(rpcRequest.getMethodId())
+                : invokerRegistry.lookup(rpcRequest);
+        if (invoker != null && invoker.isCallStreaming()) {
+            openCallStream(ctx, invoker, rpcRequest,
+                    serverExecutor.selectForStream(invoker));
+            return;
+        }
+        Executor executor = serverExecutor.select(invoker);
+        if (executor == null) {
+            // 在IO线程中直接执行，等本次读取完成时统一flush
+            RpcResponse response = handle(invoker, rpcRequest);
+            if (response != null) {
+                ctx.write(response, ctx.voidPromise());
+                unflushedResponses++;
             }
+            return;
+        }
 
-            ctx.writeAndFlush(response)
-                    .addListener((ChannelFutureListener) future -> {
-                        if (future.isSuccess()) {
-                            // afterRpcHook
-                        }
-                    });
-        });
+        // 准入控制：队列已满直接拒绝，排队时间超过预算的请求不再执行
+        long enqueueNanos = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long nowNanos = System.nanoTime();
+                long queueNanos = nowNanos - enqueueNanos;
+                stats.recordQueueTime(queueNanos);
+                // 排队期间调用方已经超时，过载响应也没有人读取了
+                if (rpcRequest.isExpired(nowNanos)) {
+                    stats.recordExpired();
+                    rpcRequest.releasePayload();
+                    return;
+                }
+                if (maxQueueTimeNanos > 0 && queueNanos > maxQueueTimeNanos) {
+                    stats.recordShed();
+                    rpcRequest.releasePayload();
+                    writeResponse(overloaded(rpcRequest, "queue time "
+                            + TimeUnit.NANOSECONDS.toMillis(queueNanos)
+                            + "ms exceeds budget "
+                            + TimeUnit.NANOSECONDS.toMillis(maxQueueTimeNanos) + "ms"));
+                    return;
+                }
+                RpcResponse response = handle(invoker, rpcRequest);
+                if (response != null) {
+                    writeResponse(response);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stats.recordRejected();
+            rpcRequest.releasePayload();
+            ctx.write(overloaded(rpcRequest, "executor queue is full"),
+                    ctx.voidPromise());
+            unflushedResponses++;
+        }
+    }
+
+    /**
+     * 打开双向流式调用：在IO线程中先登记到流表，保证紧跟着到达的元素能找到这个流，
+     * 服务方法和之后的元素都在流自己的串行执行器中处理
+     */
+    private void openCallStream(ChannelHandlerContext ctx, RpcInvoker invoker,
+                                RpcRequest rpcRequest, Executor executor) {
+        long requestId = rpcRequest.getRequestId();
+        // 信用窗口和超时时间在解码的时候已经读出(延迟解码的请求也一样)，截止时间已经在调用前检查过
+        RpcServerCallStream callStream = new RpcServerCallStream(requestId,
+                rpcRequest.getStreamWindow() > 0 ? rpcRequest.getStreamWindow()
+                        : RpcProtocol.DEFAULT_STREAM_WINDOW,
+                rpcRequest.getTimeoutMillis(),
+                new RpcSerialExecutor(executor), this::writeResponse,
+                control -> ctx.writeAndFlush(control, ctx.voidPromise()),
+                () -> callStreams.remove(requestId));
+        callStreams.put(requestId, callStream);
+        try {
+            callStream.open(invoker, rpcRequest);
+        } catch (RejectedExecutionException e) {
+            stats.recordRejected();
+            callStreams.remove(requestId);
+            rpcRequest.releasePayload();
+            ctx.write(overloaded(rpcRequest, "executor queue is full"),
+                    ctx.voidPromise());
+            unflushedResponses++;
+        }
+    }
+
+    private void onStreamFrame(RpcRequest frame) {
+        RpcServerCallStream callStream = callStreams.get(frame.getRequestId());
+        if (callStream == null) {
+            // 调用已经结束(服务端先结束、取消)，后续的元素直接丢弃
+            return;
+        }
+        try {
+            callStream.onFrame(frame);
+        } catch (RejectedExecutionException e) {
+            stats.recordRejected();
+            callStream.abort(new IllegalStateException("rpc stream executor queue is"
+                    + " full, request id: " + frame.getRequestId()));
+        }
+    }
+
+    /**
+     * 解码失败的普通请求返回异常，双向流式调用中的元素解码失败时中止整个流
+     */
+    private void onDecodeError(ChannelHandlerContext ctx, RpcRequest rpcRequest) {
+        long requestId = rpcRequest.getRequestId();
+        Throwable cause = rpcRequest.getDecodeError();
+        log.warn("decode rpc request failed, request id: {}, {}", requestId,
+                cause.getMessage());
+        IllegalStateException error = new IllegalStateException(cause.getMessage());
+        if (rpcRequest.isStream()) {
+            RpcServerCallStream callStream = callStreams.get(requestId);
+            if (callStream != null) {
+                callStream.abort(error);
+            }
+            return;
+        }
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(requestId);
+        response.setThrowable(error);
+        ctx.write(response, ctx.voidPromise());
+        unflushedResponses++;
+    }
+
+    /**
+     * 生成过载响应，请求没有被执行，调用方可以立即换一个节点重试
+     */
+    private RpcResponse overloaded(RpcRequest rpcRequest, String reason) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(rpcRequest.getRequestId());
+        response.setLegacyRequestId(rpcRequest.getLegacyRequestId());
+        response.setStatus(RpcResponse.STATUS_OVERLOADED);
+        response.setResult(reason);
+        return response;
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if (unflushedResponses > 0) {
+            ctx.flush();
+            stats.recordFlush(unflushedResponses);
+            unflushedResponses = 0;
+        }
+        super.channelReadComplete(ctx);
     }
 
     /**
-     * 解析Request请求并且去通过反射，获取具体的本地服务实例后执行具体的方法
+     * 执行具体的方法并生成响应，执行中的异常放到响应中返回给调用方
+     * 延迟解码的请求先在当前线程中反序列化参数(截止时间在解码的时候已经确定)
+     * 执行之前和写响应之前都检查调用方的截止时间，执行期间通过RpcContext暴露给业务代码
+     *
+     * 流式调用的方法返回之后按照信用逐个发送元素，后续的拉取在流的执行器中进行，
+     * 即使方法本身在IO线程中执行，用户的Iterator/Stream也不在IO线程中拉取，
+     * 慢的或者阻塞的迭代器不会拖住同一个EventLoop上的其他连接
      *
+     * @param invoker    预先生成好的方法调用器，为null时表示没有找到对应的方法
      * @param rpcRequest rpc请求的参数
-     * @return java.lang.Object
+     * @return 调用方的截止时间已经过了(或者是流式调用)时返回null，不需要再写响应
      * @author debao.yang
      * @since 2024/7/2 11:56
      */
-    private Object handle(RpcRequest rpcRequest) throws InvocationTargetException {
-
-        String className = rpcRequest.getClassName();
-        Object serviceRef = handlerMap.get(className);
-        Class<?> serviceClass = serviceRef.getClass();
+    private RpcResponse handle(RpcInvoker invoker, RpcRequest rpcRequest) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(rpcRequest.getRequestId());
+        try {
+            rpcRequest.deserializePayload();
+        } catch (RuntimeException e) {
+            log.error("deserialize rpc request failed, methodId: "
+                    + rpcRequest.getMethodId(), e);
+            // 和正常的响应一样带上v1的请求id，v1的调用方才能匹配到这个失败
+            response.setLegacyRequestId(rpcRequest.getLegacyRequestId());
+            response.setThrowable(e);
+            return response;
+        }
+        if (rpcRequest.isExpired(System.nanoTime())) {
+            stats.recordExpired();
+            return null;
+        }
+        response.setLegacyRequestId(rpcRequest.getLegacyRequestId());
+        RpcContext.setDeadlineNanos(rpcRequest.getDeadlineNanos());
+        try {
+            if (invoker == null) {
+                throw new IllegalStateException("no rpc invoker found, className: "
+                        + rpcRequest.getClassName() + ", methodName: "
+                        + rpcRequest.getMethodName() + ", methodId: "
+                        + rpcRequest.getMethodId());
+            }
+            response.setResult(invoker.invoke(rpcRequest.getParameters()));
+        } catch (Throwable t) {
+            response.setThrowable(t);
+            log.error("rpc service handle request Throwable: " + t);
+        } finally {
+            RpcContext.clear();
+        }
+        boolean streaming = invoker != null && invoker.isStreaming()
+                && response.getThrowable() == null && response.getResult() != null;
+        if (rpcRequest.isExpired(System.nanoTime())) {
+            stats.recordExpired();
+            if (streaming && response.getResult() instanceof AutoCloseable) {
+                closeQuietly((AutoCloseable) response.getResult());
+            }
+            return null;
+        }
+        if (streaming) {
+            startStream(rpcRequest, response.getResult(),
+                    serverExecutor.selectForStream(invoker));
+            return null;
+        }
+        return response;
+    }
 
-        String methodName = rpcRequest.getMethodName();
-        Class<?>[] parameterTypes = rpcRequest.getParameterTypes();
-        Object[] parameters = rpcRequest.getParameters();
+    private void startStream(RpcRequest rpcRequest, Object result, Executor executor) {
+        long requestId = rpcRequest.getRequestId();
+        int window = rpcRequest.getStreamWindow() > 0 ? rpcRequest.getStreamWindow()
+                : RpcProtocol.DEFAULT_STREAM_WINDOW;
+        RpcServerStream stream = new RpcServerStream(requestId, result, window,
+                executor, this::writeResponse, () -> streams.remove(requestId));
+        streams.put(requestId, stream);
+        if (!ctx.channel().isActive()) {
+            stream.cancel();
+            return;
+        }
+        stream.start();
+    }
 
-        // JDK reflect
+    private void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            log.warn("close rpc stream failed", e);
+        }
+    }
 
-        // Cglib
-        FastClass serviceFastClass = FastClass.create(serviceClass);
-        FastMethod serviceFastMethod = serviceFastClass.getMethod(methodName, parameterTypes);
+    /**
+     * 在工作线程中写出响应
+     * 开启合并写时放入响应队列，队列从空变成非空时提交一个排空任务到IO线程
+     *
+     * @param response 响应
+     * @author debao.yang
+     * @since 2026/10/18 17:10
+     */
+    private void writeResponse(RpcResponse response) {
+        if (!responseBatching) {
+            ctx.writeAndFlush(response)
+                    .addListener((ChannelFutureListener) future -> {
+                        if (future.isSuccess()) {
+                            // afterRpcHook
+                        }
+                    });
+            stats.recordFlush(1);
+            return;
+        }
+        responseQueue.offer(response);
+        if (drainScheduled.compareAndSet(false, true)) {
+            ctx.executor().execute(drainTask);
+        }
+    }
 
-        return serviceFastMethod.invoke(serviceRef, parameters);
+    /**
+     * 在IO线程中排空响应队列，每flushMaxResponses个响应flush一次
+     */
+    private void drainResponseQueue() {
+        // 先清除标记再排空，排空过程中新完成的响应会提交新的任务
+        drainScheduled.set(false);
+        int batch = 0;
+        RpcResponse response;
+        while ((response = responseQueue.poll()) != null) {
+            ctx.write(response, ctx.voidPromise());
+            if (++batch >= flushMaxResponses) {
+                ctx.flush();
+                stats.recordFlush(batch);
+                batch = 0;
+            }
+        }
+        if (batch > 0) {
+            ctx.flush();
+            stats.recordFlush(batch);
+        }
     }
 
     /**
@@ -100,6 +472,17 @@ public class RpcServerHandler extends SimpleChannelInboundHandler<RpcRequest> {
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx,
                                 Throwable cause) throws Exception {
+        // 响应太大时编码器没有写出任何分片，连接仍然可用，告诉调用方原因即可
+        RpcMessageTooLargeException tooLarge = RpcMessageTooLargeException.find(cause);
+        if (tooLarge != null) {
+            log.warn("rpc response too large, request id: {}, {}",
+                    tooLarge.getRequestId(), tooLarge.getMessage());
+            RpcResponse response = new RpcResponse();
+            response.setRequestId(tooLarge.getRequestId());
+            response.setThrowable(new IllegalStateException(tooLarge.getMessage()));
+            ctx.writeAndFlush(response, ctx.voidPromise());
+            return;
+        }
         log.error("server caught exception" + cause);
         ctx.close();
     }
@@ -0,0 +1,125 @@
+package com.rpc.netty.rapid.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 服务端的运行指标，所有连接共享
+ *
+ * @author debao.yang
+ * @since 2026/10/18 17:05
+ */
+public class RpcServerStats {
+
+    /**
+     * 写响应时flush的次数
+     */
+    private final LongAdder flushCount = new LongAdder();
+
+    /**
+     * flush携带的响应总数
+     */
+    private final LongAdder flushedResponseCount = new LongAdder();
+
+    /**
+     * 单次flush携带的最多响应个数
+     */
+    private volatile int maxResponsesPerFlush = 0;
+
+    /**
+     * 进入线程池执行的请求个数和在队列中等待的总时间
+     */
+    private final LongAdder queuedRequestCount = new LongAdder();
+    private final LongAdder queueTimeNanos = new LongAdder();
+
+    /**
+     * 在队列中等待的最长时间
+     */
+    private volatile long maxQueueTimeNanos = 0;
+
+    /**
+     * 线程池队列已满被拒绝的请求个数
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 排队时间超过预算被丢弃的请求个数
+     */
+    private final LongAdder shedCount = new LongAdder();
+
+    /**
+     * 调用方的截止时间已经过了而被丢弃的请求个数
+     */
+    private final LongAdder expiredCount = new LongAdder();
+
+    public void recordFlush(int responses) {
+        flushCount.increment();
+        flushedResponseCount.add(responses);
+        if (responses > maxResponsesPerFlush) {
+            maxResponsesPerFlush = responses;
+        }
+    }
+
+    public void recordQueueTime(long nanos) {
+        queuedRequestCount.increment();
+        queueTimeNanos.add(nanos);
+        if (nanos > maxQueueTimeNanos) {
+            maxQueueTimeNanos = nanos;
+        }
+    }
+
+    public void recordRejected() {
+        rejectedCount.increment();
+    }
+
+    public void recordShed() {
+        shedCount.increment();
+    }
+
+    public void recordExpired() {
+        expiredCount.increment();
+    }
+
+    /**
+     * 平均排队时间(纳秒)
+     */
+    public double getAverageQueueTimeNanos() {
+        long count = queuedRequestCount.sum();
+        return count == 0 ? 0 : (double) queueTimeNanos.sum() / count;
+    }
+
+    public long getMaxQueueTimeNanos() {
+        return maxQueueTimeNanos;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    public long getFlushedResponseCount() {
+        return flushedResponseCount.sum();
+    }
+
+    /**
+     * 每次flush平均携带的响应个数
+     */
+    public double getResponsesPerFlush() {
+        long flushes = flushCount.sum();
+        return flushes == 0 ? 0 : (double) flushedResponseCount.sum() / flushes;
+    }
+
+    public int getMaxResponsesPerFlush() {
+        return maxResponsesPerFlush;
+    }
+}
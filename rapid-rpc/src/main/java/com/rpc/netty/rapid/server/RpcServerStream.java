@@ -0,0 +1,167 @@
+package com.rpc.netty.rapid.server;
+
+import com.rpc.netty.rapid.codec.RpcResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 服务端流式调用的发送方
+ * 1、在执行方法的线程(池)中逐个拉取元素，每个元素作为一个流式响应帧写出
+ * 2、每发出一个元素消耗一个信用，信用用完就暂停，客户端归还信用之后重新提交到执行线程继续拉取
+ * 3、拉取完成(或者异常)时发送结束帧，客户端取消或者连接断开时关闭数据源
+ * 已经发出还没有被客户端消费的元素不超过信用窗口，所以两端的内存占用和结果集的大小无关
+ * 同一时间只有一个线程在拉取元素，数据源不需要是线程安全的
+ *
+ * @author debao.yang
+ * @since 2026/10/18 21:20
+ */
+@Slf4j
+public class RpcServerStream implements Runnable {
+
+    private final long requestId;
+
+    private final Iterator<?> iterator;
+
+    /**
+     * 流结束时需要关闭的数据源(Stream或者实现了AutoCloseable的Iterator)，其他情况为null
+     */
+    private final AutoCloseable resource;
+
+    private final Executor executor;
+
+    private final Consumer<RpcResponse> writer;
+
+    /**
+     * 流结束(正常、异常或者取消)时的回调，从连接的流表中移除
+     */
+    private final Runnable onFinish;
+
+    private final AtomicLong credits;
+
+    /**
+     * 是否已经提交了拉取任务，保证同一时间只有一个线程在拉取
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private volatile boolean cancelled;
+
+    private volatile boolean finished;
+
+    public RpcServerStream(long requestId, Object result, int window,
+                           Executor executor, Consumer<RpcResponse> writer,
+                           Runnable onFinish) {
+        this.requestId = requestId;
+        this.iterator = result instanceof Stream
+                ? ((Stream<?>) result).iterator() : (Iterator<?>) result;
+        this.resource = result instanceof AutoCloseable ? (AutoCloseable) result : null;
+        this.credits = new AtomicLong(window);
+        this.executor = executor;
+        this.writer = writer;
+        this.onFinish = onFinish;
+    }
+
+    public void start() {
+        schedule();
+    }
+
+    /**
+     * 客户端归还信用，任意线程调用
+     */
+    public void addCredits(int count) {
+        if (credits.getAndAdd(count) <= 0) {
+            schedule();
+        }
+    }
+
+    /**
+     * 客户端取消或者连接断开，在拉取线程中关闭数据源
+     */
+    public void cancel() {
+        cancelled = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (!finished && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                finish(e);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        if (finished) {
+            return;
+        }
+        try {
+            while (!cancelled && credits.get() > 0) {
+                if (!iterator.hasNext()) {
+                    finish(null);
+                    return;
+                }
+                Object element = iterator.next();
+                credits.decrementAndGet();
+                writer.accept(frame(element, null, false));
+            }
+        } catch (Throwable t) {
+            log.error("rpc stream failed, request id: " + requestId, t);
+            finish(t);
+            return;
+        }
+        if (cancelled) {
+            close();
+            return;
+        }
+        // 先清除标记再检查，暂停期间到达的信用不会被遗漏
+        scheduled.set(false);
+        if (cancelled || credits.get() > 0) {
+            schedule();
+        }
+    }
+
+    /**
+     * 发送结束帧并关闭数据源
+     */
+    private void finish(Throwable cause) {
+        if (!cancelled) {
+            writer.accept(frame(null, cause, true));
+        }
+        close();
+    }
+
+    private void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        onFinish.run();
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("close rpc stream failed, request id: " + requestId, e);
+            }
+        }
+    }
+
+    private RpcResponse frame(Object element, Throwable cause, boolean end) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(requestId);
+        response.setResult(element);
+        response.setThrowable(cause);
+        response.setStream(true);
+        response.setEndOfStream(end);
+        return response;
+    }
+}
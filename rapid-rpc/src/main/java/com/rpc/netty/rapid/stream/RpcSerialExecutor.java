@@ -0,0 +1,72 @@
+package com.rpc.netty.rapid.stream;
+
+import io.netty.util.internal.PlatformDependent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 在共享的线程池上按提交顺序串行执行一个流的所有回调
+ * 每个流一个实例，慢的流只占用一个线程，不会阻塞同一个连接上的其他流，也不会阻塞EventLoop
+ *
+ * @author debao.yang
+ * @since 2026/10/18 22:30
+ */
+@Slf4j
+public final class RpcSerialExecutor implements Executor, Runnable {
+
+    /**
+     * 每次占用线程最多执行的任务个数，之后重新提交，让共享线程池中其他流的任务也能执行
+     */
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Executor executor;
+
+    private final Queue<Runnable> tasks = PlatformDependent.newMpscQueue();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    public RpcSerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 提交一个任务，底层线程池拒绝时抛出RejectedExecutionException
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        Runnable task;
+        int count = 0;
+        while (count++ < MAX_TASKS_PER_RUN && (task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("rpc stream task failed", t);
+            }
+        }
+        // 先清除标记再检查，执行期间提交的任务(或者这次没有执行完的任务)不会被遗漏
+        scheduled.set(false);
+        if (!tasks.isEmpty()) {
+            schedule();
+        }
+    }
+}
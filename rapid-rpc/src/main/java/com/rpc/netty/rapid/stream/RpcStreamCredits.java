@@ -0,0 +1,78 @@
+package com.rpc.netty.rapid.stream;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送方向的信用：每发出一个元素消耗一个，对端处理完之后归还
+ * 信用用完时发送线程阻塞等待，不能在EventLoop线程中等待(归还信用的消息也要由EventLoop处理)
+ *
+ * @author debao.yang
+ * @since 2026/10/18 22:25
+ */
+public final class RpcStreamCredits {
+
+    private long available;
+
+    private boolean closed;
+
+    public RpcStreamCredits(int window) {
+        this.available = window;
+    }
+
+    public synchronized void add(int count) {
+        available += count;
+        notifyAll();
+    }
+
+    /**
+     * 流已经结束(对端取消、连接断开)，唤醒所有等待的发送线程
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * 获取一个信用
+     *
+     * @param timeoutMillis 最多等待的时间，小于等于0表示一直等待
+     * @return 等待超时时返回false
+     * @throws CancellationException 流已经结束
+     * @author debao.yang
+     * @since 2026/10/18 22:28
+     */
+    public synchronized boolean acquire(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (available <= 0 && !closed) {
+            if (timeoutMillis <= 0) {
+                wait();
+                continue;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        if (closed) {
+            throw new CancellationException("stream closed");
+        }
+        available--;
+        return true;
+    }
+
+    /**
+     * 当前是否还有信用，不阻塞
+     */
+    public synchronized boolean tryAcquire() {
+        if (closed) {
+            throw new CancellationException("stream closed");
+        }
+        if (available <= 0) {
+            return false;
+        }
+        available--;
+        return true;
+    }
+}
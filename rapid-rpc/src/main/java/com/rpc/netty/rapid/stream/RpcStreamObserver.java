@@ -0,0 +1,26 @@
+package com.rpc.netty.rapid.stream;
+
+/**
+ * 双向流式调用和客户端流式调用的观察者
+ * 服务接口中形如 RpcStreamObserver&lt;Req&gt; method(RpcStreamObserver&lt;Resp&gt; responses) 的方法按照流式调用处理：
+ * 1、客户端调用时传入接收响应的观察者，返回发送请求的观察者
+ * 2、服务端实现收到发送响应的观察者，返回接收请求的观察者
+ * 同一个流上的回调按顺序串行执行；发送时信用窗口用完，onNext阻塞到对端归还信用
+ *
+ * @author debao.yang
+ * @since 2026/10/18 22:20
+ */
+public interface RpcStreamObserver<T> {
+
+    void onNext(T value);
+
+    /**
+     * 以异常结束，之后不会再有回调
+     */
+    void onError(Throwable cause);
+
+    /**
+     * 正常结束，之后不会再有回调
+     */
+    void onCompleted();
+}
@@ -0,0 +1,56 @@
+package com.rpc.netty.rapid.transport;
+
+import com.rpc.netty.rapid.transport.shm.RpcShmAddress;
+import io.netty.channel.unix.DomainSocketAddress;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * 服务地址的解析
+ * host:port 解析成TCP地址；unix:///path/to/sock 解析成unix domain socket地址(只在epoll下可用)；
+ * shm:///path/to/dir 解析成共享内存传输的地址(同一台机器上的进程间调用)
+ *
+ * @author debao.yang
+ * @since 2026/10/19 00:30
+ */
+public final class RpcAddress {
+
+    public static final String UNIX_SCHEME = "unix://";
+
+    public static final String SHM_SCHEME = "shm://";
+
+    private RpcAddress() {
+    }
+
+    /**
+     * @param address 服务地址
+     * @return 解析出的地址，格式不正确时返回null
+     * @author debao.yang
+     * @since 2026/10/19 00:31
+     */
+    public static SocketAddress parse(String address) {
+        String trimmed = address.trim();
+        if (trimmed.startsWith(UNIX_SCHEME)) {
+            String path = trimmed.substring(UNIX_SCHEME.length());
+            return path.isEmpty() ? null : new DomainSocketAddress(path);
+        }
+        if (trimmed.startsWith(SHM_SCHEME)) {
+            String path = trimmed.substring(SHM_SCHEME.length());
+            return path.isEmpty() ? null : new RpcShmAddress(path);
+        }
+        String[] array = trimmed.split(":");
+        if (array.length != 2) {
+            return null;
+        }
+        return new InetSocketAddress(array[0], Integer.parseInt(array[1]));
+    }
+
+    public static boolean isUnix(SocketAddress address) {
+        return address instanceof DomainSocketAddress;
+    }
+
+    public static boolean isSharedMemory(SocketAddress address) {
+        return address instanceof RpcShmAddress;
+    }
+}
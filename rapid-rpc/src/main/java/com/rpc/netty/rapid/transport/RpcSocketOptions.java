@@ -0,0 +1,59 @@
+package com.rpc.netty.rapid.transport;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 连接上的socket参数，服务端作用于接入的连接，客户端作用于发起的连接
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:42
+ */
+@Getter
+@Setter
+public class RpcSocketOptions {
+
+    /**
+     * SO_RCVBUF(字节)，小于等于0时使用系统默认值(由内核自动调整)
+     */
+    private int receiveBufferSize = 0;
+
+    /**
+     * SO_SNDBUF(字节)，小于等于0时使用系统默认值(由内核自动调整)
+     */
+    private int sendBufferSize = 0;
+
+    private boolean tcpNoDelay = true;
+
+    /**
+     * TCP_QUICKACK：收到数据后立即回复ACK，不等待延迟确认，只在epoll下生效
+     */
+    private boolean tcpQuickAck = false;
+
+    /**
+     * 待写出的字节数超过高水位时连接变为不可写，回落到低水位以下时恢复可写
+     */
+    private int writeBufferLowWaterMark = 32 * 1024;
+
+    private int writeBufferHighWaterMark = 64 * 1024;
+
+    /**
+     * 共享内存传输：每个方向的环形缓冲大小(字节)，由客户端决定
+     */
+    private int shmRingCapacity = 1024 * 1024;
+
+    /**
+     * 共享内存传输：读线程没有数据时先忙等的次数，单核机器上应该调小
+     */
+    private int shmSpinIterations = 100;
+
+    /**
+     * 共享内存传输：忙等之后Thread.yield的次数，之后park
+     */
+    private int shmYieldIterations = 1000;
+
+    /**
+     * 共享内存传输：park的最长时间(微秒)，也是空闲之后第一条消息的最大额外延迟
+     */
+    private int shmMaxParkMicros = 1000;
+}
@@ -0,0 +1,236 @@
+package com.rpc.netty.rapid.transport;
+
+import com.rpc.netty.rapid.transport.shm.RpcShmChannel;
+import com.rpc.netty.rapid.transport.shm.RpcShmChannelConfig;
+import com.rpc.netty.rapid.transport.shm.RpcShmServerChannel;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 选定的网络传输实现，负责创建EventLoopGroup、确定Channel类型以及设置socket参数
+ * 服务端和客户端使用同样的规则，保证两端的行为一致
+ * 地址是unix domain socket(见RpcAddress)时使用epoll的domain socket，是shm://时使用共享内存传输，
+ * 编解码的pipeline不变
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:45
+ */
+@Slf4j
+public final class RpcTransport {
+
+    private static final RpcTransport EPOLL = new RpcTransport(true);
+
+    private static final RpcTransport NIO = new RpcTransport(false);
+
+    private final boolean epoll;
+
+    private RpcTransport(boolean epoll) {
+        this.epoll = epoll;
+    }
+
+    /**
+     * 按照配置选择传输实现
+     *
+     * @param type 配置的传输方式
+     * @return com.rpc.netty.rapid.transport.RpcTransport
+     * @throws IllegalStateException 明确要求epoll但是当前平台不可用
+     * @author debao.yang
+     * @since 2026/10/18 23:46
+     */
+    public static RpcTransport resolve(RpcTransportType type) {
+        switch (type) {
+            case NIO:
+                return NIO;
+            case EPOLL:
+                if (!Epoll.isAvailable()) {
+                    throw new IllegalStateException("epoll transport is not available",
+                            Epoll.unavailabilityCause());
+                }
+                return EPOLL;
+            default:
+                return Epoll.isAvailable() ? EPOLL : NIO;
+        }
+    }
+
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    public String getName() {
+        return epoll ? "epoll" : "nio";
+    }
+
+    /**
+     * @param threads 线程个数，小于等于0时使用Netty的默认值(CPU核数的2倍)
+     * @param name    线程名的前缀
+     */
+    public EventLoopGroup newEventLoopGroup(int threads, String name) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(name, true);
+        int count = Math.max(0, threads);
+        return epoll ? new EpollEventLoopGroup(count, threadFactory)
+                : new NioEventLoopGroup(count, threadFactory);
+    }
+
+    public Class<? extends ServerSocketChannel> serverChannelClass() {
+        return epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public Class<? extends SocketChannel> socketChannelClass() {
+        return epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * 按照监听地址确定服务端Channel的类型，unix domain socket只在epoll下可用，
+     * 共享内存传输在epoll和NIO下都可用
+     */
+    public Class<? extends ServerChannel> serverChannelClass(SocketAddress localAddress) {
+        if (RpcAddress.isSharedMemory(localAddress)) {
+            return RpcShmServerChannel.class;
+        }
+        if (RpcAddress.isUnix(localAddress)) {
+            requireEpoll(localAddress);
+            return EpollServerDomainSocketChannel.class;
+        }
+        return serverChannelClass();
+    }
+
+    /**
+     * 按照服务地址确定客户端Channel的类型，unix domain socket只在epoll下可用
+     */
+    public Class<? extends Channel> channelClass(SocketAddress remoteAddress) {
+        if (RpcAddress.isSharedMemory(remoteAddress)) {
+            return RpcShmChannel.class;
+        }
+        if (RpcAddress.isUnix(remoteAddress)) {
+            requireEpoll(remoteAddress);
+            return EpollDomainSocketChannel.class;
+        }
+        return socketChannelClass();
+    }
+
+    private void requireEpoll(SocketAddress address) {
+        if (!epoll) {
+            throw new IllegalStateException("unix domain socket " + address
+                    + " needs the epoll transport, current transport: " + getName());
+        }
+    }
+
+    /**
+     * 是否支持SO_REUSEPORT(多个监听socket绑定同一个端口)
+     */
+    public boolean supportsReusePort() {
+        return epoll;
+    }
+
+    /**
+     * 服务端：监听socket开启SO_REUSEPORT，之后同一个ServerBootstrap可以多次绑定同一个端口
+     */
+    public void enableReusePort(ServerBootstrap bootstrap) {
+        if (!supportsReusePort()) {
+            throw new IllegalStateException("SO_REUSEPORT is not supported by the "
+                    + getName() + " transport");
+        }
+        bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+    }
+
+    /**
+     * 服务端：监听socket使用边缘触发，接入的连接设置socket参数
+     */
+    @SuppressWarnings("unchecked")
+    public void applyServerOptions(ServerBootstrap bootstrap, RpcSocketOptions options,
+                                   SocketAddress localAddress) {
+        if (epoll && !RpcAddress.isSharedMemory(localAddress)) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        }
+        for (Map.Entry<ChannelOption<?>, Object> entry
+                : socketOptions(options, localAddress).entrySet()) {
+            bootstrap.childOption((ChannelOption<Object>) entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 客户端：发起的连接设置socket参数
+     */
+    @SuppressWarnings("unchecked")
+    public void applyClientOptions(Bootstrap bootstrap, RpcSocketOptions options,
+                                   SocketAddress remoteAddress) {
+        for (Map.Entry<ChannelOption<?>, Object> entry
+                : socketOptions(options, remoteAddress).entrySet()) {
+            bootstrap.option((ChannelOption<Object>) entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * unix domain socket只设置水位和边缘触发，TCP相关的参数对它没有意义
+     * 共享内存传输设置水位、环的大小和读线程的等待策略
+     */
+    private Map<ChannelOption<?>, Object> socketOptions(RpcSocketOptions options,
+                                                        SocketAddress address) {
+        Map<ChannelOption<?>, Object> socketOptions = new LinkedHashMap<>();
+        if (RpcAddress.isSharedMemory(address)) {
+            socketOptions.put(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                    new WriteBufferWaterMark(options.getWriteBufferLowWaterMark(),
+                            options.getWriteBufferHighWaterMark()));
+            socketOptions.put(RpcShmChannelConfig.RING_CAPACITY,
+                    options.getShmRingCapacity());
+            socketOptions.put(RpcShmChannelConfig.SPIN_ITERATIONS,
+                    options.getShmSpinIterations());
+            socketOptions.put(RpcShmChannelConfig.YIELD_ITERATIONS,
+                    options.getShmYieldIterations());
+            socketOptions.put(RpcShmChannelConfig.MAX_PARK_MICROS,
+                    options.getShmMaxParkMicros());
+            return socketOptions;
+        }
+        if (RpcAddress.isUnix(address)) {
+            socketOptions.put(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                    new WriteBufferWaterMark(options.getWriteBufferLowWaterMark(),
+                            options.getWriteBufferHighWaterMark()));
+            socketOptions.put(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+            return socketOptions;
+        }
+        socketOptions.put(ChannelOption.TCP_NODELAY, options.isTcpNoDelay());
+        if (options.getReceiveBufferSize() > 0) {
+            socketOptions.put(ChannelOption.SO_RCVBUF, options.getReceiveBufferSize());
+        }
+        if (options.getSendBufferSize() > 0) {
+            socketOptions.put(ChannelOption.SO_SNDBUF, options.getSendBufferSize());
+        }
+        socketOptions.put(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(options.getWriteBufferLowWaterMark(),
+                        options.getWriteBufferHighWaterMark()));
+        if (epoll) {
+            // Netty的epoll默认就是边缘触发，这里显式设置，避免被全局配置改掉
+            socketOptions.put(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+            if (options.isTcpQuickAck()) {
+                socketOptions.put(EpollChannelOption.TCP_QUICKACK, true);
+            }
+        } else if (options.isTcpQuickAck()) {
+            log.warn("TCP_QUICKACK is only supported by the epoll transport, ignored");
+        }
+        return socketOptions;
+    }
+}
@@ -0,0 +1,25 @@
+package com.rpc.netty.rapid.transport;
+
+/**
+ * 网络传输的实现方式
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:40
+ */
+public enum RpcTransportType {
+
+    /**
+     * Linux上native epoll可用时使用epoll，否则使用NIO
+     */
+    AUTO,
+
+    /**
+     * native epoll(边缘触发)，不可用时启动失败
+     */
+    EPOLL,
+
+    /**
+     * JDK NIO，所有平台都可用
+     */
+    NIO
+}
@@ -0,0 +1,55 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import java.io.File;
+import java.net.SocketAddress;
+
+/**
+ * 共享内存传输的地址，即服务端的目录
+ * 客户端在目录中创建内存映射文件发起连接，服务端扫描目录接受连接
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:00
+ */
+public final class RpcShmAddress extends SocketAddress {
+
+    private static final long serialVersionUID = 2816324913260181394L;
+
+    /**
+     * 服务端监听期间存在的标记文件，客户端据此判断服务端是否在线
+     */
+    static final String SERVER_MARKER = "rapid-rpc.server";
+
+    /**
+     * 已经初始化好、等待服务端接受的连接文件后缀
+     */
+    static final String SEGMENT_SUFFIX = ".shm";
+
+    private final String path;
+
+    public RpcShmAddress(String path) {
+        this.path = path;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    File directory() {
+        return new File(path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RpcShmAddress && ((RpcShmAddress) o).path.equals(path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "shm://" + path;
+    }
+}
@@ -0,0 +1,347 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.internal.StringUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通过内存映射文件中的两个单生产者单消费者环交换字节的channel，用于同一台机器上的进程间调用
+ * 1、写：EventLoop把出站的ByteBuf直接复制进发送环，环满时稍后重试，不阻塞EventLoop
+ * 2、读：每个连接一个读线程轮询接收环(忙等 -> yield -> park)，读到的字节交给EventLoop走正常的pipeline，
+ * 上一块还没有处理完时不再读取，背压通过环传给对端
+ * 环中是和socket上一样的字节流，编解码的handler不需要任何改动
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:40
+ */
+@Slf4j
+public class RpcShmChannel extends AbstractChannel {
+
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    private static final AtomicInteger READER_ID = new AtomicInteger();
+
+    /**
+     * 读线程每次最多交给EventLoop的字节数
+     */
+    private static final int MAX_READ_BYTES = 64 * 1024;
+
+    private static final long CONNECT_POLL_MICROS = 100;
+
+    private static final long WRITE_RETRY_MICROS = 10;
+
+    /**
+     * 读线程空闲时探测对端文件锁的间隔
+     */
+    private static final long PEER_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 每空闲这么多次才读一次时钟，忙等阶段不增加额外的开销
+     */
+    private static final int PEER_CHECK_IDLE_MASK = 1023;
+
+    private final RpcShmChannelConfig config = new RpcShmChannelConfig(this);
+
+    private final boolean server;
+
+    private volatile boolean open = true;
+
+    private volatile RpcShmSegment segment;
+
+    private volatile SocketAddress remoteAddress;
+
+    private volatile Thread reader;
+
+    /**
+     * 读线程交给EventLoop的数据还没有处理完，这期间读线程不再读取，
+     * 数据留在接收环里，环满之后对端的写自然暂停，池化内存不会无限增长
+     */
+    private volatile boolean readPending;
+
+    private RpcShmRing outbound;
+
+    private boolean writeRetryScheduled;
+
+    private final Runnable writeRetryTask = () -> {
+        writeRetryScheduled = false;
+        unsafe().flush();
+    };
+
+    public RpcShmChannel() {
+        super(null);
+        this.server = false;
+    }
+
+    /**
+     * 服务端接受的连接，segment已经是ACCEPTED状态
+     */
+    RpcShmChannel(RpcShmServerChannel parent, RpcShmSegment segment) {
+        super(parent);
+        this.server = true;
+        this.segment = segment;
+        this.remoteAddress = parent.localAddress();
+        this.outbound = segment.serverToClient();
+    }
+
+    @Override
+    protected AbstractUnsafe newUnsafe() {
+        return new ShmUnsafe();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof SingleThreadEventLoop;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return server ? parent().localAddress() : null;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remoteAddress;
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        if (server) {
+            startReader();
+        }
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        throw new UnsupportedOperationException("shared memory channel can not bind");
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        open = false;
+        RpcShmSegment segment = this.segment;
+        if (segment == null) {
+            return;
+        }
+        segment.markClosed();
+        // 通常客户端在被接受之后已经删除了文件，没有被接受或者客户端异常退出时由关闭的一方删除
+        segment.deleteFile();
+        Thread reader = this.reader;
+        if (reader != null && reader != Thread.currentThread()) {
+            reader.interrupt();
+            reader.join(TimeUnit.SECONDS.toMillis(1));
+            if (reader.isAlive()) {
+                // 读线程还可能访问映射内存，交给GC回收
+                log.warn("shared memory reader did not stop, segment: {}", segment);
+                return;
+            }
+        }
+        segment.release();
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        // 读线程一直在读，autoRead关闭的场景这里没有用到
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        for (; ; ) {
+            Object msg = in.current();
+            if (msg == null) {
+                return;
+            }
+            if (!(msg instanceof ByteBuf)) {
+                in.remove(new UnsupportedOperationException("unsupported message type: "
+                        + StringUtil.simpleClassName(msg)));
+                continue;
+            }
+            ByteBuf buf = (ByteBuf) msg;
+            int readable = buf.readableBytes();
+            if (readable == 0) {
+                in.remove();
+                continue;
+            }
+            int written = outbound.write(buf, buf.readerIndex(), readable);
+            if (written > 0) {
+                in.removeBytes(written);
+            }
+            if (written < readable) {
+                // 对端还没有读走，稍后继续写
+                scheduleWriteRetry();
+                return;
+            }
+        }
+    }
+
+    private void scheduleWriteRetry() {
+        if (!writeRetryScheduled) {
+            writeRetryScheduled = true;
+            eventLoop().schedule(writeRetryTask, WRITE_RETRY_MICROS, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void startReader() {
+        RpcShmRing inbound = server ? segment.clientToServer() : segment.serverToClient();
+        Thread thread = new Thread(() -> read(inbound),
+                "rapid-rpc-shm-reader-" + READER_ID.incrementAndGet());
+        thread.setDaemon(true);
+        reader = thread;
+        thread.start();
+    }
+
+    /**
+     * 读线程：读到数据交给EventLoop，同一时间最多有一块数据在等待EventLoop处理，
+     * 对端关闭(或者对端进程已经退出)并且数据读完之后关闭channel
+     */
+    private void read(RpcShmRing inbound) {
+        RpcShmIdleStrategy idleStrategy = config.newIdleStrategy();
+        RpcShmSegment segment = this.segment;
+        long nextPeerCheck = System.nanoTime() + PEER_CHECK_NANOS;
+        int idleCount = 0;
+        while (open) {
+            if (readPending) {
+                // EventLoop处理一块数据很快，让出CPU等待即可，不进入park
+                Thread.yield();
+                continue;
+            }
+            ByteBuf buf = inbound.read(config.getAllocator(), MAX_READ_BYTES);
+            if (buf != null) {
+                idleStrategy.reset();
+                readPending = true;
+                try {
+                    eventLoop().execute(() -> {
+                        try {
+                            pipeline().fireChannelRead(buf);
+                            pipeline().fireChannelReadComplete();
+                        } finally {
+                            readPending = false;
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // EventLoop已经关闭
+                    buf.release();
+                    return;
+                }
+                continue;
+            }
+            if (segment.isClosed()) {
+                eventLoop().execute(() -> unsafe().close(unsafe().voidPromise()));
+                return;
+            }
+            // 对端进程被kill时来不及把状态改成CLOSED，通过文件锁发现
+            if ((++idleCount & PEER_CHECK_IDLE_MASK) == 0) {
+                long now = System.nanoTime();
+                if (now - nextPeerCheck >= 0) {
+                    nextPeerCheck = now + PEER_CHECK_NANOS;
+                    if (!segment.isPeerAlive(server)) {
+                        log.warn("shared memory peer is gone, segment: {}", segment);
+                        segment.markClosed();
+                        continue;
+                    }
+                }
+            }
+            idleStrategy.idle();
+        }
+    }
+
+    @Override
+    public ChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isActive() {
+        return open && outbound != null;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    private final class ShmUnsafe extends AbstractUnsafe {
+
+        @Override
+        public void connect(SocketAddress remote, SocketAddress local,
+                            ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+            if (segment != null) {
+                promise.setFailure(new IllegalStateException("already connecting"));
+                return;
+            }
+            if (!(remote instanceof RpcShmAddress)) {
+                promise.setFailure(new IllegalArgumentException(
+                        "unsupported address: " + remote));
+                return;
+            }
+            File directory = ((RpcShmAddress) remote).directory();
+            try {
+                if (!new File(directory, RpcShmAddress.SERVER_MARKER).exists()) {
+                    throw new ConnectException("no shared memory server at " + remote);
+                }
+                segment = RpcShmSegment.create(directory, config.getRingCapacity());
+            } catch (Exception e) {
+                safeSetFailure(promise, annotateConnectException(e, remote));
+                close(voidPromise());
+                return;
+            }
+            remoteAddress = remote;
+            long deadline = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(config.getConnectTimeoutMillis());
+            waitAccepted(promise, deadline);
+        }
+
+        /**
+         * 每隔一小段时间检查服务端是否接受了连接
+         */
+        private void waitAccepted(ChannelPromise promise, long deadline) {
+            eventLoop().schedule(() -> {
+                if (!isOpen()) {
+                    return;
+                }
+                int state = segment.state();
+                if (state == RpcShmSegment.STATE_ACCEPTED) {
+                    segment.deleteFile();
+                    outbound = segment.clientToServer();
+                    startReader();
+                    safeSetSuccess(promise);
+                    pipeline().fireChannelActive();
+                } else if (state == RpcShmSegment.STATE_CLOSED
+                        || System.nanoTime() - deadline > 0) {
+                    safeSetFailure(promise, new ConnectTimeoutException(
+                            "shared memory connection not accepted: " + remoteAddress));
+                    close(voidPromise());
+                } else {
+                    waitAccepted(promise, deadline);
+                }
+            }, CONNECT_POLL_MICROS, TimeUnit.MICROSECONDS);
+        }
+    }
+}
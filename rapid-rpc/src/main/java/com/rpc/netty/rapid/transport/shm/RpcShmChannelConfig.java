@@ -0,0 +1,102 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultChannelConfig;
+
+import java.util.Map;
+
+/**
+ * 共享内存连接的参数
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:35
+ */
+public class RpcShmChannelConfig extends DefaultChannelConfig {
+
+    /**
+     * 每个方向的环的大小(字节)，由客户端决定
+     */
+    public static final ChannelOption<Integer> RING_CAPACITY =
+            ChannelOption.valueOf(RpcShmChannelConfig.class, "RING_CAPACITY");
+
+    /**
+     * 读线程没有数据时忙等的次数
+     */
+    public static final ChannelOption<Integer> SPIN_ITERATIONS =
+            ChannelOption.valueOf(RpcShmChannelConfig.class, "SPIN_ITERATIONS");
+
+    /**
+     * 忙等之后Thread.yield的次数
+     */
+    public static final ChannelOption<Integer> YIELD_ITERATIONS =
+            ChannelOption.valueOf(RpcShmChannelConfig.class, "YIELD_ITERATIONS");
+
+    /**
+     * 最后阶段park的最长时间(微秒)
+     */
+    public static final ChannelOption<Integer> MAX_PARK_MICROS =
+            ChannelOption.valueOf(RpcShmChannelConfig.class, "MAX_PARK_MICROS");
+
+    private volatile int ringCapacity = 1024 * 1024;
+
+    private volatile int spinIterations = 100;
+
+    private volatile int yieldIterations = 1000;
+
+    private volatile int maxParkMicros = 1000;
+
+    RpcShmChannelConfig(Channel channel) {
+        super(channel);
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(super.getOptions(), RING_CAPACITY, SPIN_ITERATIONS,
+                YIELD_ITERATIONS, MAX_PARK_MICROS);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == RING_CAPACITY) {
+            return (T) Integer.valueOf(ringCapacity);
+        }
+        if (option == SPIN_ITERATIONS) {
+            return (T) Integer.valueOf(spinIterations);
+        }
+        if (option == YIELD_ITERATIONS) {
+            return (T) Integer.valueOf(yieldIterations);
+        }
+        if (option == MAX_PARK_MICROS) {
+            return (T) Integer.valueOf(maxParkMicros);
+        }
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        validate(option, value);
+        if (option == RING_CAPACITY) {
+            ringCapacity = (Integer) value;
+        } else if (option == SPIN_ITERATIONS) {
+            spinIterations = (Integer) value;
+        } else if (option == YIELD_ITERATIONS) {
+            yieldIterations = (Integer) value;
+        } else if (option == MAX_PARK_MICROS) {
+            maxParkMicros = (Integer) value;
+        } else {
+            return super.setOption(option, value);
+        }
+        return true;
+    }
+
+    public int getRingCapacity() {
+        return ringCapacity;
+    }
+
+    RpcShmIdleStrategy newIdleStrategy() {
+        return new RpcShmIdleStrategy(spinIterations, yieldIterations,
+                maxParkMicros * 1000L);
+    }
+}
@@ -0,0 +1,56 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 读线程没有数据时的等待策略：先忙等，再让出CPU，最后park并逐步加长时间
+ * 对端在另一个进程中，没有办法unpark，park的最长时间就是空闲之后第一条消息的最大额外延迟
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:30
+ */
+final class RpcShmIdleStrategy {
+
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final int spinIterations;
+
+    private final int yieldIterations;
+
+    private final long maxParkNanos;
+
+    private int spins;
+
+    private int yields;
+
+    private long parkNanos;
+
+    RpcShmIdleStrategy(int spinIterations, int yieldIterations, long maxParkNanos) {
+        this.spinIterations = spinIterations;
+        this.yieldIterations = yieldIterations;
+        this.maxParkNanos = maxParkNanos;
+        reset();
+    }
+
+    void idle() {
+        if (spins < spinIterations) {
+            spins++;
+        } else if (yields < yieldIterations) {
+            yields++;
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+        }
+    }
+
+    /**
+     * 读到数据之后重新从忙等开始
+     */
+    void reset() {
+        spins = 0;
+        yields = 0;
+        parkNanos = MIN_PARK_NANOS;
+    }
+}
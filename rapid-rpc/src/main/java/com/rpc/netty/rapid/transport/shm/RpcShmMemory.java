@@ -0,0 +1,53 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * 按照地址读写映射内存中的控制字段，提供跨进程可见的volatile读、有序写和CAS
+ * 数据本身通过ByteBuffer复制，只有读写位置和连接状态需要内存屏障
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:05
+ */
+final class RpcShmMemory {
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private RpcShmMemory() {
+    }
+
+    static long getLongVolatile(long address) {
+        return UNSAFE.getLongVolatile(null, address);
+    }
+
+    /**
+     * 之前写入的数据对读到这个值的一方可见(store-release)
+     */
+    static void putLongOrdered(long address, long value) {
+        UNSAFE.putOrderedLong(null, address, value);
+    }
+
+    static int getIntVolatile(long address) {
+        return UNSAFE.getIntVolatile(null, address);
+    }
+
+    static void putIntVolatile(long address, int value) {
+        UNSAFE.putIntVolatile(null, address, value);
+    }
+
+    static boolean compareAndSwapInt(long address, int expect, int update) {
+        return UNSAFE.compareAndSwapInt(null, address, expect, update);
+    }
+}
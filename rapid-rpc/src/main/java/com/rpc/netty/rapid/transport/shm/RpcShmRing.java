@@ -0,0 +1,119 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 映射内存中的单生产者单消费者字节环形缓冲
+ * | head(8) 填充到64字节 | tail(8) 填充到64字节 | 数据(capacity，2的幂) |
+ * head和tail是单调递增的读写位置，分别只由消费者和生产者修改，放在不同的缓存行上避免伪共享
+ * 环中传输的是字节流，由RpcDecoder按照协议头拆包，和socket上的编解码完全一致
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:10
+ */
+final class RpcShmRing {
+
+    static final int HEADER_SIZE = 128;
+
+    private static final int HEAD_OFFSET = 0;
+
+    private static final int TAIL_OFFSET = 64;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final long headAddress;
+
+    private final long tailAddress;
+
+    /**
+     * 生产者和消费者各自使用一个视图，position/limit互不影响
+     */
+    private final ByteBuffer writerView;
+
+    private final ByteBuffer readerView;
+
+    /**
+     * 生产者缓存的消费位置，空间不够时才重新读取
+     */
+    private long headCache;
+
+    /**
+     * 消费者缓存的生产位置，没有数据时才重新读取
+     */
+    private long tailCache;
+
+    /**
+     * @param region      映射内存中属于这个环的区域(包括头部)
+     * @param baseAddress region起始位置的内存地址
+     * @param capacity    数据区的大小
+     */
+    RpcShmRing(ByteBuffer region, long baseAddress, int capacity) {
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.headAddress = baseAddress + HEAD_OFFSET;
+        this.tailAddress = baseAddress + TAIL_OFFSET;
+        region.position(HEADER_SIZE).limit(HEADER_SIZE + capacity);
+        this.writerView = region.slice();
+        this.readerView = region.slice();
+        this.headCache = RpcShmMemory.getLongVolatile(headAddress);
+        this.tailCache = RpcShmMemory.getLongVolatile(tailAddress);
+    }
+
+    /**
+     * 生产者写入尽可能多的字节，空间不够时只写入一部分
+     *
+     * @return 实际写入的字节数，环满时返回0
+     */
+    int write(ByteBuf src, int index, int length) {
+        long tail = RpcShmMemory.getLongVolatile(tailAddress);
+        if (capacity - (tail - headCache) < length) {
+            headCache = RpcShmMemory.getLongVolatile(headAddress);
+        }
+        int n = Math.min(length, capacity - (int) (tail - headCache));
+        if (n <= 0) {
+            return 0;
+        }
+        int offset = (int) (tail & mask);
+        int first = Math.min(n, capacity - offset);
+        writerView.clear().position(offset).limit(offset + first);
+        src.getBytes(index, writerView);
+        if (n > first) {
+            writerView.clear().limit(n - first);
+            src.getBytes(index + first, writerView);
+        }
+        RpcShmMemory.putLongOrdered(tailAddress, tail + n);
+        return n;
+    }
+
+    /**
+     * 消费者读出当前可读的字节，最多maxBytes个
+     *
+     * @return 读出的数据，没有数据时返回null
+     */
+    ByteBuf read(ByteBufAllocator allocator, int maxBytes) {
+        long head = RpcShmMemory.getLongVolatile(headAddress);
+        if (tailCache == head) {
+            tailCache = RpcShmMemory.getLongVolatile(tailAddress);
+            if (tailCache == head) {
+                return null;
+            }
+        }
+        int n = (int) Math.min(tailCache - head, maxBytes);
+        int offset = (int) (head & mask);
+        int first = Math.min(n, capacity - offset);
+        ByteBuf dst = allocator.ioBuffer(n);
+        readerView.clear().position(offset).limit(offset + first);
+        dst.writeBytes(readerView);
+        if (n > first) {
+            readerView.clear().limit(n - first);
+            dst.writeBytes(readerView);
+        }
+        RpcShmMemory.putLongOrdered(headAddress, head + n);
+        return dst;
+    }
+}
@@ -0,0 +1,276 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.UUID;
+
+/**
+ * 一个共享内存连接对应的内存映射文件
+ * | magic(4) | capacity(4) | 填充 | state(4) 填充到128字节 | 客户端->服务端的环 | 服务端->客户端的环 |
+ * 客户端初始化好之后把文件改名为*.shm，服务端通过CAS把状态从READY改成ACCEPTED来接受连接，
+ * 任何一方关闭时把状态改成CLOSED，对端读完剩余的数据后关闭自己的channel
+ * 双方各自对文件中的一个字节加文件锁并一直持有，进程退出时由操作系统释放，
+ * 对端能加上这个锁就说明持有者已经不在了(被kill的进程来不及把状态改成CLOSED)
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:20
+ */
+final class RpcShmSegment {
+
+    static final int STATE_READY = 1;
+
+    static final int STATE_ACCEPTED = 2;
+
+    static final int STATE_CLOSED = 3;
+
+    private static final int MAGIC = 0x52505348;
+
+    private static final int HEADER_SIZE = 128;
+
+    private static final int CAPACITY_OFFSET = 4;
+
+    private static final int STATE_OFFSET = 64;
+
+    private static final int MIN_CAPACITY = 4096;
+
+    /**
+     * 客户端和服务端各自持有的文件锁的位置，只用来加锁，不存放数据
+     */
+    private static final int CLIENT_LOCK_OFFSET = 8;
+
+    private static final int SERVER_LOCK_OFFSET = 12;
+
+    private final File file;
+
+    private final MappedByteBuffer buffer;
+
+    /**
+     * 一直打开，关闭时会释放这个文件上的锁
+     */
+    private final FileChannel fileChannel;
+
+    private volatile FileLock ownLock;
+
+    private final long stateAddress;
+
+    private final RpcShmRing clientToServer;
+
+    private final RpcShmRing serverToClient;
+
+    private RpcShmSegment(File file, FileChannel fileChannel, MappedByteBuffer buffer,
+                          int capacity) {
+        this.file = file;
+        this.fileChannel = fileChannel;
+        this.buffer = buffer;
+        long address = PlatformDependent.directBufferAddress(buffer);
+        this.stateAddress = address + STATE_OFFSET;
+        int ringSize = RpcShmRing.HEADER_SIZE + capacity;
+        this.clientToServer = new RpcShmRing(region(HEADER_SIZE, ringSize),
+                address + HEADER_SIZE, capacity);
+        this.serverToClient = new RpcShmRing(region(HEADER_SIZE + ringSize, ringSize),
+                address + HEADER_SIZE + ringSize, capacity);
+    }
+
+    /**
+     * 客户端在服务端目录中创建一个新的连接文件，初始化完成后才对服务端可见
+     *
+     * @param directory 服务端的目录
+     * @param capacity  每个方向的环的大小，向上取整到2的幂
+     * @return 状态为READY的连接文件
+     * @author debao.yang
+     * @since 2026/10/19 02:22
+     */
+    static RpcShmSegment create(File directory, int capacity) throws IOException {
+        int ringCapacity = Math.max(MIN_CAPACITY,
+                Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        String name = UUID.randomUUID().toString();
+        File tmp = new File(directory, name + ".tmp");
+        File file = new File(directory, name + RpcShmAddress.SEGMENT_SUFFIX);
+        long size = HEADER_SIZE + 2L * (RpcShmRing.HEADER_SIZE + ringCapacity);
+        RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+        MappedByteBuffer buffer;
+        FileLock lock;
+        try {
+            raf.setLength(size);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            // 发布之前加锁，服务端看到的文件一定已经有客户端的锁
+            lock = raf.getChannel().lock(CLIENT_LOCK_OFFSET, 1, false);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            tmp.delete();
+            throw e;
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(CAPACITY_OFFSET, ringCapacity);
+        RpcShmSegment segment = new RpcShmSegment(file, raf.getChannel(), buffer,
+                ringCapacity);
+        segment.ownLock = lock;
+        RpcShmMemory.putIntVolatile(segment.stateAddress, STATE_READY);
+        if (!tmp.renameTo(file)) {
+            segment.release();
+            tmp.delete();
+            throw new IOException("can not publish shared memory segment: " + file);
+        }
+        return segment;
+    }
+
+    /**
+     * 服务端打开客户端创建的连接文件
+     *
+     * @return 文件已经被删除时返回null
+     * @throws IllegalArgumentException 不是合法的连接文件(被截断、容量或者magic不对)
+     */
+    static RpcShmSegment open(File file) {
+        RandomAccessFile raf;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+        } catch (IOException e) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        long length;
+        try {
+            length = raf.length();
+            if (length < HEADER_SIZE) {
+                throw new IllegalArgumentException("truncated shared memory segment: "
+                        + file + ", length: " + length);
+            }
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } catch (IOException e) {
+            closeQuietly(raf);
+            return null;
+        } catch (RuntimeException e) {
+            closeQuietly(raf);
+            throw e;
+        }
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        String error = null;
+        if (buffer.getInt(0) != MAGIC) {
+            error = "bad magic";
+        } else if (capacity < MIN_CAPACITY || (capacity & (capacity - 1)) != 0) {
+            error = "bad ring capacity " + capacity;
+        } else if (length != HEADER_SIZE + 2L * (RpcShmRing.HEADER_SIZE + capacity)) {
+            error = "length " + length + " does not match ring capacity " + capacity;
+        }
+        if (error != null) {
+            closeQuietly(raf);
+            PlatformDependent.freeDirectBuffer(buffer);
+            throw new IllegalArgumentException("invalid shared memory segment: "
+                    + file + ", " + error);
+        }
+        return new RpcShmSegment(file, raf.getChannel(), buffer, capacity);
+    }
+
+    private static void closeQuietly(RandomAccessFile raf) {
+        try {
+            raf.close();
+        } catch (IOException ignored) {
+            // 只读过长度和映射，关闭失败没有影响
+        }
+    }
+
+    private ByteBuffer region(int offset, int length) {
+        ByteBuffer region = buffer.duplicate();
+        region.position(offset).limit(offset + length);
+        return region.slice();
+    }
+
+    int state() {
+        return RpcShmMemory.getIntVolatile(stateAddress);
+    }
+
+    /**
+     * 服务端接受连接：先加上服务端的锁，再把状态从READY改成ACCEPTED，
+     * 客户端看到ACCEPTED的时候服务端的锁一定已经存在
+     *
+     * @return 已经被接受或者客户端已经放弃时返回false
+     */
+    boolean accept() {
+        try {
+            ownLock = fileChannel.tryLock(SERVER_LOCK_OFFSET, 1, false);
+        } catch (IOException | OverlappingFileLockException e) {
+            return false;
+        }
+        if (ownLock == null) {
+            return false;
+        }
+        return RpcShmMemory.compareAndSwapInt(stateAddress, STATE_READY, STATE_ACCEPTED);
+    }
+
+    /**
+     * 探测对端进程是否还持有它的文件锁
+     *
+     * @param server 调用方是否是服务端
+     * @return 对端的锁还在时返回true
+     */
+    boolean isPeerAlive(boolean server) {
+        long position = server ? CLIENT_LOCK_OFFSET : SERVER_LOCK_OFFSET;
+        FileLock probe;
+        try {
+            probe = fileChannel.tryLock(position, 1, false);
+        } catch (OverlappingFileLockException e) {
+            // 对端在同一个进程中，并且还持有锁
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+        if (probe == null) {
+            return true;
+        }
+        try {
+            probe.release();
+        } catch (IOException ignored) {
+            // 关闭时会一起释放
+        }
+        return false;
+    }
+
+    void markClosed() {
+        RpcShmMemory.putIntVolatile(stateAddress, STATE_CLOSED);
+    }
+
+    boolean isClosed() {
+        return state() == STATE_CLOSED;
+    }
+
+    RpcShmRing clientToServer() {
+        return clientToServer;
+    }
+
+    RpcShmRing serverToClient() {
+        return serverToClient;
+    }
+
+    /**
+     * 双方都映射之后文件名就没有用了，删除之后内存在两边解除映射时释放
+     */
+    void deleteFile() {
+        file.delete();
+    }
+
+    /**
+     * 解除映射，调用之后不能再访问这个连接的任何内存
+     */
+    void release() {
+        try {
+            // 关闭时释放自己持有的锁
+            fileChannel.close();
+        } catch (IOException e) {
+            // 没有其他需要清理的状态
+        }
+        PlatformDependent.freeDirectBuffer(buffer);
+    }
+
+    @Override
+    public String toString() {
+        return file.getName();
+    }
+}
@@ -0,0 +1,173 @@
+package com.rpc.netty.rapid.transport.shm;
+
+import io.netty.channel.AbstractServerChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享内存传输的服务端channel
+ * 绑定时创建目录和标记文件，之后定期扫描目录中的*.shm文件，抢到(CAS)的连接交给childGroup
+ * 接受的连接不在selector上注册，EventLoop关闭时不会被自动关闭，所以关闭服务端channel时一起关闭
+ *
+ * @author debao.yang
+ * @since 2026/10/19 02:50
+ */
+@Slf4j
+public class RpcShmServerChannel extends AbstractServerChannel {
+
+    private static final long ACCEPT_POLL_MILLIS = 1;
+
+    private final ChannelConfig config = new DefaultChannelConfig(this);
+
+    private volatile boolean open = true;
+
+    private volatile RpcShmAddress localAddress;
+
+    private ScheduledFuture<?> acceptFuture;
+
+    private final Set<Channel> children = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已经接受、客户端还没有删除的连接文件，扫描时跳过
+     * 文件锁属于进程，同一个进程关闭这个文件的任何一个描述符都会释放连接持有的锁，
+     * 所以接受之后不能再打开这个文件
+     */
+    private final Set<String> acceptedFiles = ConcurrentHashMap.newKeySet();
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof SingleThreadEventLoop;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return localAddress;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        if (!(localAddress instanceof RpcShmAddress)) {
+            throw new IllegalArgumentException("unsupported address: " + localAddress);
+        }
+        RpcShmAddress address = (RpcShmAddress) localAddress;
+        File directory = address.directory();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create shared memory directory: " + directory);
+        }
+        // 上一个进程遗留的连接文件已经没有客户端在等待
+        File[] stale = directory.listFiles((dir, name) ->
+                name.endsWith(RpcShmAddress.SEGMENT_SUFFIX) || name.endsWith(".tmp"));
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
+            }
+        }
+        File marker = new File(directory, RpcShmAddress.SERVER_MARKER);
+        if (!marker.exists() && !marker.createNewFile()) {
+            throw new IOException("can not create server marker: " + marker);
+        }
+        this.localAddress = address;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        open = false;
+        if (acceptFuture != null) {
+            acceptFuture.cancel(false);
+        }
+        RpcShmAddress address = this.localAddress;
+        if (address != null) {
+            new File(address.directory(), RpcShmAddress.SERVER_MARKER).delete();
+        }
+        for (Channel child : children) {
+            child.close();
+        }
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        if (acceptFuture == null) {
+            acceptFuture = eventLoop().scheduleWithFixedDelay(this::accept,
+                    ACCEPT_POLL_MILLIS, ACCEPT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void accept() {
+        File[] files = localAddress.directory().listFiles((dir, name) ->
+                name.endsWith(RpcShmAddress.SEGMENT_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        boolean accepted = false;
+        for (File file : files) {
+            String name = file.getName();
+            if (acceptedFiles.contains(name)) {
+                continue;
+            }
+            RpcShmSegment segment;
+            try {
+                segment = RpcShmSegment.open(file);
+            } catch (RuntimeException e) {
+                // 不是客户端发布的连接文件(客户端只在初始化完成后改名)，删除后继续扫描，
+                // 异常不能抛出定时任务，否则之后再也不会接受连接
+                log.warn("skip invalid shared memory segment: {}", file, e);
+                file.delete();
+                continue;
+            }
+            if (segment == null) {
+                continue;
+            }
+            if (!segment.isPeerAlive(true)) {
+                // 客户端进程在服务端接受之前退出了，留下的文件没有人会删除
+                log.warn("client of shared memory segment is gone: {}", file);
+                segment.release();
+                file.delete();
+                continue;
+            }
+            if (segment.accept()) {
+                accepted = true;
+                RpcShmChannel child = new RpcShmChannel(this, segment);
+                children.add(child);
+                acceptedFiles.add(name);
+                child.closeFuture().addListener(future -> {
+                    children.remove(child);
+                    acceptedFiles.remove(name);
+                });
+                pipeline().fireChannelRead(child);
+            } else {
+                // 已经被接受或者客户端已经放弃，文件由客户端删除
+                segment.release();
+            }
+        }
+        if (accepted) {
+            pipeline().fireChannelReadComplete();
+        }
+    }
+
+    @Override
+    public ChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isActive() {
+        return open && localAddress != null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.provider.test.HelloServiceImpl;
+import com.rpc.netty.rapid.transport.RpcTransport;
+import com.rpc.netty.rapid.transport.RpcTransportType;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 建立连接的吞吐：每次同时发起几千个连接(模拟发布和客户端集中重连)，等待全部建立之后再全部关闭
+ * 对比单个监听socket和SO_REUSEPORT的多个监听socket，backlog较小时单个accept线程更容易出现SYN丢弃
+ * 连接失败的个数在每轮结束时打印，需要Linux的epoll以及足够大的文件句柄上限(ulimit -n)
+ *
+ * @author debao.yang
+ * @since 2026/10/19 00:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1)
+@Measurement(iterations = 10, batchSize = 1)
+@Fork(1)
+public class AcceptBenchmark {
+
+    private static final int PORT = 8773;
+
+    @Param({"1", "4"})
+    private int acceptors;
+
+    @Param({"128", "1024"})
+    private int backlog;
+
+    @Param({"4000"})
+    private int connections;
+
+    private RpcServerConfig serverConfig;
+
+    private EventLoopGroup clientGroup;
+
+    private Bootstrap bootstrap;
+
+    private int failures;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(new HelloServiceImpl());
+        serverConfig = new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.setTransport(RpcTransportType.EPOLL);
+        serverConfig.setAcceptors(acceptors);
+        serverConfig.setBacklog(backlog);
+        serverConfig.exporter();
+
+        RpcTransport transport = RpcTransport.resolve(RpcTransportType.EPOLL);
+        clientGroup = transport.newEventLoopGroup(4, "accept-benchmark-client");
+        bootstrap = new Bootstrap()
+                .group(clientGroup)
+                .channel(transport.socketChannelClass())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        // 只测量建立连接，不需要任何处理器
+                    }
+                });
+    }
+
+    @TearDown(Level.Iteration)
+    public void printFailures() {
+        System.out.printf("%nacceptors: %d, backlog: %d, failed connects: %d%n",
+                acceptors, backlog, failures);
+        failures = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientGroup.shutdownGracefully();
+        serverConfig.getRpcServer().close();
+    }
+
+    @Benchmark
+    public int connectStorm() throws InterruptedException {
+        List<ChannelFuture> futures = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            futures.add(bootstrap.connect("127.0.0.1", PORT));
+        }
+        List<Channel> channels = new ArrayList<>(connections);
+        for (ChannelFuture future : futures) {
+            future.await();
+            if (future.isSuccess()) {
+                channels.add(future.channel());
+            } else {
+                failures++;
+            }
+        }
+        for (Channel channel : channels) {
+            channel.close();
+        }
+        for (Channel channel : channels) {
+            channel.closeFuture().await();
+        }
+        return channels.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AcceptBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.provider.test.HelloServiceImpl;
+import com.rpc.netty.rapid.server.RpcInvoker;
+import com.rpc.netty.rapid.server.RpcInvokerRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.cglib.reflect.FastMethod;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端方法分发的性能对比
+ * 1、legacy: 每次请求都FastClass.create + getMethod (原来RpcServerHandler.handle的做法)
+ * 2、lookup: 从预先生成的注册表中按类名/方法名/参数类型查找
+ * 3、methodId: 按紧凑的方法id直接取数组
+ *
+ * @author debao.yang
+ * @since 2026/10/18 10:45
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+
+    private final Object serviceRef = new HelloServiceImpl();
+
+    private final RpcInvokerRegistry registry = new RpcInvokerRegistry();
+
+    private final Object[] parameters = new Object[]{"zhang3"};
+
+    private RpcRequest request;
+
+    private int methodId;
+
+    @Setup
+    public void setup() {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(serviceRef);
+        registry.register(providerConfig);
+
+        request = new RpcRequest();
+        request.setClassName(HelloService.class.getName());
+        request.setMethodName("hello");
+        request.setParameterTypes(new Class<?>[]{String.class});
+        request.setParameters(parameters);
+
+        methodId = registry.lookup(request).getMethodId();
+    }
+
+    @Benchmark
+    public Object legacy() throws InvocationTargetException {
+        FastClass serviceFastClass = FastClass.create(serviceRef.getClass());
+        FastMethod serviceFastMethod = serviceFastClass.getMethod(
+                request.getMethodName(), request.getParameterTypes());
+        return serviceFastMethod.invoke(serviceRef, request.getParameters());
+    }
+
+    @Benchmark
+    public Object lookup() throws Throwable {
+        RpcInvoker invoker = registry.lookup(request);
+        return invoker.invoke(request.getParameters());
+    }
+
+    @Benchmark
+    public Object methodId() throws Throwable {
+        RpcInvoker invoker = registry.getInvoker(methodId);
+        return invoker.invoke(request.getParameters());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvokerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
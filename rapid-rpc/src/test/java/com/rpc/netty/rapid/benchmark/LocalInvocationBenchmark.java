@@ -0,0 +1,87 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.consumer.test.User;
+import com.rpc.netty.rapid.invoke.provider.test.HelloServiceImpl;
+import com.rpc.netty.rapid.local.RpcLocalInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务提供者和调用方在同一个进程中时，网络调用和进程内短路调用的对比
+ * user参数是可变对象，DEEP_COPY时会复制一份；name参数是String，不需要复制
+ *
+ * @author debao.yang
+ * @since 2026/10/19 01:35
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalInvocationBenchmark {
+
+    private static final int PORT = 8775;
+
+    @Param({"DISABLED", "PASS_THROUGH", "DEEP_COPY"})
+    private RpcLocalInvocation localInvocation;
+
+    private RpcServerConfig serverConfig;
+
+    private RpcClient rpcClient;
+
+    private HelloService service;
+
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(new HelloServiceImpl());
+        serverConfig = new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.exporter();
+
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        clientConfig.setLocalInvocation(localInvocation);
+        rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:" + PORT, 3000, clientConfig);
+        service = rpcClient.invokeSync(HelloService.class);
+        user = new User("1", "li4");
+        // 等待连接建立和序列化协商
+        Thread.sleep(500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rpcClient.stop();
+        serverConfig.getRpcServer().close();
+    }
+
+    @Benchmark
+    public String helloName() {
+        return service.hello("li4");
+    }
+
+    @Benchmark
+    public String helloUser() {
+        return service.hello(user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocalInvocationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.client.proxy.RpcProxyImpl;
+import com.rpc.netty.rapid.client.proxy.RpcStubFactory;
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端代理每次调用的开销：从调用接口方法到生成RpcRequest为止，不包含网络部分
+ * legacyJdkProxy：原来的JDK代理，每次调用都反射读取方法信息并生成UUID
+ * jdkProxy：JDK代理 + 按Method缓存的方法描述
+ * cglibStub：cglib生成的桩代码，方法描述固化在每个方法的回调中
+ *
+ * @author debao.yang
+ * @since 2026/10/18 19:00
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyOverheadBenchmark {
+
+    private HelloService legacyJdkProxy;
+
+    private HelloService jdkProxy;
+
+    private HelloService cglibStub;
+
+    @Setup
+    public void setup() {
+        InvocationHandler legacyHandler = (proxy, method, args) -> {
+            RpcRequest request = new RpcRequest();
+            request.setLegacyRequestId(UUID.randomUUID().toString());
+            request.setClassName(method.getDeclaringClass().getName());
+            request.setMethodName(method.getName());
+            request.setParameterTypes(method.getParameterTypes());
+            request.setParameters(args);
+            return request.getMethodName();
+        };
+        legacyJdkProxy = (HelloService) Proxy.newProxyInstance(
+                HelloService.class.getClassLoader(),
+                new Class<?>[]{HelloService.class}, legacyHandler);
+
+        jdkProxy = (HelloService) Proxy.newProxyInstance(
+                HelloService.class.getClassLoader(),
+                new Class<?>[]{HelloService.class}, new LocalProxyImpl());
+
+        cglibStub = RpcStubFactory.createSyncStub(HelloService.class,
+                new LocalProxyImpl());
+    }
+
+    @Benchmark
+    public String legacyJdkProxy() {
+        return legacyJdkProxy.hello("li4");
+    }
+
+    @Benchmark
+    public String jdkProxy() {
+        return jdkProxy.hello("li4");
+    }
+
+    @Benchmark
+    public String cglibStub() {
+        return cglibStub.hello("li4");
+    }
+
+    /**
+     * 不发送请求，直接返回方法名，只测量代理本身的开销
+     */
+    private static class LocalProxyImpl extends RpcProxyImpl<HelloService> {
+
+        LocalProxyImpl() {
+            super(null, HelloService.class, 3000, null);
+        }
+
+        @Override
+        protected Object invokeRemote(RpcRequest request) {
+            return request.getMethodName();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProxyOverheadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,117 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.consumer.test.User;
+import com.rpc.netty.rapid.server.RpcNonBlocking;
+import com.rpc.netty.rapid.server.RpcServerStats;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回环地址上服务端写响应方式的对比，SampleTime模式下JMH直接给出p99延迟
+ * flushPerResponse：工作线程中每个响应单独writeAndFlush(原来的方式)
+ * coalesced：工作线程完成的响应进入连接的写队列，IO线程批量flush
+ * ioThread：标记了RpcNonBlocking的方法直接在IO线程中执行
+ * 每轮结束时打印服务端每次flush平均携带的响应个数
+ *
+ * @author debao.yang
+ * @since 2026/10/18 17:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ResponseFlushBenchmark {
+
+    private static final int PORT = 8768;
+
+    @Param({"flushPerResponse", "coalesced", "ioThread"})
+    private String mode;
+
+    private RpcServerConfig serverConfig;
+
+    private RpcClient rpcClient;
+
+    private HelloService service;
+
+    private long flushesBefore;
+
+    private long responsesBefore;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(new NonBlockingHelloService());
+        serverConfig = new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.setResponseBatching(!"flushPerResponse".equals(mode));
+        serverConfig.setInvokeNonBlockingOnIoThread("ioThread".equals(mode));
+        serverConfig.exporter();
+
+        rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:" + PORT, 3000);
+        service = rpcClient.invokeSync(HelloService.class);
+        // 等待连接建立和序列化协商
+        Thread.sleep(500);
+    }
+
+    @Setup(Level.Iteration)
+    public void markStats() {
+        RpcServerStats stats = serverConfig.getRpcServer().getStats();
+        flushesBefore = stats.getFlushCount();
+        responsesBefore = stats.getFlushedResponseCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStats() {
+        RpcServerStats stats = serverConfig.getRpcServer().getStats();
+        long flushes = stats.getFlushCount() - flushesBefore;
+        long responses = stats.getFlushedResponseCount() - responsesBefore;
+        System.out.printf("%n%s: responses: %d, flushes: %d, responses per flush: %.2f%n",
+                mode, responses, flushes, (double) responses / Math.max(1, flushes));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rpcClient.stop();
+        serverConfig.getRpcServer().close();
+    }
+
+    @Benchmark
+    public String hello() {
+        return service.hello("li4");
+    }
+
+    public static class NonBlockingHelloService implements HelloService {
+
+        @Override
+        @RpcNonBlocking
+        public String hello(String name) {
+            return "hello!" + name;
+        }
+
+        @Override
+        @RpcNonBlocking
+        public String hello(User user) {
+            return "hello!" + user.getName();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResponseFlushBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,100 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.serializer.Serializer;
+import com.rpc.netty.rapid.codec.serializer.SerializerRegistry;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.consumer.test.User;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各种序列化方式编解码RpcRequest的吞吐量对比，以及每条消息的字节数
+ * 请求的形状来自测试用例：HelloService.hello(String) 和 hello(User)
+ * primitive不支持User参数，和编码器一样退回到protostuff
+ *
+ * @author debao.yang
+ * @since 2026/10/18 13:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"protostuff", "jackson", "primitive"})
+    private String serializerName;
+
+    @Param({"string", "user"})
+    private String shape;
+
+    private Serializer serializer;
+
+    private RpcRequest request;
+
+    private ByteBuf encodeBuffer;
+
+    private ByteBuf encoded;
+
+    private int encodedLength;
+
+    @Setup
+    public void setup() {
+        request = new RpcRequest();
+        request.setRequestId(1L);
+        request.setClassName(HelloService.class.getName());
+        request.setMethodName("hello");
+        if ("string".equals(shape)) {
+            request.setParameterTypes(new Class<?>[]{String.class});
+            request.setParameters(new Object[]{"li4"});
+        } else {
+            request.setParameterTypes(new Class<?>[]{User.class});
+            request.setParameters(new Object[]{new User("001", "wang5")});
+        }
+
+        serializer = SerializerRegistry.get(serializerName);
+        if (!serializer.supports(request)) {
+            serializer = SerializerRegistry.PROTOSTUFF;
+        }
+
+        encodeBuffer = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        encoded = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        serializer.serialize(request, encoded);
+        encodedLength = encoded.readableBytes();
+        System.out.printf("%n%s/%s (encoded by %s): %d bytes per message%n",
+                serializerName, shape, serializer.getName(), encodedLength);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encodeBuffer.release();
+        encoded.release();
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        encodeBuffer.clear();
+        serializer.serialize(request, encodeBuffer);
+        return encodeBuffer;
+    }
+
+    @Benchmark
+    public RpcRequest decode() {
+        encoded.readerIndex(0);
+        return serializer.deserialize(encoded, encodedLength, RpcRequest.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.provider.test.HelloServiceImpl;
+import com.rpc.netty.rapid.transport.RpcAddress;
+import com.rpc.netty.rapid.transport.RpcTransportType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一台机器上共享内存传输和TCP回环地址(NIO、epoll)的延迟对比，服务端同时监听TCP端口和共享内存目录
+ * SampleTime模式下JMH直接给出p50/p99延迟；共享内存的读线程会忙等，核数少的机器上调小spinIterations
+ *
+ * @author debao.yang
+ * @since 2026/10/19 03:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SharedMemoryBenchmark {
+
+    private static final int PORT = 8776;
+
+    private static final String SHM_PATH = "/dev/shm/rapid-rpc-" + PORT;
+
+    @Param({"TCP_NIO", "TCP_EPOLL", "SHM"})
+    private String address;
+
+    private RpcServerConfig serverConfig;
+
+    private RpcClient rpcClient;
+
+    private HelloService service;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(new HelloServiceImpl());
+        serverConfig = new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.setSharedMemoryPath(SHM_PATH);
+        serverConfig.exporter();
+
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        clientConfig.setTransport("TCP_NIO".equals(address)
+                ? RpcTransportType.NIO : RpcTransportType.AUTO);
+        rpcClient = new RpcClient();
+        rpcClient.initClient("SHM".equals(address)
+                ? RpcAddress.SHM_SCHEME + SHM_PATH
+                : "127.0.0.1:" + PORT, 3000, clientConfig);
+        service = rpcClient.invokeSync(HelloService.class);
+        // 等待连接建立和序列化协商
+        Thread.sleep(500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rpcClient.stop();
+        serverConfig.getRpcServer().close();
+    }
+
+    @Benchmark
+    public String hello() {
+        return service.hello("li4");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SharedMemoryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.provider.test.HelloServiceImpl;
+import com.rpc.netty.rapid.transport.RpcTransportType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回环地址上NIO和native epoll(边缘触发)的对比，两端使用同样的传输方式
+ * SampleTime模式下JMH直接给出p50/p99延迟，quickAck同时打开TCP_QUICKACK(只对epoll生效)
+ * epoll只能在Linux上运行
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:55
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class TransportBenchmark {
+
+    private static final int PORT = 8772;
+
+    @Param({"NIO", "EPOLL"})
+    private RpcTransportType transport;
+
+    @Param({"false", "true"})
+    private boolean quickAck;
+
+    private RpcServerConfig serverConfig;
+
+    private RpcClient rpcClient;
+
+    private HelloService service;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(new HelloServiceImpl());
+        serverConfig = new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.setTransport(transport);
+        serverConfig.getSocketOptions().setTcpQuickAck(quickAck);
+        serverConfig.exporter();
+
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        clientConfig.setTransport(transport);
+        clientConfig.getSocketOptions().setTcpQuickAck(quickAck);
+        rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:" + PORT, 3000, clientConfig);
+        service = rpcClient.invokeSync(HelloService.class);
+        // 等待连接建立和序列化协商
+        Thread.sleep(500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rpcClient.stop();
+        serverConfig.getRpcServer().close();
+    }
+
+    @Benchmark
+    public String hello() {
+        return service.hello("li4");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.rpc.netty.rapid.benchmark;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.consumer.test.HelloService;
+import com.rpc.netty.rapid.invoke.provider.test.HelloServiceImpl;
+import com.rpc.netty.rapid.transport.RpcAddress;
+import com.rpc.netty.rapid.transport.RpcTransportType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一台机器上TCP回环地址和unix domain socket的延迟对比，服务端同时监听两种地址
+ * 单线程逐个调用，SampleTime模式下JMH直接给出p50/p99延迟，只能在Linux(epoll)上运行
+ *
+ * @author debao.yang
+ * @since 2026/10/19 00:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnixSocketBenchmark {
+
+    private static final int PORT = 8774;
+
+    private static final String SOCKET_PATH = "/tmp/rapid-rpc-" + PORT + ".sock";
+
+    @Param({"TCP", "UNIX"})
+    private String address;
+
+    private RpcServerConfig serverConfig;
+
+    private RpcClient rpcClient;
+
+    private HelloService service;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(new HelloServiceImpl());
+        serverConfig = new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.setTransport(RpcTransportType.EPOLL);
+        serverConfig.setUnixSocketPath(SOCKET_PATH);
+        serverConfig.exporter();
+
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        clientConfig.setTransport(RpcTransportType.EPOLL);
+        rpcClient = new RpcClient();
+        rpcClient.initClient("UNIX".equals(address)
+                ? RpcAddress.UNIX_SCHEME + SOCKET_PATH
+                : "127.0.0.1:" + PORT, 3000, clientConfig);
+        service = rpcClient.invokeSync(HelloService.class);
+        // 等待连接建立和序列化协商
+        Thread.sleep(500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rpcClient.stop();
+        serverConfig.getRpcServer().close();
+    }
+
+    @Benchmark
+    public String hello() {
+        return service.hello("li4");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UnixSocketBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,172 @@
+package com.rpc.netty.rapid.client;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.codec.RpcResponse;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 请求超时的处理：超时的请求从pendingRpcTable中移除并计数，之后到达的响应计数后丢弃
+ * 通过进程内的LocalChannel连接一个只记录请求、不自动响应的服务端，消息不经过编解码
+ *
+ * @author debao.yang
+ * @since 2026/10/19 18:30
+ */
+public class RpcClientHandlerTest {
+
+    private static final long WAIT_SECONDS = 5;
+
+    private DefaultEventLoopGroup group;
+
+    private Channel serverChannel;
+
+    private Channel clientChannel;
+
+    /**
+     * 服务端一侧的连接，测试中由它写回响应
+     */
+    private volatile Channel serverSide;
+
+    private final BlockingQueue<RpcRequest> received = new LinkedBlockingQueue<>();
+
+    private RpcClientHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        group = new DefaultEventLoopGroup(2);
+        LocalAddress address = new LocalAddress(RpcClientHandlerTest.class);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        serverSide = ch;
+                        ch.pipeline().addLast(new SimpleChannelInboundHandler<RpcRequest>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx,
+                                                        RpcRequest request) {
+                                received.add(request);
+                            }
+                        });
+                    }
+                })
+                .bind(address).sync().channel();
+
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        clientConfig.setWriteBatching(false);
+        handler = new RpcClientHandler(clientConfig, null);
+        clientChannel = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(handler)
+                .connect(address).sync().channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, WAIT_SECONDS, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    public void timedOutRequestIsRemovedAndCounted() throws Exception {
+        RpcFuture future = handler.sendRequest(newRequest(), 50);
+
+        assertTimedOut(future);
+        assertEquals(0, handler.getPendingCount());
+        assertEquals(0, handler.getInFlight());
+        assertEquals(1, handler.getTimeoutCount());
+        assertEquals(0, handler.getLateResponseCount());
+    }
+
+    @Test
+    public void lateResponseIsDropped() throws Exception {
+        RpcFuture future = handler.sendRequest(newRequest(), 50);
+        RpcRequest request = received.poll(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertTimedOut(future);
+
+        respond(request.getRequestId(), "late");
+
+        waitUntil(() -> handler.getLateResponseCount() == 1);
+        assertEquals(1, handler.getTimeoutCount());
+        assertEquals(0, handler.getPendingCount());
+        // 迟到的响应不会改变已经超时的结果
+        assertTimedOut(future);
+    }
+
+    @Test
+    public void responseBeforeTimeoutCompletesRequest() throws Exception {
+        RpcFuture future = handler.sendRequest(newRequest(), 5000);
+        RpcRequest request = received.poll(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(request);
+
+        respond(request.getRequestId(), "hello");
+
+        assertEquals("hello", future.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, handler.getPendingCount());
+        assertEquals(0, handler.getInFlight());
+        assertEquals(0, handler.getTimeoutCount());
+        assertEquals(0, handler.getLateResponseCount());
+    }
+
+    private RpcRequest newRequest() {
+        RpcRequest request = new RpcRequest();
+        request.setClassName("com.rpc.netty.rapid.invoke.consumer.test.HelloService");
+        request.setMethodName("hello");
+        request.setParameterTypes(new Class<?>[]{String.class});
+        request.setParameters(new Object[]{"zhang3"});
+        return request;
+    }
+
+    private void respond(long requestId, Object result) throws InterruptedException {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(requestId);
+        response.setResult(result);
+        serverSide.writeAndFlush(response).sync();
+    }
+
+    private void assertTimedOut(RpcFuture future) throws Exception {
+        try {
+            future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+            fail("request should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RpcTimeoutException);
+        }
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("condition not met in " + WAIT_SECONDS + "s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.rpc.netty.rapid.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 编码器和解码器的往返测试
+ * 编码器写出的字节原样交给解码器，覆盖v2的请求和响应、超过一个数据帧的分片消息以及v1的数据包
+ *
+ * @author debao.yang
+ * @since 2026/10/19 18:40
+ */
+public class RpcCodecTest {
+
+    @Test
+    public void requestRoundTripV2() {
+        RpcRequest request = newRequest("zhang3");
+        request.setRequestId(42);
+        request.setStream(true);
+
+        RpcRequest decoded = (RpcRequest) roundTrip(RpcRequest.class, request);
+
+        assertEquals(42, decoded.getRequestId());
+        assertEquals(request.getClassName(), decoded.getClassName());
+        assertEquals(request.getMethodName(), decoded.getMethodName());
+        assertArrayEquals(request.getParameterTypes(), decoded.getParameterTypes());
+        assertArrayEquals(request.getParameters(), decoded.getParameters());
+        assertTrue(decoded.isStream());
+        assertFalse(decoded.isEndOfStream());
+        assertNull(decoded.getDecodeError());
+    }
+
+    @Test
+    public void responseRoundTripV2() {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(7);
+        response.setResult("hello zhang3");
+        response.setStream(true);
+        response.setEndOfStream(true);
+
+        RpcResponse decoded = (RpcResponse) roundTrip(RpcResponse.class, response);
+
+        assertEquals(7, decoded.getRequestId());
+        assertEquals("hello zhang3", decoded.getResult());
+        assertNull(decoded.getThrowable());
+        assertTrue(decoded.isStream());
+        assertTrue(decoded.isEndOfStream());
+    }
+
+    @Test
+    public void chunkedRequestRoundTrip() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new RpcEncoder(RpcRequest.class, false));
+        EmbeddedChannel decoder = new EmbeddedChannel(new RpcDecoder(RpcRequest.class));
+        String large = repeat('x', RpcProtocol.MAX_CHUNK_LENGTH * 3);
+        RpcRequest request = newRequest(large);
+        request.setRequestId(1);
+        RpcRequest small = newRequest("zhang3");
+        small.setRequestId(2);
+
+        List<ByteBuf> frames = encode(encoder, request);
+        // 第一个分片带有FLAG_MORE_CHUNKS，包体超过了一个数据帧
+        ByteBuf first = frames.get(0);
+        assertTrue((first.getByte(first.readerIndex() + 3)
+                & RpcProtocol.FLAG_MORE_CHUNKS) != 0);
+        assertTrue(readableBytes(frames) > RpcProtocol.MAX_FRAME_LENGTH);
+        frames.addAll(encode(encoder, small));
+        for (ByteBuf frame : frames) {
+            decoder.writeInbound(frame);
+        }
+
+        RpcRequest decoded = decoder.readInbound();
+        assertEquals(1, decoded.getRequestId());
+        assertEquals(large, decoded.getParameters()[0]);
+        // 分片消息之后的数据包照常解码
+        RpcRequest next = decoder.readInbound();
+        assertEquals(2, next.getRequestId());
+        assertEquals("zhang3", next.getParameters()[0]);
+        assertNull(decoder.readInbound());
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+    }
+
+    @Test
+    public void tooLargeChunkedResponseFailsOnlyThatCall() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new RpcEncoder(RpcResponse.class, false));
+        EmbeddedChannel decoder = new EmbeddedChannel(new RpcDecoder(RpcResponse.class,
+                false, RpcProtocol.MAX_CHUNK_LENGTH * 2));
+        RpcResponse large = new RpcResponse();
+        large.setRequestId(1);
+        large.setResult(repeat('x', RpcProtocol.MAX_CHUNK_LENGTH * 4));
+        RpcResponse small = new RpcResponse();
+        small.setRequestId(2);
+        small.setResult("hello zhang3");
+
+        List<ByteBuf> frames = encode(encoder, large);
+        frames.addAll(encode(encoder, small));
+        for (ByteBuf frame : frames) {
+            decoder.writeInbound(frame);
+        }
+
+        RpcResponse failed = decoder.readInbound();
+        assertEquals(1, failed.getRequestId());
+        assertTrue(failed.getThrowable() instanceof RpcMessageTooLargeException);
+        // 超过最大长度的消息剩下的分片被丢弃，后面的响应照常解码
+        RpcResponse next = decoder.readInbound();
+        assertEquals(2, next.getRequestId());
+        assertEquals("hello zhang3", next.getResult());
+        assertNull(decoder.readInbound());
+        assertTrue(decoder.isActive());
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+    }
+
+    @Test
+    public void requestRoundTripV1() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new RpcEncoder(RpcRequest.class, false));
+        encoder.attr(RpcProtocol.VERSION_KEY).set(RpcProtocol.VERSION_1);
+        EmbeddedChannel decoder = new EmbeddedChannel(new RpcDecoder(RpcRequest.class));
+        RpcRequest request = newRequest("zhang3");
+        request.setLegacyRequestId("legacy-1");
+
+        for (ByteBuf frame : encode(encoder, request)) {
+            decoder.writeInbound(frame);
+        }
+
+        RpcRequest decoded = decoder.readInbound();
+        assertEquals("legacy-1", decoded.getLegacyRequestId());
+        assertEquals(request.getClassName(), decoded.getClassName());
+        assertEquals(request.getMethodName(), decoded.getMethodName());
+        assertArrayEquals(request.getParameterTypes(), decoded.getParameterTypes());
+        assertArrayEquals(request.getParameters(), decoded.getParameters());
+        // 解码器记录下对端使用v1协议，响应按照v1回写
+        assertEquals(Byte.valueOf(RpcProtocol.VERSION_1),
+                decoder.attr(RpcProtocol.VERSION_KEY).get());
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+    }
+
+    private static Object roundTrip(Class<?> genericClass, Object msg) {
+        EmbeddedChannel encoder = new EmbeddedChannel(new RpcEncoder(genericClass, false));
+        EmbeddedChannel decoder = new EmbeddedChannel(new RpcDecoder(genericClass));
+        for (ByteBuf frame : encode(encoder, msg)) {
+            decoder.writeInbound(frame);
+        }
+        Object decoded = decoder.readInbound();
+        assertNull(decoder.readInbound());
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+        return decoded;
+    }
+
+    /**
+     * 编码器写出的所有buffer，分片消息是一个CompositeByteBuf加上一个空buffer
+     */
+    private static List<ByteBuf> encode(EmbeddedChannel encoder, Object msg) {
+        assertTrue(encoder.writeOutbound(msg));
+        List<ByteBuf> frames = new ArrayList<>();
+        ByteBuf frame;
+        while ((frame = encoder.readOutbound()) != null) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    private static long readableBytes(List<ByteBuf> frames) {
+        long length = 0;
+        for (ByteBuf frame : frames) {
+            length += frame.readableBytes();
+        }
+        return length;
+    }
+
+    private static RpcRequest newRequest(String name) {
+        RpcRequest request = new RpcRequest();
+        request.setClassName("com.rpc.netty.rapid.invoke.consumer.test.HelloService");
+        request.setMethodName("hello");
+        request.setParameterTypes(new Class<?>[]{String.class});
+        request.setParameters(new Object[]{name});
+        return request;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
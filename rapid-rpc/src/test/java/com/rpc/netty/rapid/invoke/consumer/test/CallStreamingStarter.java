@@ -0,0 +1,139 @@
+package com.rpc.netty.rapid.invoke.consumer.test;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.provider.test.TelemetryServiceImpl;
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端流式调用和双向流式调用的测试
+ * 1、客户端流式调用：发送一百万个数值，服务端返回总和
+ * 2、同一个连接上同时进行两个双向流式调用，其中一个的消费很慢，
+ * 观察另一个的完成时间，应该不受慢的流影响
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:25
+ */
+public class CallStreamingStarter {
+
+    private static final int PORT = 8770;
+
+    private static final int VALUES = 1_000_000;
+
+    private static final int ECHOES = 100_000;
+
+    private static final int SLOW_ECHOES = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(TelemetryService.class.getName());
+        providerConfig.setRef(new TelemetryServiceImpl());
+        RpcServerConfig serverConfig =
+                new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.exporter();
+
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        RpcClient rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:" + PORT, 3000, clientConfig);
+        TelemetryService service = rpcClient.invokeSync(TelemetryService.class);
+        // 等待连接建立和序列化协商
+        Thread.sleep(500);
+
+        long start = System.nanoTime();
+        CompletableFuture<Long> total = new CompletableFuture<>();
+        RpcStreamObserver<Long> values = service.sum(collect(total));
+        for (long i = 1; i <= VALUES; i++) {
+            values.onNext(i);
+        }
+        values.onCompleted();
+        long sum = total.get(10, TimeUnit.SECONDS);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1000000);
+        System.err.printf("sum of %d values: %d (expected %d), elapsed: %dms, " +
+                        "values/s: %d%n", VALUES, sum, (long) VALUES * (VALUES + 1) / 2,
+                elapsedMillis, VALUES * 1000L / elapsedMillis);
+
+        // 慢的流每个元素处理5ms，窗口用完之后它的发送方被阻塞，但不影响快的流
+        CompletableFuture<Long> slowDone = new CompletableFuture<>();
+        CompletableFuture<Long> fastDone = new CompletableFuture<>();
+        long echoStart = System.nanoTime();
+        Thread slow = new Thread(() -> echo(service, SLOW_ECHOES, 5, slowDone, echoStart));
+        Thread fast = new Thread(() -> echo(service, ECHOES, 0, fastDone, echoStart));
+        slow.start();
+        fast.start();
+        System.err.printf("fast stream: %d echoes done in %dms%n", ECHOES,
+                fastDone.get(30, TimeUnit.SECONDS));
+        System.err.printf("slow stream still running: %s%n", !slowDone.isDone());
+        System.err.printf("slow stream: %d echoes done in %dms%n", SLOW_ECHOES,
+                slowDone.get(30, TimeUnit.SECONDS));
+
+        rpcClient.stop();
+        System.exit(0);
+    }
+
+    private static void echo(TelemetryService service, int count, long delayMillis,
+                             CompletableFuture<Long> done, long startNanos) {
+        RpcStreamObserver<String> requests = service.echo(new RpcStreamObserver<String>() {
+
+            private int received;
+
+            @Override
+            public void onNext(String value) {
+                received++;
+                if (delayMillis > 0) {
+                    try {
+                        Thread.sleep(delayMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                done.completeExceptionally(cause);
+            }
+
+            @Override
+            public void onCompleted() {
+                if (received != count) {
+                    done.completeExceptionally(new IllegalStateException(
+                            "received " + received + " of " + count));
+                    return;
+                }
+                done.complete((System.nanoTime() - startNanos) / 1000000);
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            requests.onNext("echo-" + i);
+        }
+        requests.onCompleted();
+    }
+
+    private static <T> RpcStreamObserver<T> collect(CompletableFuture<T> result) {
+        return new RpcStreamObserver<T>() {
+            @Override
+            public void onNext(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                result.completeExceptionally(cause);
+            }
+
+            @Override
+            public void onCompleted() {
+                if (!result.isDone()) {
+                    result.completeExceptionally(new IllegalStateException("no result"));
+                }
+            }
+        };
+    }
+}
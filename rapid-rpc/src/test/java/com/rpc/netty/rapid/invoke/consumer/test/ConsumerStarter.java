@@ -4,6 +4,7 @@ import com.rpc.netty.rapid.client.RpcClient;
 import com.rpc.netty.rapid.client.RpcFuture;
 import com.rpc.netty.rapid.client.proxy.RpcAsyncProxy;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -37,6 +38,18 @@ public class ConsumerStarter {
         System.err.println("result2: " + result2);
     }
 
+    public static void asyncStub() throws InterruptedException, ExecutionException {
+        RpcClient rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:8765", 3000);
+        HelloServiceAsync service = rpcClient.invokeAsync(HelloService.class,
+                HelloServiceAsync.class);
+        CompletableFuture<String> future = service.hello("li4");
+        CompletableFuture<String> future1 = service.hello(new User("001", "wang5"));
+
+        System.err.println("result: " + future.get());
+        System.err.println("result2: " + future1.get());
+    }
+
     public static void main(String[] args) throws Exception{
         sync();
     }
@@ -0,0 +1,91 @@
+package com.rpc.netty.rapid.invoke.consumer.test;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.client.RpcClientHandler;
+import com.rpc.netty.rapid.client.RpcConnectionPool;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.provider.test.HelloServiceImpl;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端合并写的对比：多个线程通过同一个连接同步调用，分别在开启和关闭合并写时
+ * 统计吞吐量和每次flush携带的请求个数(每次flush对应一次write系统调用)
+ *
+ * @author debao.yang
+ * @since 2026/10/18 16:50
+ */
+public class FlushCoalescingStarter {
+
+    private static final int PORT = 8767;
+
+    private static final int THREADS = 64;
+
+    private static final int CALLS_PER_THREAD = 20000;
+
+    public static void main(String[] args) throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(HelloService.class.getName());
+        providerConfig.setRef(new HelloServiceImpl());
+        RpcServerConfig serverConfig =
+                new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.exporter();
+
+        run(false);
+        run(true);
+        System.exit(0);
+    }
+
+    private static void run(boolean writeBatching) throws Exception {
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        clientConfig.setWriteBatching(writeBatching);
+        RpcClient rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:" + PORT, 3000, clientConfig);
+        HelloService service = rpcClient.invokeSync(HelloService.class);
+        // 等待连接建立和序列化协商，然后预热
+        Thread.sleep(500);
+        for (int i = 0; i < 10000; i++) {
+            service.hello("warmup");
+        }
+        RpcClientHandler handler = null;
+        for (RpcConnectionPool pool : rpcClient.getConnetManager().getConnectionPools()) {
+            handler = pool.getConnections()[0];
+        }
+        long flushesBefore = handler.getFlushCount();
+        long messagesBefore = handler.getFlushedMessageCount();
+
+        CountDownLatch latch = new CountDownLatch(THREADS);
+        AtomicLong failures = new AtomicLong();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    try {
+                        service.hello("fan-in");
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        long flushes = handler.getFlushCount() - flushesBefore;
+        long messages = handler.getFlushedMessageCount() - messagesBefore;
+        System.err.printf("writeBatching: %s, calls: %d, failures: %d, " +
+                        "throughput: %d/s, flushes: %d, messages per flush: %.2f, " +
+                        "max messages per flush: %d%n",
+                writeBatching, messages, failures.get(),
+                messages * 1000 / Math.max(1, elapsedMillis), flushes,
+                (double) messages / Math.max(1, flushes),
+                handler.getMaxMessagesPerFlush());
+        rpcClient.stop();
+    }
+}
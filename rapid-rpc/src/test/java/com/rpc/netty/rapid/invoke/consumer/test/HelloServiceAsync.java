@@ -0,0 +1,17 @@
+package com.rpc.netty.rapid.invoke.consumer.test;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HelloService的异步孪生接口
+ *
+ * @author debao.yang
+ * @since 2026/10/18 18:40
+ */
+public interface HelloServiceAsync {
+
+    CompletableFuture<String> hello(String name);
+
+    CompletableFuture<String> hello(User user);
+
+}
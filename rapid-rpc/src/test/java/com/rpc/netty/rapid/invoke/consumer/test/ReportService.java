@@ -0,0 +1,20 @@
+package com.rpc.netty.rapid.invoke.consumer.test;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 流式调用的测试接口：结果集很大，逐行返回
+ *
+ * @author debao.yang
+ * @since 2026/10/18 22:00
+ */
+public interface ReportService {
+
+    /**
+     * 导出count行报表，每行大约100个字符
+     */
+    Stream<String> export(int count);
+
+    Iterator<Long> sequence(long count);
+}
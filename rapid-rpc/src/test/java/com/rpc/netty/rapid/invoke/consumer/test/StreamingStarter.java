@@ -0,0 +1,74 @@
+package com.rpc.netty.rapid.invoke.consumer.test;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.config.consumer.RpcClientConfig;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import com.rpc.netty.rapid.config.provider.RpcServerConfig;
+import com.rpc.netty.rapid.invoke.provider.test.ReportServiceImpl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 流式调用的测试：导出一个远大于堆内存的结果集，逐行消费
+ * 观察堆内存的使用，应该和结果集的大小无关，只和信用窗口有关
+ * 建议使用较小的堆运行，例如 -Xmx64m
+ *
+ * @author debao.yang
+ * @since 2026/10/18 22:05
+ */
+public class StreamingStarter {
+
+    private static final int PORT = 8769;
+
+    private static final int ROWS = 5_000_000;
+
+    public static void main(String[] args) throws Exception {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(ReportService.class.getName());
+        providerConfig.setRef(new ReportServiceImpl());
+        RpcServerConfig serverConfig =
+                new RpcServerConfig(Collections.singletonList(providerConfig));
+        serverConfig.setPort(PORT);
+        serverConfig.exporter();
+
+        RpcClientConfig clientConfig = new RpcClientConfig();
+        RpcClient rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:" + PORT, 3000, clientConfig);
+        ReportService service = rpcClient.invokeSync(ReportService.class);
+        // 等待连接建立和序列化协商
+        Thread.sleep(500);
+
+        Runtime runtime = Runtime.getRuntime();
+        long start = System.nanoTime();
+        long rows = 0, bytes = 0, maxUsedHeap = 0;
+        try (Stream<String> export = service.export(ROWS)) {
+            Iterator<String> iterator = export.iterator();
+            while (iterator.hasNext()) {
+                bytes += iterator.next().length();
+                if (++rows % 500_000 == 0) {
+                    long usedHeap = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+                    maxUsedHeap = Math.max(maxUsedHeap, usedHeap);
+                    System.err.printf("rows: %d, used heap: %dMB%n", rows, usedHeap);
+                }
+            }
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1000000);
+        System.err.printf("export rows: %d, chars: %dMB, elapsed: %dms, rows/s: %d, " +
+                        "max used heap: %dMB%n", rows, bytes >> 20, elapsedMillis,
+                rows * 1000 / elapsedMillis, maxUsedHeap);
+
+        // 只读一部分就关闭，服务端停止发送并关闭数据源
+        Iterator<Long> sequence = service.sequence(Long.MAX_VALUE);
+        long sum = 0;
+        for (int i = 0; i < 1000; i++) {
+            sum += sequence.next();
+        }
+        ((AutoCloseable) sequence).close();
+        System.err.printf("partial sequence sum: %d%n", sum);
+
+        rpcClient.stop();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,22 @@
+package com.rpc.netty.rapid.invoke.consumer.test;
+
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
+
+/**
+ * 客户端流式调用和双向流式调用的测试接口
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:20
+ */
+public interface TelemetryService {
+
+    /**
+     * 客户端流式调用：客户端发送一串数值，结束之后服务端返回总和
+     */
+    RpcStreamObserver<Long> sum(RpcStreamObserver<Long> total);
+
+    /**
+     * 双向流式调用：服务端原样返回收到的每个元素
+     */
+    RpcStreamObserver<String> echo(RpcStreamObserver<String> replies);
+}
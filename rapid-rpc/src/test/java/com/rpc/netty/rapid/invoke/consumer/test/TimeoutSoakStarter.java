@@ -0,0 +1,94 @@
+package com.rpc.netty.rapid.invoke.consumer.test;
+
+import com.rpc.netty.rapid.client.RpcClient;
+import com.rpc.netty.rapid.client.RpcClientHandler;
+import com.rpc.netty.rapid.client.RpcConnectionPool;
+import com.rpc.netty.rapid.client.RpcConnetManager;
+import com.rpc.netty.rapid.client.proxy.RpcAsyncProxy;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+/**
+ * 超时的浸泡测试：服务端只读不回，客户端持续发送异步请求
+ * 观察pendingRpcTable的大小和堆内存的使用，应该保持平稳而不是一直增长
+ *
+ * @author debao.yang
+ * @since 2026/10/18 14:20
+ */
+public class TimeoutSoakStarter {
+
+    private static final int PORT = 8766;
+
+    private static final long TIMEOUT_MILLIS = 200;
+
+    private static final int REQUESTS_PER_SECOND = 20000;
+
+    private static final int DURATION_SECONDS = 60;
+
+    public static void main(String[] args) throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        // 一个永远不回复的服务端
+        Channel server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new SimpleChannelInboundHandler<ByteBuf>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx,
+                                                        ByteBuf msg) {
+                                // 丢弃所有请求
+                            }
+                        });
+                    }
+                })
+                .bind(PORT).sync().channel();
+
+        RpcClient rpcClient = new RpcClient();
+        rpcClient.initClient("127.0.0.1:" + PORT, TIMEOUT_MILLIS);
+        RpcAsyncProxy proxy = rpcClient.invokeAsync(HelloService.class);
+        RpcConnetManager connetManager = rpcClient.getConnetManager();
+
+        Runtime runtime = Runtime.getRuntime();
+        for (int second = 1; second <= DURATION_SECONDS; second++) {
+            // 每10ms发送一批，避免突发流量干扰堆内存的观察
+            for (int slice = 0; slice < 100; slice++) {
+                long start = System.currentTimeMillis();
+                for (int i = 0; i < REQUESTS_PER_SECOND / 100; i++) {
+                    proxy.call("hello", "soak-" + i);
+                }
+                long elapsed = System.currentTimeMillis() - start;
+                if (elapsed < 10) {
+                    Thread.sleep(10 - elapsed);
+                }
+            }
+
+            System.gc();
+            long pending = 0, timeout = 0, late = 0;
+            for (RpcConnectionPool pool : connetManager.getConnectionPools()) {
+                for (RpcClientHandler handler : pool.getConnections()) {
+                    pending += handler.getPendingCount();
+                    timeout += handler.getTimeoutCount();
+                    late += handler.getLateResponseCount();
+                }
+            }
+            long usedHeap = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+            System.err.printf("second: %d, pending: %d, timeout: %d, late: %d, " +
+                            "used heap: %dMB%n", second, pending, timeout, late,
+                    usedHeap);
+        }
+
+        rpcClient.stop();
+        server.close().sync();
+        group.shutdownGracefully();
+    }
+}
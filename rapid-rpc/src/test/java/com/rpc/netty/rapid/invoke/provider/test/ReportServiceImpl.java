@@ -0,0 +1,28 @@
+package com.rpc.netty.rapid.invoke.provider.test;
+
+import com.rpc.netty.rapid.invoke.consumer.test.ReportService;
+
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * 流式调用的测试实现，元素都是按需生成的，不会一次性放在内存中
+ *
+ * @author debao.yang
+ * @since 2026/10/18 22:00
+ */
+public class ReportServiceImpl implements ReportService {
+
+    @Override
+    public Stream<String> export(int count) {
+        return IntStream.range(0, count).mapToObj(i -> String.format(
+                "%010d,report-row,%080d", i, i));
+    }
+
+    @Override
+    public Iterator<Long> sequence(long count) {
+        return LongStream.range(0, count).iterator();
+    }
+}
@@ -0,0 +1,55 @@
+package com.rpc.netty.rapid.invoke.provider.test;
+
+import com.rpc.netty.rapid.invoke.consumer.test.TelemetryService;
+import com.rpc.netty.rapid.stream.RpcStreamObserver;
+
+/**
+ * 流式调用的测试实现，请求观察者的回调是串行的，不需要额外的同步
+ *
+ * @author debao.yang
+ * @since 2026/10/18 23:20
+ */
+public class TelemetryServiceImpl implements TelemetryService {
+
+    @Override
+    public RpcStreamObserver<Long> sum(RpcStreamObserver<Long> total) {
+        return new RpcStreamObserver<Long>() {
+
+            private long sum;
+
+            @Override
+            public void onNext(Long value) {
+                sum += value;
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+            }
+
+            @Override
+            public void onCompleted() {
+                total.onNext(sum);
+                total.onCompleted();
+            }
+        };
+    }
+
+    @Override
+    public RpcStreamObserver<String> echo(RpcStreamObserver<String> replies) {
+        return new RpcStreamObserver<String>() {
+            @Override
+            public void onNext(String value) {
+                replies.onNext(value);
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+            }
+
+            @Override
+            public void onCompleted() {
+                replies.onCompleted();
+            }
+        };
+    }
+}
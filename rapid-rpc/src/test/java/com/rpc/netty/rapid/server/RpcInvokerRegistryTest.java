@@ -0,0 +1,121 @@
+package com.rpc.netty.rapid.server;
+
+import com.rpc.netty.rapid.codec.RpcRequest;
+import com.rpc.netty.rapid.config.provider.ProviderConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 调用器注册表的方法id分配：同一个接口重新注册时沿用原来的方法id，调用器换成绑定新实现的
+ *
+ * @author debao.yang
+ * @since 2026/10/19 18:50
+ */
+public class RpcInvokerRegistryTest {
+
+    public interface EchoService {
+        String echo(String value);
+
+        int add(int a, int b);
+    }
+
+    public interface PingService {
+        String ping();
+    }
+
+    public static class EchoServiceV1 implements EchoService {
+        @Override
+        public String echo(String value) {
+            return "v1:" + value;
+        }
+
+        @Override
+        public int add(int a, int b) {
+            return a + b;
+        }
+    }
+
+    public static class EchoServiceV2 implements EchoService {
+        @Override
+        public String echo(String value) {
+            return "v2:" + value;
+        }
+
+        @Override
+        public int add(int a, int b) {
+            return a + b + 1;
+        }
+    }
+
+    public static class PingServiceImpl implements PingService {
+        @Override
+        public String ping() {
+            return "pong";
+        }
+    }
+
+    @Test
+    public void reRegisterReusesMethodIds() throws Throwable {
+        RpcInvokerRegistry registry = new RpcInvokerRegistry();
+        registry.register(provider(EchoService.class, new EchoServiceV1()));
+        registry.register(provider(PingService.class, new PingServiceImpl()));
+        int echoId = lookup(registry, "echo", String.class).getMethodId();
+        int addId = lookup(registry, "add", int.class, int.class).getMethodId();
+        int pingId = lookup(registry, PingService.class, "ping").getMethodId();
+        assertEquals(3, registry.size());
+
+        EchoServiceV2 v2 = new EchoServiceV2();
+        RpcInvoker[] registered = registry.register(provider(EchoService.class, v2));
+
+        // 签名不变的方法沿用原来的id，不再追加新的id
+        assertEquals(2, registered.length);
+        assertEquals(3, registry.size());
+        assertEquals(echoId, lookup(registry, "echo", String.class).getMethodId());
+        assertEquals(addId, lookup(registry, "add", int.class, int.class).getMethodId());
+        assertEquals(pingId, lookup(registry, PingService.class, "ping").getMethodId());
+        assertEquals(3, registry.getInvokers().length);
+
+        // 原来的id调用到新的实现
+        RpcInvoker echo = registry.getInvoker(echoId);
+        assertSame(v2, echo.getServiceRef());
+        assertSame(echo, lookup(registry, "echo", String.class));
+        assertEquals("v2:zhang3", echo.invoke(new Object[]{"zhang3"}));
+        assertEquals(4, registry.getInvoker(addId).invoke(new Object[]{1, 2}));
+        assertEquals("pong", registry.getInvoker(pingId).invoke(new Object[0]));
+    }
+
+    @Test
+    public void newServiceAppendsMethodIds() {
+        RpcInvokerRegistry registry = new RpcInvokerRegistry();
+        registry.register(provider(EchoService.class, new EchoServiceV1()));
+        RpcInvoker[] registered = registry.register(provider(PingService.class,
+                new PingServiceImpl()));
+
+        assertEquals(1, registered.length);
+        assertEquals(2, registered[0].getMethodId());
+        assertEquals(3, registry.size());
+    }
+
+    private static ProviderConfig provider(Class<?> interfaceClass, Object ref) {
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterface(interfaceClass.getName());
+        providerConfig.setRef(ref);
+        return providerConfig;
+    }
+
+    private static RpcInvoker lookup(RpcInvokerRegistry registry, String methodName,
+                                     Class<?>... parameterTypes) {
+        return lookup(registry, EchoService.class, methodName, parameterTypes);
+    }
+
+    private static RpcInvoker lookup(RpcInvokerRegistry registry, Class<?> interfaceClass,
+                                     String methodName, Class<?>... parameterTypes) {
+        RpcRequest request = new RpcRequest();
+        request.setClassName(interfaceClass.getName());
+        request.setMethodName(methodName);
+        request.setParameterTypes(parameterTypes);
+        return registry.lookup(request);
+    }
+}